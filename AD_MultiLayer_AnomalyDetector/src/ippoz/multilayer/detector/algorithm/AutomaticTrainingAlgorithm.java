@@ -4,7 +4,7 @@
 package ippoz.multilayer.detector.algorithm;
 
 import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.List;
 
 import ippoz.multilayer.detector.commons.configuration.AlgorithmConfiguration;
 import ippoz.multilayer.detector.commons.data.Snapshot;
@@ -23,6 +23,6 @@ public interface AutomaticTrainingAlgorithm {
 	 * @param algExpSnapshots the training data, formatted as an hashmap with experimentName -> list of snapshots
 	 * @return the chosen algorithm configuration
 	 */
-	public AlgorithmConfiguration automaticTraining(HashMap<String, LinkedList<Snapshot>> algExpSnapshots);
+	public AlgorithmConfiguration automaticTraining(HashMap<String, List<Snapshot>> algExpSnapshots);
 	
 }
@@ -64,7 +64,7 @@ public class RemoteCallChecker extends DetectionAlgorithm {
 	 * @return the double
 	 */
 	private double analyzeServiceCall(Snapshot snapshot, ServiceCall call) {
-		if(call.getEndTime().compareTo(snapshot.getTimestamp()) == 0){
+		if(call.getEndTime() == snapshot.getTimestamp()){
 			if(!call.getResponseCode().equals("200"))
 				return weight;
 			else return evaluateAbsDiff(AppUtility.getSecondsBetween(call.getEndTime(), call.getStartTime()), snapshot.getServiceObsStat(call.getServiceName()), 1.0);
@@ -11,9 +11,8 @@ import ippoz.multilayer.detector.graphics.ChartDrawer;
 import ippoz.multilayer.detector.graphics.XYChartDrawer;
 
 import java.io.File;
-import java.util.Date;
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.LinkedList;
 import java.util.TreeMap;
 
 import org.apache.commons.math3.distribution.ChiSquaredDistribution;
@@ -66,22 +65,25 @@ public class SPSDetector extends DataSeriesDetectionAlgorithm {
 	private SPSCalculator calculator;
 	
 	/** The map of anomaly scores. */
-	private TreeMap<Date, Double> anomalies;
+	private TreeMap<Long, Double> anomalies;
 	
 	/** The map of the failures. */
-	private TreeMap<Date, Double> failures;
+	private TreeMap<Long, Double> failures;
 	
 	/** The map of the observations. */
-	private TreeMap<Date, Double> observations;
+	private TreeMap<Long, Double> observations;
 	
 	/** The upper threshold. */
-	private TreeMap<Date, Double> upperTreshold;
+	private TreeMap<Long, Double> upperTreshold;
 	
 	/** The lower threshold. */
-	private TreeMap<Date, Double> lowerTreshold;
+	private TreeMap<Long, Double> lowerTreshold;
 	
 	/** The new thresholds. */
 	private double[] newTresholds;
+	
+	/** The quantiles of the chi-squared distribution, by probability and degrees of freedom, NaN if not computed yet. */
+	private static HashMap<Double, double[]> chiSquaredTable = new HashMap<Double, double[]>();
 
 	/**
 	 * Instantiates a new SPS detector.
@@ -93,11 +95,11 @@ public class SPSDetector extends DataSeriesDetectionAlgorithm {
 	public SPSDetector(DataSeries dataSeries, AlgorithmConfiguration conf) {
 		super(dataSeries, conf);
 		calculator = new SPSCalculator();
-		anomalies = new TreeMap<Date, Double>();
-		failures = new TreeMap<Date, Double>();
-		observations = new TreeMap<Date, Double>();
-		upperTreshold = new TreeMap<Date, Double>();
-		lowerTreshold = new TreeMap<Date, Double>();
+		anomalies = new TreeMap<Long, Double>();
+		failures = new TreeMap<Long, Double>();
+		observations = new TreeMap<Long, Double>();
+		upperTreshold = new TreeMap<Long, Double>();
+		lowerTreshold = new TreeMap<Long, Double>();
 		newTresholds = null;
 	}
 	
@@ -115,7 +117,7 @@ public class SPSDetector extends DataSeriesDetectionAlgorithm {
 		anomalyScore = calculateAnomalyScore(sysSnapshot);
 		if(anomalyScore >= 1.0)
 			anomalies.put(sysSnapshot.getTimestamp(), sysSnapshot.getSnapValue());
-		if(sysSnapshot.getInjectedElement() != null && sysSnapshot.getInjectedElement().getTimestamp().compareTo(sysSnapshot.getTimestamp()) == 0)
+		if(sysSnapshot.getInjectedElement() != null && sysSnapshot.getInjectedElement().getTimestamp() == sysSnapshot.getTimestamp())
 			failures.put(sysSnapshot.getTimestamp(), sysSnapshot.getSnapValue());
 		newTresholds = calculator.calculateTreshold(sysSnapshot);
 		return anomalyScore;
@@ -154,7 +156,7 @@ public class SPSDetector extends DataSeriesDetectionAlgorithm {
 	 * @return the dataset
 	 */
 	private HashMap<String, TreeMap<Double, Double>> getDataset() {
-		Date refDate = observations.firstKey();
+		long refDate = observations.firstKey();
 		HashMap<String, TreeMap<Double, Double>> dataset = new HashMap<String, TreeMap<Double, Double>>();
 		dataset.put(SPS_OBSERVATION, AppUtility.convertMapTimestamps(refDate, observations));
 		dataset.put(SPS_UPPER_BOUND, AppUtility.convertMapTimestamps(refDate, upperTreshold));
@@ -172,20 +174,72 @@ public class SPSDetector extends DataSeriesDetectionAlgorithm {
 		// TODO Auto-generated method stub	
 	}
 	
+	/**
+	 * Gets the quantile of the chi-squared distribution, from the table shared by all the SPS detectors.
+	 * Quantiles are computed once for each (degrees of freedom, probability) pair.
+	 *
+	 * @param dof the degrees of freedom
+	 * @param p the probability
+	 * @return the quantile
+	 */
+	private static synchronized double chiSquaredQuantile(int dof, double p){
+		double[] quantiles = chiSquaredTable.get(p);
+		if(quantiles == null || quantiles.length <= dof){
+			double[] grown = new double[Math.max(dof + 1, quantiles != null ? 2*quantiles.length : 64)];
+			Arrays.fill(grown, Double.NaN);
+			if(quantiles != null)
+				System.arraycopy(quantiles, 0, grown, 0, quantiles.length);
+			quantiles = grown;
+			chiSquaredTable.put(p, quantiles);
+		}
+		if(Double.isNaN(quantiles[dof]))
+			quantiles[dof] = new ChiSquaredDistribution(dof).inverseCumulativeProbability(p);
+		return quantiles[dof];
+	}
+	
 	/**
 	 * The Class SPSCalculator.
 	 * The Core of the SPS elaboration.
+	 * The sliding window is kept in primitive ring buffers, and the weights of the window are computed only when its size changes.
+	 * Variances are summed in the same order of the SPS definition, so thresholds do not depend on the window layout.
 	 */
 	private class SPSCalculator {
 		
-		/** The observed values. */
-		private LinkedList<SPSBlock> observedValues;
+		/** The observed values of the window. */
+		private double[] obsValues;
+		
+		/** The drifts of the window. */
+		private double[] drifts;
+		
+		/** The offsets of the window. */
+		private double[] offsets;
+		
+		/** The timestamps of the window. */
+		private long[] timestamps;
+		
+		/** The time differences of the window. */
+		private int[] timeDiffs;
+		
+		/** The position of the oldest observation in the ring buffers. */
+		private int head;
+		
+		/** The number of observations in the window. */
+		private int size;
+		
+		/** The size of the window the weights were computed for. */
+		private int weightSize;
+		
+		/** The weight of each observation in the window. */
+		private double[] weights;
 		
-		/** The pdv. */
-		private double pdv;
+		/** The weight of each observation in the window, divided by the weight sum. */
+		private double[] normWeights;
 		
-		/** The pov. */
-		private double pov;
+		/** The weight sum. */
+		private double weightSum;
+		
+		/** The sum of the squared normalized weights. */
+		private double nWeightSum;
 		
 		/** The pds. */
 		private double pds;
@@ -193,6 +247,12 @@ public class SPSDetector extends DataSeriesDetectionAlgorithm {
 		/** The pos. */
 		private double pos;
 		
+		/** The erf of pdv. */
+		private double erfPdv;
+		
+		/** The erf of pov. */
+		private double erfPov;
+		
 		/** The m. */
 		private double m;
 		
@@ -207,14 +267,23 @@ public class SPSDetector extends DataSeriesDetectionAlgorithm {
 		 * Instantiates a new SPS calculator.
 		 */
 		public SPSCalculator(){
-			observedValues = new LinkedList<SPSBlock>();
-			pdv = Double.parseDouble(conf.getItem(SPS_PDV));
-			pov = Double.parseDouble(conf.getItem(SPS_POV));
+			int capacity;
+			erfPdv = Erf.erf(Double.parseDouble(conf.getItem(SPS_PDV)));
+			erfPov = Erf.erf(Double.parseDouble(conf.getItem(SPS_POV)));
 			pds = Double.parseDouble(conf.getItem(SPS_PDS));
 			pos = Double.parseDouble(conf.getItem(SPS_POS));
 			m = Double.parseDouble(conf.getItem(SPS_M));
 			n = Double.parseDouble(conf.getItem(SPS_N));
-			dynamicWeights = (Double.parseDouble(conf.getItem(SPS_DYN_WEIGHT)) == 1.0);		
+			dynamicWeights = (Double.parseDouble(conf.getItem(SPS_DYN_WEIGHT)) == 1.0);
+			capacity = (int) Math.max(1, Math.min(Math.floor(m), Integer.MAX_VALUE - 1));
+			obsValues = new double[capacity];
+			drifts = new double[capacity];
+			offsets = new double[capacity];
+			timestamps = new long[capacity];
+			timeDiffs = new int[capacity];
+			head = 0;
+			size = 0;
+			weightSize = -1;
 		}
 		
 		/**
@@ -225,11 +294,13 @@ public class SPSDetector extends DataSeriesDetectionAlgorithm {
 		 */
 		public double[] calculateTreshold(DataSeriesSnapshot sysSnapshot){
 			double calcTreshold = 0;
-			addSPSBlock(sysSnapshot.getSnapValue(), sysSnapshot.getTimestamp());
-			if(observedValues.size() > 1)
+			double lastObs;
+			addObservation(sysSnapshot.getSnapValue(), sysSnapshot.getTimestamp());
+			lastObs = obsValues[slot(size-1)];
+			if(size > 1)
 				calcTreshold = computeThreshold();
-			else calcTreshold = observedValues.getLast().getObs();
-			return new double[]{observedValues.getLast().getObs() - calcTreshold, observedValues.getLast().getObs() + calcTreshold};
+			else calcTreshold = lastObs;
+			return new double[]{lastObs - calcTreshold, lastObs + calcTreshold};
 		}
 		
 		/**
@@ -238,87 +309,95 @@ public class SPSDetector extends DataSeriesDetectionAlgorithm {
 		 * @return the computed threshold
 		 */
 		private double computeThreshold() {
-			double driftBound = driftUpperBound();
-			double offsetBound = offsetUpperBound();
-			double pred = Erf.erf(pdv)*Math.sqrt(2.0*driftBound)*(2.0/3)*Math.pow(observedValues.getLast().getTimeDiff(), (3/2));
-			double sm = Erf.erf(pov)*Math.sqrt(2.0*offsetBound);
+			int dof = size - 1;
+			updateWeights();
+			double driftBound = weightedVariance(drifts)*(dof/chiSquaredQuantile(dof, pds));
+			double offsetBound = weightedVariance(offsets)*(dof/chiSquaredQuantile(dof, pos));
+			double pred = erfPdv*Math.sqrt(2.0*driftBound)*(2.0/3)*Math.pow(timeDiffs[slot(size-1)], (3/2));
+			double sm = erfPov*Math.sqrt(2.0*offsetBound);
 			return pred + sm;
 		}
 		
 		/**
-		 * Calculates the drift upper bound.
-		 *
-		 * @return the double
-		 */
-		private double driftUpperBound(){
-			int dof = observedValues.size() - 1;
-			ChiSquaredDistribution chiSq = new ChiSquaredDistribution(dof);
-			return weightedDriftVariance()*(dof/chiSq.inverseCumulativeProbability(pds));
-		}
-		
-		/**
-		 * Calculates the offset upper bound.
+		 * Calculates the weighted variance of the drifts or offsets in the window.
 		 *
-		 * @return the double
+		 * @param values the ring buffer of drifts or offsets
+		 * @return the weighted variance
 		 */
-		private double offsetUpperBound(){
-			int dof = observedValues.size() - 1;
-			ChiSquaredDistribution chiSq = new ChiSquaredDistribution(dof);
-			return weightedOffsetVariance()*(dof/chiSq.inverseCumulativeProbability(pos));
+		private double weightedVariance(double[] values){
+			double wVar = 0;
+			double weightMean = 0;
+			for(int i=0;i<size;i++){
+				weightMean = weightMean + weights[i]*values[slot(i)];
+			}
+			weightMean = weightMean/weightSum;
+			for(int i=0;i<size;i++){
+				wVar = wVar + normWeights[i]*Math.pow(values[slot(i)] - weightMean, 2);
+			}
+			return wVar/(1-nWeightSum);
 		}
-		
+
 		/**
-		 * Calculates the weighted drift variance.
+		 * Adds an observation to the window, dropping the oldest one if the window is full.
 		 *
-		 * @return the double
+		 * @param newValue the new value
+		 * @param timestamp the new timestamp
 		 */
-		private double weightedDriftVariance(){
-			double wdf = 0;
-			double weigthSum = getWeightSum();
-			double nWeightSum = 0;
-			double weigthDMean = 0;
-			for(int i=0;i<observedValues.size();i++){
-				weigthDMean = weigthDMean + getWeigth(i)*observedValues.get(i).getDrift();
-				nWeightSum = nWeightSum + Math.pow(getWeigth(i)/weigthSum, 2);
+		private void addObservation(double newValue, long timestamp){
+			boolean first = size == 0;
+			int last = slot(size-1);
+			int next;
+			if(size == obsValues.length){
+				head = (head + 1) % obsValues.length;
+				size--;
 			}
-			weigthDMean = weigthDMean/weigthSum;
-			for(int i=0;i<observedValues.size();i++){
-				wdf = wdf + (getWeigth(i)/weigthSum)*Math.pow(observedValues.get(i).getDrift() - weigthDMean, 2);
+			next = slot(size);
+			if(!first){
+				drifts[next] = (newValue - drifts[last])/2;
+				offsets[next] = newValue - obsValues[last];
+				timeDiffs[next] = (int) ((timestamp - timestamps[last])/1000);
+			} else {
+				drifts[next] = newValue;
+				offsets[next] = newValue;
+				timeDiffs[next] = 1;
 			}
-			return wdf/(1-nWeightSum);
+			obsValues[next] = newValue;
+			timestamps[next] = timestamp;
+			size++;
 		}
 		
 		/**
-		 * Calculates the weighted offset variance.
+		 * Gets the position of an observation in the ring buffers.
 		 *
-		 * @return the double
+		 * @param obsIndex the observation index, 0 being the oldest one
+		 * @return the position
 		 */
-		private double weightedOffsetVariance(){
-			double wof = 0;
-			double weigthSum = getWeightSum();
-			double nWeightSum = 0;
-			double weigthOMean = 0;
-			for(int i=0;i<observedValues.size();i++){
-				weigthOMean = weigthOMean + getWeigth(i)*observedValues.get(i).getOffset();
-				nWeightSum = nWeightSum + Math.pow(getWeigth(i)/weigthSum, 2);
-			}
-			weigthOMean = weigthOMean/weigthSum;
-			for(int i=0;i<observedValues.size();i++){
-				wof = wof + (getWeigth(i)/weigthSum)*Math.pow(observedValues.get(i).getOffset() - weigthOMean, 2);
-			}
-			return wof/(1-nWeightSum);
+		private int slot(int obsIndex){
+			return (head + obsIndex) % obsValues.length;
 		}
-
+		
 		/**
-		 * Adds an SPS block.
-		 *
-		 * @param newValue the new value
-		 * @param timestamp the new timestamp
+		 * Computes the weights of the window, if its size changed.
 		 */
-		private void addSPSBlock(double newValue, Date timestamp){
-			observedValues.add(new SPSBlock(newValue, timestamp));
-			if(observedValues.size() > m)
-				observedValues.removeFirst();
+		private void updateWeights(){
+			if(weightSize != size){
+				weights = new double[size];
+				normWeights = new double[size];
+				weightSum = 0.0;
+				for(int i=0;i<size;i++){
+					weights[i] = getWeigth(i);
+					if(dynamicWeights)
+						weightSum = weightSum + weights[i];
+				}
+				if(!dynamicWeights)
+					weightSum = 1.0*size;
+				nWeightSum = 0;
+				for(int i=0;i<size;i++){
+					normWeights[i] = weights[i]/weightSum;
+					nWeightSum = nWeightSum + Math.pow(normWeights[i], 2);
+				}
+				weightSize = size;
+			}
 		}
 		
 		/**
@@ -329,112 +408,10 @@ public class SPSDetector extends DataSeriesDetectionAlgorithm {
 		 */
 		private double getWeigth(int obsIndex){
 			if(dynamicWeights){
-				return ((obsIndex+1.0)/observedValues.size());
+				return ((obsIndex+1.0)/size);
 			} else return 1.0;
 		}
 		
-		/**
-		 * Gets the weight sum.
-		 *
-		 * @return the weight sum
-		 */
-		private double getWeightSum(){
-			double tot = 0.0;
-			if(dynamicWeights){
-				for(int i=0;i<observedValues.size();i++){
-					tot = tot + getWeigth(i);
-				}
-				return tot;
-			} else return 1.0*observedValues.size();
-		}
-		
-		/**
-		 * The Class SPSBlock.
-		 */
-		private class SPSBlock {
-			
-			/** The observation value. */
-			private double obs;
-			
-			/** The timestamp. */
-			private Date timestamp;
-			
-			/** The drift. */
-			private double drift;
-			
-			/** The offset. */
-			private double offset;
-			
-			/** The time difference. */
-			private int timeDiff;
-			
-			/**
-			 * Instantiates a new SPS block.
-			 *
-			 * @param obs the observation
-			 * @param timestamp the timestamp
-			 */
-			public SPSBlock(double obs, Date timestamp) {
-				this.obs = obs;
-				this.timestamp = timestamp;
-				if(observedValues.size() > 0){
-					drift = (obs - observedValues.getLast().getDrift())/2;
-					offset = obs - observedValues.getLast().getObs();
-					timeDiff = (int) ((timestamp.getTime() - observedValues.getLast().getTimestamp().getTime())/1000);
-				} else {
-					drift = obs;
-					offset = obs;
-					timeDiff = 1;
-				}
-			}
-
-			/**
-			 * Gets the observation value.
-			 *
-			 * @return the observation
-			 */
-			public double getObs() {
-				return obs;
-			}
-			
-			/**
-			 * Gets the drift.
-			 *
-			 * @return the drift
-			 */
-			public double getDrift() {
-				return drift;
-			}
-			
-			/**
-			 * Gets the offset.
-			 *
-			 * @return the offset
-			 */
-			public double getOffset() {
-				return offset;
-			}
-			
-			/**
-			 * Gets the time difference.
-			 *
-			 * @return the time difference
-			 */
-			public int getTimeDiff(){
-				return timeDiff;
-			}
-			
-			/**
-			 * Gets the timestamp.
-			 *
-			 * @return the timestamp
-			 */
-			public Date getTimestamp(){
-				return timestamp;
-			}
-			
-		}
-		
 	}
 
 }
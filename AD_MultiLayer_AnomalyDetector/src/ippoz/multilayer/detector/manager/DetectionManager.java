@@ -3,7 +3,10 @@ package ippoz.multilayer.detector.manager;
 import ippoz.multilayer.detector.commons.algorithm.AlgorithmType;
 import ippoz.multilayer.detector.commons.configuration.AlgorithmConfiguration;
 import ippoz.multilayer.detector.commons.data.ExperimentData;
+import ippoz.multilayer.detector.commons.data.SeriesColumnCache;
+import ippoz.multilayer.detector.commons.data.SnapshotCache;
 import ippoz.multilayer.detector.commons.datacategory.DataCategory;
+import ippoz.multilayer.detector.commons.dataseries.DataSeriesRegistry;
 import ippoz.multilayer.detector.commons.support.AppLogger;
 import ippoz.multilayer.detector.commons.support.AppUtility;
 import ippoz.multilayer.detector.commons.support.PreferencesManager;
@@ -44,12 +47,63 @@ public class DetectionManager {
     /**
      * The Constant DB_USERNAME.
      */
-    private static final String DB_USERNAME = "DB_USERNAME";
+    public static final String DB_USERNAME = "DB_USERNAME";
 
     /**
      * The Constant DB_PASSWORD.
      */
-    private static final String DB_PASSWORD = "DB_PASSWORD";
+    public static final String DB_PASSWORD = "DB_PASSWORD";
+
+    /**
+     * The Constant LOADER_THREADS.
+     */
+    public static final String LOADER_THREADS = "LOADER_THREADS";
+
+    /**
+     * The Constant LOADER_BATCH_SIZE.
+     */
+    public static final String LOADER_BATCH_SIZE = "LOADER_BATCH_SIZE";
+
+    /**
+     * The Constant CACHE_FOLDER.
+     */
+    public static final String CACHE_FOLDER = "CACHE_FOLDER";
+
+    /**
+     * The Constant CACHE_MAPPED.
+     */
+    public static final String CACHE_MAPPED = "CACHE_MAPPED";
+
+    /**
+     * The Constant DATA_SOURCE.
+     */
+    public static final String DATA_SOURCE = "DATA_SOURCE";
+
+    /**
+     * The Constant DATA_FOLDER.
+     */
+    public static final String DATA_FOLDER = "DATA_FOLDER";
+
+    /**
+     * The Constant STORAGE_MODE.
+     */
+    public static final String STORAGE_MODE = "STORAGE_MODE";
+
+    /**
+     * The Constant SNAPSHOT_CACHE_SIZE.
+     */
+    public static final String SNAPSHOT_CACHE_SIZE = "SNAPSHOT_CACHE_SIZE";
+
+    /**
+     * The Constant SERIES_CACHE_SIZE.
+     */
+    public static final String SERIES_CACHE_SIZE = "SERIES_CACHE_SIZE";
+
+    /**
+     * The Constant PRUNE_SERIES.
+     * If true (and INV_DOMAIN is ALL), uninformative candidate series are not trained; disabled by default.
+     */
+    public static final String PRUNE_SERIES = "PRUNE_SERIES";
 
     /**
      * The Constant TRAIN_RUN_PREFERENCE.
@@ -174,24 +228,64 @@ public class DetectionManager {
         reputation = getReputation(metric);
         dataTypes = getDataTypes();
         algTypes = getAlgTypes();
+        setupSnapshotCache();
+        setupSeriesCache();
         pManager.addTiming(TimingsManager.SCORING_METRIC, metric.getMetricName());
         pManager.addTiming(TimingsManager.REPUTATION_METRIC, reputation.getReputationTag());
         pManager.addTiming(TimingsManager.EXECUTION_TIME, new Date().toString());
     }
 
     /**
-     * Check premises for the execution, such as MySQL server status.
+     * Sets the memory budget of the snapshot cache shared by trainers and voters, in MB.
+     */
+    private void setupSnapshotCache() {
+        String cacheSize = prefManager.getPreference(SNAPSHOT_CACHE_SIZE);
+        try {
+            if (cacheSize != null) {
+                SnapshotCache.setMaxBytes(Long.parseLong(cacheSize.trim()) * 1024 * 1024);
+            }
+        } catch (NumberFormatException ex) {
+            AppLogger.logException(getClass(), ex, "Unable to parse snapshot cache size");
+        }
+    }
+
+    /**
+     * Sets the memory budget of the data series values cached by each experiment, in MB.
+     */
+    private void setupSeriesCache() {
+        String cacheSize = prefManager.getPreference(SERIES_CACHE_SIZE);
+        try {
+            if (cacheSize != null) {
+                SeriesColumnCache.setDefaultMaxBytes(Long.parseLong(cacheSize.trim()) * 1024 * 1024);
+            }
+        } catch (NumberFormatException ex) {
+            AppLogger.logException(getClass(), ex, "Unable to parse series cache size");
+        }
+    }
+
+    /**
+     * Check premises for the execution, such as MySQL server status when data is read from the database.
      *
      * @return true, if premises are satisfied
      */
     public boolean checkPremises() {
-        if (!AppUtility.isServerUp(3306)) {
+        if (!LoaderManager.FILE_SOURCE.equalsIgnoreCase(getDataSource()) && !AppUtility.isServerUp(3306)) {
             AppLogger.logError(getClass(), "MySQLException", "MySQL is not running. Please activate it");
             return false;
         }
         return true;
     }
 
+    /**
+     * Gets the source of the experiment data.
+     *
+     * @return the data source, DATABASE if not specified
+     */
+    private String getDataSource() {
+        String source = prefManager.getPreference(DATA_SOURCE);
+        return source != null ? source.trim() : LoaderManager.DATABASE_SOURCE;
+    }
+
     /**
      * Loads the validation metrics, used to score the final result.
      *
@@ -228,17 +322,22 @@ public class DetectionManager {
      */
     public void train() {
         TrainerManager tManager;
+        LinkedList<ExperimentData> expList = null;
         try {
             if (needTest()) {
-                tManager = new TrainerManager(prefManager, pManager, new LoaderManager(readRunIds(TRAIN_RUN_PREFERENCE),
-                        "train", pManager, prefManager.getPreference(DB_USERNAME),
-                        prefManager.getPreference(DB_PASSWORD)).fetch(), loadConfigurations(), metric, reputation,
+                expList = new LoaderManager(prefManager, readRunIds(TRAIN_RUN_PREFERENCE), "train", pManager).fetch();
+                tManager = new TrainerManager(prefManager, pManager, expList, loadConfigurations(), metric, reputation,
                         dataTypes, algTypes);
                 tManager.train();
                 tManager.flush();
+                AppLogger.logInfo(getClass(), "Snapshot cache: " + SnapshotCache.getSummary());
+                AppLogger.logInfo(getClass(), "Series cache: " + SeriesColumnCache.getTotalSummary());
             }
         } catch (Exception ex) {
             AppLogger.logException(getClass(), ex, "Unable to train detector");
+        } finally {
+            LoaderManager.release(expList);
+            DataSeriesRegistry.clear();
         }
     }
 
@@ -249,8 +348,8 @@ public class DetectionManager {
         EvaluatorManager eManager;
         Metric[] metList = loadValidationMetrics();
         HashMap<String, Integer> nVoters = new HashMap<>();
-        LinkedList<ExperimentData> expList = new LoaderManager(readRunIds(VALIDATION_RUN_PREFERENCE), "validation",
-                pManager, prefManager.getPreference(DB_USERNAME), prefManager.getPreference(DB_PASSWORD)).fetch();
+        LinkedList<ExperimentData> expList = new LoaderManager(prefManager,
+                readRunIds(VALIDATION_RUN_PREFERENCE), "validation", pManager).fetch();
         HashMap<String, HashMap<String, LinkedList<HashMap<Metric, Double>>>> evaluations = new HashMap<>();
         try {
             pManager.setupExpTimings(new File(prefManager.getPreference(OUTPUT_FOLDER) +
@@ -272,8 +371,13 @@ public class DetectionManager {
                 }
             }
             summarizeEvaluations(evaluations, metList, parseAnomalyThresholds(), nVoters);
+            AppLogger.logInfo(getClass(), "Snapshot cache: " + SnapshotCache.getSummary());
+            AppLogger.logInfo(getClass(), "Series cache: " + SeriesColumnCache.getTotalSummary());
         } catch (Exception ex) {
             AppLogger.logException(getClass(), ex, "Unable to evaluate detector");
+        } finally {
+            LoaderManager.release(expList);
+            DataSeriesRegistry.clear();
         }
     }
 
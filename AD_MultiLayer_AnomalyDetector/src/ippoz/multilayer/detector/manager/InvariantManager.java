@@ -15,6 +15,7 @@ import ippoz.multilayer.detector.reputation.Reputation;
 import ippoz.multilayer.detector.trainer.AlgorithmTrainer;
 import ippoz.multilayer.detector.trainer.FixedConfigurationTrainer;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.LinkedList;
 
@@ -26,14 +27,14 @@ public class InvariantManager {
 	
 	private final String[] invariantOperandList = {">"};
 	
-	private LinkedList<DataSeries> seriesList;
+	private Iterable<DataSeries> seriesList;
 	private TrainingTiming tTiming;
 	private HashMap<String, String> invCombinations;
 	private LinkedList<ExperimentData> expList;
 	private Metric metric;
 	private Reputation reputation;
 	
-	public InvariantManager(LinkedList<DataSeries> seriesList, TrainingTiming tTiming, LinkedList<ExperimentData> expList, Metric metric, Reputation reputation, HashMap<String, String> invCombinations) {
+	public InvariantManager(Iterable<DataSeries> seriesList, TrainingTiming tTiming, LinkedList<ExperimentData> expList, Metric metric, Reputation reputation, HashMap<String, String> invCombinations) {
 		this.seriesList = seriesList;
 		this.tTiming = tTiming;
 		this.invCombinations = invCombinations;
@@ -72,8 +73,13 @@ public class InvariantManager {
 	private LinkedList<AlgorithmTrainer> generateAllInvariants() {
 		AlgorithmConfiguration conf;
 		LinkedList<AlgorithmTrainer> allInv = new LinkedList<AlgorithmTrainer>();
-		for(DataSeries firstDS : seriesList){
-			for(DataSeries secondDS : seriesList){
+		// every couple of candidates is combined, so they are collected once instead of being generated again for each of them
+		ArrayList<DataSeries> candidates = new ArrayList<DataSeries>();
+		for(DataSeries dataSeries : seriesList){
+			candidates.add(dataSeries);
+		}
+		for(DataSeries firstDS : candidates){
+			for(DataSeries secondDS : candidates){
 				for(String operand : invariantOperandList){
 					conf = new AlgorithmConfiguration(AlgorithmType.INV);
 					conf.addRawItem(AlgorithmConfiguration.INVARIANT, new Invariant(new DataSeriesMember(firstDS), new DataSeriesMember(secondDS), operand));
@@ -4,12 +4,25 @@
 package ippoz.multilayer.detector.manager;
 
 import ippoz.multilayer.detector.commons.data.ExperimentData;
+import ippoz.multilayer.detector.commons.data.StorageMode;
+import ippoz.multilayer.detector.commons.datafetcher.CacheFetcher;
 import ippoz.multilayer.detector.commons.datafetcher.DataFetcher;
 import ippoz.multilayer.detector.commons.datafetcher.DatabaseFetcher;
+import ippoz.multilayer.detector.commons.datafetcher.FileFetcher;
+import ippoz.multilayer.detector.commons.datafetcher.MappedFetcher;
+import ippoz.multilayer.detector.commons.datafetcher.cache.ExperimentCache;
+import ippoz.multilayer.detector.commons.datafetcher.database.DatabaseConnectionPool;
+import ippoz.multilayer.detector.commons.datafetcher.database.DatabaseManager;
+import ippoz.multilayer.detector.commons.datafetcher.file.CsvManager;
 import ippoz.multilayer.detector.commons.support.AppLogger;
+import ippoz.multilayer.detector.commons.support.AppUtility;
+import ippoz.multilayer.detector.commons.support.PreferencesManager;
 import ippoz.multilayer.detector.commons.support.ThreadScheduler;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.LinkedList;
+import java.util.List;
 
 /**
  * The Class LoaderManager.
@@ -19,6 +32,18 @@ import java.util.LinkedList;
  */
 public class LoaderManager extends ThreadScheduler {
 	
+	/** The default number of runs loaded simultaneously. */
+	private static final int DEFAULT_LOADER_THREADS = 8;
+	
+	/** The default number of runs loaded by the same set of queries. */
+	private static final int DEFAULT_LOADER_BATCH_SIZE = 10;
+	
+	/** The data source reading runs from the experiment database. */
+	public static final String DATABASE_SOURCE = "DATABASE";
+	
+	/** The data source reading runs exported as CSV files. */
+	public static final String FILE_SOURCE = "FILE";
+	
 	/** The experiment tag. */
 	private String tag;
 	
@@ -28,6 +53,36 @@ public class LoaderManager extends ThreadScheduler {
 	/** The database password. */
 	private String dbPassword;
 	
+	/** The number of runs loaded simultaneously. */
+	private int loaderThreads;
+	
+	/** The number of runs loaded by the same set of queries. */
+	private int batchSize;
+	
+	/** The pool of database connectors shared by the fetchers. */
+	private DatabaseConnectionPool pool;
+	
+	/** The manager of the exported CSV runs, null if data is read from the database. */
+	private CsvManager csvManager;
+	
+	/** The persistent experiment cache, null if disabled. */
+	private ExperimentCache cache;
+	
+	/** True if cached runs are memory-mapped instead of loaded. */
+	private boolean mapCache;
+	
+	/** The storage mode of the loaded observations. */
+	private StorageMode storageMode;
+	
+	/** The validity stamps of the runs in the database, used to check and store cached runs. */
+	private HashMap<String, String> runStamps;
+	
+	/** The runIDs, in the same order of the fetchers. */
+	private ArrayList<String> fetchIDs;
+	
+	/** The data read by the fetchers, by runID. */
+	private HashMap<String, ExperimentData> fetchedData;
+	
 	/** The timings manager. */
 	private TimingsManager pManager;
 	
@@ -40,22 +95,93 @@ public class LoaderManager extends ThreadScheduler {
 	/**
 	 * Instantiates a new loader manager.
 	 *
+	 * @param prefManager the main preference manager
 	 * @param expIDs the experiments IDs
 	 * @param tag the loader tag
 	 * @param pManager the timings manager
-	 * @param dbUsername the database username
-	 * @param dbPassword the database password
 	 */
-	public LoaderManager(LinkedList<String> expIDs, String tag, TimingsManager pManager, String dbUsername, String dbPassword) {
+	public LoaderManager(PreferencesManager prefManager, LinkedList<String> expIDs, String tag, TimingsManager pManager) {
 		super();
 		this.tag = tag;
-		this.dbUsername = dbUsername;
-		this.dbPassword = dbPassword;
+		this.dbUsername = prefManager.getPreference(DetectionManager.DB_USERNAME);
+		this.dbPassword = prefManager.getPreference(DetectionManager.DB_PASSWORD);
 		this.pManager = pManager;
 		this.expIDs = expIDs;
+		loaderThreads = readPositiveInteger(prefManager.getPreference(DetectionManager.LOADER_THREADS), DEFAULT_LOADER_THREADS);
+		batchSize = readPositiveInteger(prefManager.getPreference(DetectionManager.LOADER_BATCH_SIZE), DEFAULT_LOADER_BATCH_SIZE);
+		setWindowSize(loaderThreads);
+		if(FILE_SOURCE.equalsIgnoreCase(readString(prefManager.getPreference(DetectionManager.DATA_SOURCE))))
+			csvManager = new CsvManager(readString(prefManager.getPreference(DetectionManager.DATA_FOLDER)));
+		else cache = readCache(prefManager.getPreference(DetectionManager.CACHE_FOLDER));
+		mapCache = prefManager.getPreference(DetectionManager.CACHE_MAPPED) != null && Boolean.parseBoolean(prefManager.getPreference(DetectionManager.CACHE_MAPPED).trim());
+		storageMode = readStorageMode(prefManager.getPreference(DetectionManager.STORAGE_MODE));
 		readData = new LinkedList<ExperimentData>();
 	}
 	
+	/**
+	 * Reads the experiment cache preference.
+	 *
+	 * @param preference the cache folder preference
+	 * @return the experiment cache, null if disabled
+	 */
+	private ExperimentCache readCache(String preference){
+		if(preference != null && preference.trim().length() > 0 && !preference.trim().equalsIgnoreCase("null"))
+			return new ExperimentCache(preference.trim());
+		else return null;
+	}
+	
+	/**
+	 * Reads a string preference.
+	 *
+	 * @param preference the preference value
+	 * @return the trimmed value, empty if the preference is missing
+	 */
+	private String readString(String preference){
+		return preference != null ? preference.trim() : "";
+	}
+	
+	/**
+	 * Reads the storage mode preference.
+	 *
+	 * @param preference the storage mode preference
+	 * @return the storage mode, HEAP if the preference is missing or not valid
+	 */
+	private StorageMode readStorageMode(String preference){
+		try {
+			if(preference != null && preference.trim().length() > 0)
+				return StorageMode.valueOf(preference.trim().toUpperCase());
+		} catch (IllegalArgumentException ex) {
+			AppLogger.logException(getClass(), ex, "Unknown storage mode '" + preference.trim() + "', using HEAP");
+		}
+		return StorageMode.HEAP;
+	}
+	
+	/**
+	 * Releases the observed values of loaded data, once all its consumers are done.
+	 *
+	 * @param expList the loaded data
+	 */
+	public static void release(List<ExperimentData> expList){
+		if(expList != null){
+			for(ExperimentData expData : expList){
+				expData.close();
+			}
+		}
+	}
+	
+	/**
+	 * Reads a positive integer preference.
+	 *
+	 * @param preference the preference value
+	 * @param defaultValue the default value, used if the preference is missing or not valid
+	 * @return the integer value
+	 */
+	private int readPositiveInteger(String preference, int defaultValue){
+		if(preference != null && AppUtility.isInteger(preference.trim()) && Integer.parseInt(preference.trim()) > 0)
+			return Integer.parseInt(preference.trim());
+		else return defaultValue;
+	}
+	
 	/**
 	 * Starts fetching data.
 	 * For all the experiment IDs, launch a fetching on the specified DataFetcher.
@@ -67,6 +193,15 @@ public class LoaderManager extends ThreadScheduler {
 		try {
 			start();
 			join();
+			if(pool != null){
+				pool.close();
+				pool = null;
+			}
+			for(String runId : expIDs){
+				if(fetchedData.get(runId) != null)
+					readData.add(fetchedData.get(runId));
+			}
+			fetchedData = null;
 			if(tag.equals("train")){
 				pManager.addTiming(TimingsManager.LOAD_TRAIN_TIME, (double)(System.currentTimeMillis() - start));
 				pManager.addTiming(TimingsManager.AVG_LOAD_TRAIN_TIME, (double)((System.currentTimeMillis() - start)/threadNumber()));
@@ -88,11 +223,63 @@ public class LoaderManager extends ThreadScheduler {
 	@Override
 	protected void initRun() {
 		LinkedList<DataFetcher> fetchList = new LinkedList<DataFetcher>();
+		ArrayList<String> runIDs = new ArrayList<String>();
+		ArrayList<List<String>> blocks = new ArrayList<List<String>>();
+		ArrayList<DatabaseManager> blockManagers = new ArrayList<DatabaseManager>();
+		fetchIDs = new ArrayList<String>();
+		fetchedData = new HashMap<String, ExperimentData>();
+		if(csvManager != null){
+			for(String runId : expIDs){
+				fetchIDs.add(runId);
+				fetchList.add(new FileFetcher(runId, csvManager));
+			}
+			setStorageMode(fetchList);
+			setThreadList(fetchList);
+			return;
+		}
+		pool = new DatabaseConnectionPool("experiment", dbUsername, dbPassword, loaderThreads);
+		if(cache != null){
+			runStamps = new DatabaseManager(pool, new ArrayList<String>(expIDs)).getRunStamps();
+			if(runStamps == null)
+				AppLogger.logInfo(getClass(), "Unable to check cached runs against the database, using them as they are");
+		}
 		for(String runId : expIDs){
-			fetchList.add(new DatabaseFetcher(runId, dbUsername, dbPassword));
+			if(cache != null && cache.isValid(runId, runStamps != null ? runStamps.get(runId) : null)){
+				fetchIDs.add(runId);
+				fetchList.add(mapCache ? new MappedFetcher(runId, cache) : new CacheFetcher(runId, cache));
+			} else runIDs.add(runId);
+		}
+		if(cache != null)
+			AppLogger.logInfo(getClass(), (expIDs.size() - runIDs.size()) + " '" + tag + "' runs read from cache");
+		for(int i=0;i<runIDs.size();i=i+batchSize){
+			blocks.add(runIDs.subList(i, Math.min(i+batchSize, runIDs.size())));
+			blockManagers.add(new DatabaseManager(pool, blocks.get(blocks.size()-1)));
+		}
+		// fetchers are interleaved among blocks, so that each window of threads loads different blocks in parallel
+		for(int r=0;r<batchSize;r++){
+			for(int b=0;b<blocks.size();b++){
+				if(r < blocks.get(b).size()){
+					fetchIDs.add(blocks.get(b).get(r));
+					fetchList.add(new DatabaseFetcher(blocks.get(b).get(r), blockManagers.get(b)));
+				}
+			}
 		}
+		setStorageMode(fetchList);
 		setThreadList(fetchList);
 	}
+	
+	/**
+	 * Sets the storage mode of the fetchers.
+	 * Memory-mapped runs are already kept out of the heap, and are left as they are.
+	 *
+	 * @param fetchList the fetchers
+	 */
+	private void setStorageMode(List<DataFetcher> fetchList){
+		for(DataFetcher fetcher : fetchList){
+			if(!(fetcher instanceof MappedFetcher))
+				fetcher.setStorageMode(storageMode);
+		}
+	}
 
 	/* (non-Javadoc)
 	 * @see ippoz.multilayer.detector.support.ThreadScheduler#threadStart(java.lang.Thread, int)
@@ -108,8 +295,14 @@ public class LoaderManager extends ThreadScheduler {
 	@Override
 	protected void threadComplete(Thread t, int tIndex) {
 		ExperimentData data = ((DataFetcher)t).getFetchedData();
+		String runId = fetchIDs.get(tIndex-1);
+		if(cache != null && t instanceof DatabaseFetcher && runStamps != null){
+			if(((DatabaseFetcher)t).isComplete() && data.getSnapshotNumber() > 5)
+				cache.store(runId, runStamps.get(runId), data);
+			else AppLogger.logInfo(getClass(), "Run " + runId + " was not loaded completely, and is not cached");
+		}
 		if(data.getSnapshotNumber() > 5)
-			readData.add(data);
+			fetchedData.put(runId, data);
 	}
 
 }
@@ -34,13 +34,13 @@ import org.apache.commons.math3.stat.correlation.PearsonsCorrelation;
 public class PearsonCombinationManager {
 	
 	private File indexesFile;
-	private LinkedList<DataSeries> seriesList;
+	private Iterable<DataSeries> seriesList;
 	private TrainingTiming tTiming;
 	private LinkedList<ExperimentData> expList;
-	private HashMap<DataSeries, HashMap<String, double[]>> seriesExpData;
+	private LinkedList<DataSeries> indicatorSeries;
 	private LinkedList<PearsonResult> pResults;
 	
-	public PearsonCombinationManager(File indexesFile, LinkedList<DataSeries> seriesList, TrainingTiming tTiming, LinkedList<ExperimentData> expList){
+	public PearsonCombinationManager(File indexesFile, Iterable<DataSeries> seriesList, TrainingTiming tTiming, LinkedList<ExperimentData> expList){
 		this.indexesFile = indexesFile;
 		this.seriesList = seriesList;
 		this.tTiming = tTiming;
@@ -49,15 +49,10 @@ public class PearsonCombinationManager {
 	}
 	
 	private void initExpData(){
-		HashMap<String, double[]> map;
-		seriesExpData = new HashMap<DataSeries, HashMap<String,double[]>>();
+		indicatorSeries = new LinkedList<DataSeries>();
 		for(DataSeries ds : seriesList){
 			if(ds instanceof IndicatorDataSeries) { 
-				map = new HashMap<String, double[]>();
-				for(ExperimentData expData : expList){
-					map.put(expData.getName(), expData.getDataSeriesValue(ds));
-				}
-				seriesExpData.put(ds, map);
+				indicatorSeries.add(ds);
 			}
 		}
 	}
@@ -90,12 +85,13 @@ public class PearsonCombinationManager {
 		LinkedList<Double> pExp;
 		pResults = new LinkedList<PearsonResult>();
 		AppLogger.logInfo(getClass(), "Calculating Indicator Correlations");
-		for(DataSeries ds1 : seriesExpData.keySet()){
-			for(DataSeries ds2 : seriesExpData.keySet()){
+		for(DataSeries ds1 : indicatorSeries){
+			for(DataSeries ds2 : indicatorSeries){
 				if(!ds1.equals(ds2)){
 					pExp = new LinkedList<Double>();
+					// series values are computed once per experiment and shared through its series column cache
 					for(ExperimentData expData : expList){
-						pExp.add(new PearsonsCorrelation().correlation(seriesExpData.get(ds1).get(expData.getName()), seriesExpData.get(ds2).get(expData.getName())));
+						pExp.add(new PearsonsCorrelation().correlation(expData.getDataSeriesValue(ds1), expData.getDataSeriesValue(ds2)));
 					}
 					pr = new PearsonResult(ds1, ds2, pExp);
 					if(pr.isValid(pResults))
@@ -137,8 +133,8 @@ public class PearsonCombinationManager {
 	}
 
 	public void flush(){
-		seriesExpData.clear();
-		seriesExpData = null;
+		indicatorSeries.clear();
+		indicatorSeries = null;
 	}
 	
 	private class PearsonResult {
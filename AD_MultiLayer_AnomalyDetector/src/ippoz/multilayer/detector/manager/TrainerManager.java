@@ -5,6 +5,7 @@ import ippoz.multilayer.detector.commons.configuration.AlgorithmConfiguration;
 import ippoz.multilayer.detector.commons.data.ExperimentData;
 import ippoz.multilayer.detector.commons.datacategory.DataCategory;
 import ippoz.multilayer.detector.commons.dataseries.DataSeries;
+import ippoz.multilayer.detector.commons.dataseries.DataSeriesGenerator;
 import ippoz.multilayer.detector.commons.support.AppLogger;
 import ippoz.multilayer.detector.commons.support.PreferencesManager;
 import ippoz.multilayer.detector.commons.support.ThreadScheduler;
@@ -65,9 +66,9 @@ public class TrainerManager extends ThreadScheduler {
     private Reputation reputation;
 
     /**
-     * The list of indicators.
+     * The candidate data series, generated lazily.
      */
-    private LinkedList<DataSeries> seriesList;
+    private DataSeriesGenerator seriesList;
 
     /**
      * The algorithm types.
@@ -138,14 +139,23 @@ public class TrainerManager extends ThreadScheduler {
         return comb;
     }
 
-    private LinkedList<DataSeries> generateDataSeries(DataCategory[] dataTypes) {
+    private DataSeriesGenerator generateDataSeries(DataCategory[] dataTypes) {
+        DataSeriesGenerator generator;
         String complexDataPreference = prefManager.getPreference(DetectionManager.INV_DOMAIN);
+        String pruneSeries = prefManager.getPreference(DetectionManager.PRUNE_SERIES);
         if (complexDataPreference.equals("ALL")) {
-            return DataSeries.allCombinations(expList.getFirst().getIndicators(), dataTypes);
+            if (pruneSeries != null && Boolean.parseBoolean(pruneSeries.trim())) {
+                generator = new DataSeriesGenerator(expList.getFirst().getIndicators(), dataTypes, expList);
+                AppLogger.logInfo(getClass(), "Pruned " + generator.getPrunedSimpleSeries()
+                        + " constant data series, " + generator.getSimpleSeries().size() + " left");
+            } else {
+                generator = new DataSeriesGenerator(expList.getFirst().getIndicators(), dataTypes, null);
+            }
         } else {
-            return DataSeries.selectedCombinations(expList.getFirst().getIndicators(), dataTypes,
-                    readPossibleIndCombinations());
+            generator = new DataSeriesGenerator(expList.getFirst().getIndicators(), dataTypes,
+                    readPossibleIndCombinations(), null);
         }
+        return generator;
     }
 
     /**
@@ -193,6 +203,7 @@ public class TrainerManager extends ThreadScheduler {
         long initStartTime = System.currentTimeMillis();
         AppLogger.logInfo(getClass(), "Train Started");
         LinkedList<AlgorithmTrainer> trainerList = new LinkedList<>();
+        LinkedList<AlgorithmType> seriesTypes = new LinkedList<>();
         for (AlgorithmType algType : algTypes) {
             if (confList.get(algType) != null) {
                 switch (algType) {
@@ -204,16 +215,14 @@ public class TrainerManager extends ThreadScheduler {
                         PearsonCombinationManager pcManager;
                         File pearsonFile = new File(prefManager.getPreference(DetectionManager
                                 .SETUP_FILE_FOLDER) + "pearsonCombinations.csv");
-                        pcManager = new PearsonCombinationManager(pearsonFile, seriesList, tTiming, expList);
+                        pcManager = new PearsonCombinationManager(pearsonFile, seriesList.getSimpleSeries(), tTiming,
+                                expList);
                         pcManager.calculatePearsonIndexes();
                         trainerList.addAll(pcManager.getTrainers(metric, reputation, confList));
                         pcManager.flush();
                         break;
                     default:
-                        for (DataSeries dataSeries : seriesList) {
-                            trainerList.add(new ConfigurationSelectorTrainer(algType, dataSeries, metric, reputation,
-                                    tTiming, expList, confList.get(algType)));
-                        }
+                        seriesTypes.add(algType);
                         break;
                 }
             } else {
@@ -225,14 +234,25 @@ public class TrainerManager extends ThreadScheduler {
                                 .equals("ALL")));
                         break;
                     default:
-                        for (DataSeries dataSeries : seriesList) {
-                            trainerList.add(new ConfigurationFinderTrainer(algType, dataSeries, metric, reputation,
-                                    tTiming, expList));
-                        }
+                        seriesTypes.add(algType);
                         break;
                 }
             }
         }
+        if (!seriesTypes.isEmpty()) {
+            // candidates are generated in a single pass, building the trainers of all the algorithm types for each of them
+            for (DataSeries dataSeries : seriesList) {
+                for (AlgorithmType algType : seriesTypes) {
+                    if (confList.get(algType) != null) {
+                        trainerList.add(new ConfigurationSelectorTrainer(algType, dataSeries, metric, reputation,
+                                tTiming, expList, confList.get(algType)));
+                    } else {
+                        trainerList.add(new ConfigurationFinderTrainer(algType, dataSeries, metric, reputation,
+                                tTiming, expList));
+                    }
+                }
+            }
+        }
         setThreadList(trainerList);
         pManager.addTiming(TimingsManager.TRAIN_INIT_TIME, Double.valueOf(System.currentTimeMillis() - initStartTime));
         pManager.addTiming(TimingsManager.ANOMALY_CHECKERS, Double.valueOf(trainerList.size()));
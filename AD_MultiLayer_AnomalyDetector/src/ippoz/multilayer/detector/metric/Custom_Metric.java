@@ -3,11 +3,7 @@
  */
 package ippoz.multilayer.detector.metric;
 
-import ippoz.multilayer.detector.commons.data.Snapshot;
-
-import java.util.Date;
-import java.util.HashMap;
-import java.util.LinkedList;
+import ippoz.multilayer.detector.commons.data.InjectionLabels;
 
 // TODO: Auto-generated Javadoc
 /**
@@ -19,12 +15,12 @@ import java.util.LinkedList;
 public class Custom_Metric extends BetterMaxMetric {
 
 	/* (non-Javadoc)
-	 * @see ippoz.multilayer.detector.metric.Metric#evaluateAnomalyResults(ippoz.multilayer.detector.data.ExperimentData, java.util.HashMap)
+	 * @see ippoz.multilayer.detector.metric.Metric#evaluateAnomalyResults(ippoz.multilayer.detector.commons.data.InjectionLabels, double[])
 	 */
 	@Override
-	public double evaluateAnomalyResults(LinkedList<Snapshot> snapList, HashMap<Date, Double> anomalyEvaluations) {
-		double p = new Precision_Metric().evaluateAnomalyResults(snapList, anomalyEvaluations);
-		double r = new Recall_Metric().evaluateAnomalyResults(snapList, anomalyEvaluations);
+	public double evaluateAnomalyResults(InjectionLabels labels, double[] evaluations) {
+		double p = new Precision_Metric().evaluateAnomalyResults(labels, evaluations);
+		double r = new Recall_Metric().evaluateAnomalyResults(labels, evaluations);
 		if(p + r > 0)
 			return 1.25*p*r/(0.25*p+r);
 		else return 0.0;
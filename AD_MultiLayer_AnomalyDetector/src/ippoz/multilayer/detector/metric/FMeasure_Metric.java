@@ -3,11 +3,7 @@
  */
 package ippoz.multilayer.detector.metric;
 
-import ippoz.multilayer.detector.commons.data.Snapshot;
-
-import java.util.Date;
-import java.util.HashMap;
-import java.util.LinkedList;
+import ippoz.multilayer.detector.commons.data.InjectionLabels;
 
 /**
  * The Class FMeasure_Metric.
@@ -18,12 +14,12 @@ import java.util.LinkedList;
 public class FMeasure_Metric extends BetterMaxMetric {
 
 	/* (non-Javadoc)
-	 * @see ippoz.multilayer.detector.metric.Metric#evaluateAnomalyResults(ippoz.multilayer.detector.data.ExperimentData, java.util.HashMap)
+	 * @see ippoz.multilayer.detector.metric.Metric#evaluateAnomalyResults(ippoz.multilayer.detector.commons.data.InjectionLabels, double[])
 	 */
 	@Override
-	public double evaluateAnomalyResults(LinkedList<Snapshot> snapList, HashMap<Date, Double> anomalyEvaluations) {
-		double p = new Precision_Metric().evaluateAnomalyResults(snapList, anomalyEvaluations);
-		double r = new Recall_Metric().evaluateAnomalyResults(snapList, anomalyEvaluations);
+	public double evaluateAnomalyResults(InjectionLabels labels, double[] evaluations) {
+		double p = new Precision_Metric().evaluateAnomalyResults(labels, evaluations);
+		double r = new Recall_Metric().evaluateAnomalyResults(labels, evaluations);
 		if(p + r > 0)
 			return 2.0*p*r/(p+r);
 		else return 0.0;
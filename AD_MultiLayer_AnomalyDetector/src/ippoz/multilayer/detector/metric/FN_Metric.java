@@ -3,11 +3,7 @@
  */
 package ippoz.multilayer.detector.metric;
 
-import ippoz.multilayer.detector.commons.data.Snapshot;
-
-import java.util.Date;
-import java.util.HashMap;
-import java.util.LinkedList;
+import ippoz.multilayer.detector.commons.data.InjectionLabels;
 
 /**
  * The Class FN_Metric.
@@ -30,31 +26,13 @@ public class FN_Metric extends BetterMinMetric {
 	}
 	
 	/* (non-Javadoc)
-	 * @see ippoz.multilayer.detector.metric.Metric#evaluateAnomalyResults(ippoz.multilayer.detector.data.ExperimentData, java.util.HashMap)
+	 * @see ippoz.multilayer.detector.metric.Metric#evaluateAnomalyResults(ippoz.multilayer.detector.commons.data.InjectionLabels, double[])
 	 */
 	@Override
-	public double evaluateAnomalyResults(LinkedList<Snapshot> snapList, HashMap<Date, Double> anomalyEvaluations) {
-		int detectionHits = 0;
-		int undetectable = 0;
-		Snapshot snap;
-		for(int i=0;i<snapList.size();i++){
-			snap = snapList.get(i);
-			if(snap.getInjectedElement() != null && snap.getInjectedElement().happensAt(snap.getTimestamp())){	
-				if(!Metric.anomalyTrueFalse(anomalyEvaluations.get(snap.getTimestamp())))
-					detectionHits++;
-				i++;
-				while(i<snapList.size()){
-					if(snap.getInjectedElement().compliesWith(snapList.get(i).getTimestamp())){
-						i++;
-						undetectable++;
-					}
-					else break;
-				}
-				i--;
-			}
-		}
+	public double evaluateAnomalyResults(InjectionLabels labels, double[] evaluations) {
+		int detectionHits = labels.countInjections(evaluations, false);
 		if(!absolute)
-			return 1.0*detectionHits/(snapList.size()-undetectable);
+			return 1.0*detectionHits/(labels.size()-labels.getUndetectable());
 		else return detectionHits;
 	}
 
@@ -3,11 +3,7 @@
  */
 package ippoz.multilayer.detector.metric;
 
-import ippoz.multilayer.detector.commons.data.Snapshot;
-
-import java.util.Date;
-import java.util.HashMap;
-import java.util.LinkedList;
+import ippoz.multilayer.detector.commons.data.InjectionLabels;
 
 // TODO: Auto-generated Javadoc
 /**
@@ -19,12 +15,12 @@ import java.util.LinkedList;
 public class FalseNegativeRate_Metric extends BetterMinMetric {
 
 	/* (non-Javadoc)
-	 * @see ippoz.multilayer.detector.metric.Metric#evaluateAnomalyResults(ippoz.multilayer.detector.data.ExperimentData, java.util.HashMap)
+	 * @see ippoz.multilayer.detector.metric.Metric#evaluateAnomalyResults(ippoz.multilayer.detector.commons.data.InjectionLabels, double[])
 	 */
 	@Override
-	public double evaluateAnomalyResults(LinkedList<Snapshot> snapList, HashMap<Date, Double> anomalyEvaluations) {
-		double tp = new TN_Metric(true).evaluateAnomalyResults(snapList, anomalyEvaluations);
-		double fn = new FP_Metric(true).evaluateAnomalyResults(snapList, anomalyEvaluations);
+	public double evaluateAnomalyResults(InjectionLabels labels, double[] evaluations) {
+		double tp = new TN_Metric(true).evaluateAnomalyResults(labels, evaluations);
+		double fn = new FP_Metric(true).evaluateAnomalyResults(labels, evaluations);
 		if(tp + fn > 0)
 			return 1.0*fn/(tp+fn);
 		else return 0.0;
@@ -4,12 +4,12 @@
 package ippoz.multilayer.detector.metric;
 
 import ippoz.multilayer.detector.algorithm.DetectionAlgorithm;
+import ippoz.multilayer.detector.commons.data.InjectionLabels;
 import ippoz.multilayer.detector.commons.data.Snapshot;
 import ippoz.multilayer.detector.commons.support.AppUtility;
 
-import java.util.Date;
 import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.List;
 import java.util.TreeMap;
 
 /**
@@ -27,10 +27,10 @@ public abstract class Metric {
 	 * @param expData the experiment data
 	 * @return the anomaly evaluation [metric score, avg algorithm score, std algorithm score]
 	 */
-	public double[] evaluateMetric(DetectionAlgorithm alg, LinkedList<Snapshot> snapList){
+	public double[] evaluateMetric(DetectionAlgorithm alg, List<Snapshot> snapList){
 		Snapshot currentSnapshot;
 		double average;
-		HashMap<Date, Double> anomalyEvaluations = new HashMap<Date, Double>();
+		HashMap<Long, Double> anomalyEvaluations = new HashMap<Long, Double>();
 		for(int i=0;i<snapList.size();i++){
 			currentSnapshot = snapList.get(i);
 			anomalyEvaluations.put(currentSnapshot.getTimestamp(), alg.snapshotAnomalyRate(currentSnapshot));
@@ -55,7 +55,19 @@ public abstract class Metric {
 	 * @param anomalyEvaluations the anomaly evaluations
 	 * @return the global anomaly evaluation
 	 */
-	public abstract double evaluateAnomalyResults(LinkedList<Snapshot> snapList, HashMap<Date, Double> anomalyEvaluations);
+	public double evaluateAnomalyResults(List<Snapshot> snapList, HashMap<Long, Double> anomalyEvaluations){
+		InjectionLabels labels = InjectionLabels.of(snapList);
+		return evaluateAnomalyResults(labels, labels.getEvaluations(anomalyEvaluations));
+	}
+	
+	/**
+	 * Evaluates anomaly results against the injection labels of the snapshots of an experiment.
+	 *
+	 * @param labels the injection labels of the snapshots
+	 * @param evaluations the anomaly evaluation of each snapshot
+	 * @return the global anomaly evaluation
+	 */
+	public abstract double evaluateAnomalyResults(InjectionLabels labels, double[] evaluations);
 
 	/**
 	 * Returns the anomaly evaluation for the given input data.
@@ -65,9 +77,9 @@ public abstract class Metric {
 	 * @param anomalyTreshold the anomaly threshold
 	 * @return the global anomaly evaluation
 	 */
-	public double evaluateAnomalyResults(LinkedList<Snapshot> snapList, TreeMap<Date, Double> voting, double anomalyTreshold) {
-		HashMap<Date, Double> convertedMap = new HashMap<Date, Double>(); 
-		for(Date date : voting.keySet()){
+	public double evaluateAnomalyResults(List<Snapshot> snapList, TreeMap<Long, Double> voting, double anomalyTreshold) {
+		HashMap<Long, Double> convertedMap = new HashMap<Long, Double>(); 
+		for(Long date : voting.keySet()){
 			convertedMap.put(date, voting.get(date)/anomalyTreshold*1.0);
 		}
 		return evaluateAnomalyResults(snapList, convertedMap);
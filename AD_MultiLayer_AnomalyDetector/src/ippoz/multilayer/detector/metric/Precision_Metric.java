@@ -3,11 +3,7 @@
  */
 package ippoz.multilayer.detector.metric;
 
-import ippoz.multilayer.detector.commons.data.Snapshot;
-
-import java.util.Date;
-import java.util.HashMap;
-import java.util.LinkedList;
+import ippoz.multilayer.detector.commons.data.InjectionLabels;
 
 /**
  * The Class Precision_Metric.
@@ -18,12 +14,12 @@ import java.util.LinkedList;
 public class Precision_Metric extends BetterMaxMetric {
 
 	/* (non-Javadoc)
-	 * @see ippoz.multilayer.detector.metric.Metric#evaluateAnomalyResults(ippoz.multilayer.detector.data.ExperimentData, java.util.HashMap)
+	 * @see ippoz.multilayer.detector.metric.Metric#evaluateAnomalyResults(ippoz.multilayer.detector.commons.data.InjectionLabels, double[])
 	 */
 	@Override
-	public double evaluateAnomalyResults(LinkedList<Snapshot> snapList, HashMap<Date, Double> anomalyEvaluations) {
-		double tp = new TP_Metric(true).evaluateAnomalyResults(snapList, anomalyEvaluations);
-		double fp = new FP_Metric(true).evaluateAnomalyResults(snapList, anomalyEvaluations);
+	public double evaluateAnomalyResults(InjectionLabels labels, double[] evaluations) {
+		double tp = new TP_Metric(true).evaluateAnomalyResults(labels, evaluations);
+		double fp = new FP_Metric(true).evaluateAnomalyResults(labels, evaluations);
 		if(tp + fp > 0)
 			return 1.0*tp/(tp+fp);
 		else return 0.0;
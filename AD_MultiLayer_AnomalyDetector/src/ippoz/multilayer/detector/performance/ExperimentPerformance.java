@@ -6,6 +6,8 @@ import ippoz.multilayer.detector.commons.support.AppUtility;
 
 import java.util.HashMap;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
 
 /**
  * The Class ExperimentPerformance.
@@ -53,7 +55,7 @@ public class ExperimentPerformance {
     /**
      * The monitor time series.
      */
-    private HashMap<String, HashMap<LayerType, LinkedList<Integer>>> monitorTimeSeries;
+    private Map<String, Map<LayerType, List<Integer>>> monitorTimeSeries;
 
     /**
      * The detection times.
@@ -126,7 +128,7 @@ public class ExperimentPerformance {
      */
     private String seriesSummary(String serieTag) {
         String sSummary = "";
-        HashMap<LayerType, LinkedList<Integer>> map = monitorTimeSeries.get(serieTag);
+        Map<LayerType, List<Integer>> map = monitorTimeSeries.get(serieTag);
         double[][] layerStats = new double[map.keySet().size()][2];
         int i = 0;
         for (LayerType layer : map.keySet()) {
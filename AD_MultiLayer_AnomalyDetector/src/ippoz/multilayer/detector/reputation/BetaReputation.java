@@ -6,9 +6,8 @@ package ippoz.multilayer.detector.reputation;
 import ippoz.multilayer.detector.commons.data.Snapshot;
 import ippoz.multilayer.detector.metric.TP_Metric;
 
-import java.util.Date;
 import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.List;
 
 /**
  * The Class BetaReputation.
@@ -31,7 +30,7 @@ public class BetaReputation extends Reputation {
 	 * @see ippoz.multilayer.detector.reputation.Reputation#evaluateExperimentReputation(ippoz.multilayer.detector.data.ExperimentData, java.util.HashMap)
 	 */
 	@Override
-	public double evaluateExperimentReputation(LinkedList<Snapshot> snapList, HashMap<Date, Double> anomalyEvaluations) {
+	public double evaluateExperimentReputation(List<Snapshot> snapList, HashMap<Long, Double> anomalyEvaluations) {
 		double tp = new TP_Metric(true).evaluateAnomalyResults(snapList, anomalyEvaluations);
 		double nInj = countInjections(snapList);
 		double alpha = tp + 1;
@@ -39,7 +38,7 @@ public class BetaReputation extends Reputation {
 		return alpha*1.0/(alpha + beta);
 	}
 	
-	private int countInjections(LinkedList<Snapshot> snapList){
+	private int countInjections(List<Snapshot> snapList){
 		int count = 0;
 		for(Snapshot snap : snapList){
 			if(snap.getInjectedElement() != null)
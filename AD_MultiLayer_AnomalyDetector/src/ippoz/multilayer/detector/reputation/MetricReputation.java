@@ -6,9 +6,8 @@ package ippoz.multilayer.detector.reputation;
 import ippoz.multilayer.detector.commons.data.Snapshot;
 import ippoz.multilayer.detector.metric.Metric;
 
-import java.util.Date;
 import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.List;
 
 /**
  * The Class MetricReputation.
@@ -36,7 +35,7 @@ public class MetricReputation extends Reputation {
 	 * @see ippoz.multilayer.detector.reputation.Reputation#evaluateExperimentReputation(ippoz.multilayer.detector.data.ExperimentData, java.util.HashMap)
 	 */
 	@Override
-	protected double evaluateExperimentReputation(LinkedList<Snapshot> snapList, HashMap<Date, Double> anomalyEvaluations) {
+	protected double evaluateExperimentReputation(List<Snapshot> snapList, HashMap<Long, Double> anomalyEvaluations) {
 		return metric.evaluateAnomalyResults(snapList, anomalyEvaluations);
 	}
 
@@ -6,9 +6,8 @@ package ippoz.multilayer.detector.reputation;
 import ippoz.multilayer.detector.algorithm.DetectionAlgorithm;
 import ippoz.multilayer.detector.commons.data.Snapshot;
 
-import java.util.Date;
 import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.List;
 
 /**
  * The Class Reputation.
@@ -46,9 +45,9 @@ public abstract class Reputation {
 	 * @param expData the experiment data
 	 * @return the computed reputation
 	 */
-	public double evaluateReputation(DetectionAlgorithm alg, LinkedList<Snapshot> snapList){
+	public double evaluateReputation(DetectionAlgorithm alg, List<Snapshot> snapList){
 		Snapshot currentSnapshot;
-		HashMap<Date, Double> anomalyEvaluations = new HashMap<Date, Double>();
+		HashMap<Long, Double> anomalyEvaluations = new HashMap<Long, Double>();
 		for(int i=0;i<snapList.size();i++){
 			currentSnapshot = snapList.get(i);
 			anomalyEvaluations.put(currentSnapshot.getTimestamp(), alg.snapshotAnomalyRate(currentSnapshot));
@@ -63,6 +62,6 @@ public abstract class Reputation {
 	 * @param anomalyEvaluations the anomaly evaluations of each snapshot
 	 * @return the final reputation
 	 */
-	protected abstract double evaluateExperimentReputation(LinkedList<Snapshot> snapList, HashMap<Date, Double> anomalyEvaluations);
+	protected abstract double evaluateExperimentReputation(List<Snapshot> snapList, HashMap<Long, Double> anomalyEvaluations);
 	
 }
@@ -8,7 +8,6 @@ import ippoz.multilayer.detector.commons.data.Snapshot;
 import ippoz.multilayer.detector.commons.datacategory.DataCategory;
 import ippoz.multilayer.detector.commons.dataseries.DataSeries;
 import ippoz.multilayer.detector.commons.layer.LayerType;
-import ippoz.multilayer.detector.commons.support.AppLogger;
 import ippoz.multilayer.detector.commons.support.AppUtility;
 import ippoz.multilayer.detector.metric.Metric;
 import ippoz.multilayer.detector.performance.TrainingTiming;
@@ -16,6 +15,7 @@ import ippoz.multilayer.detector.reputation.Reputation;
 
 import java.util.HashMap;
 import java.util.LinkedList;
+import java.util.List;
 
 /**
  * The Class AlgorithmTrainer.
@@ -92,7 +92,7 @@ public abstract class AlgorithmTrainer extends Thread implements Comparable<Algo
         this.metric = metric;
         this.reputation = reputation;
         this.tTiming = tTiming;
-        expList = deepClone(trainData);
+        expList = trainData;
     }
 
     /**
@@ -100,32 +100,14 @@ public abstract class AlgorithmTrainer extends Thread implements Comparable<Algo
      *
      * @return the hash map of the snapshots
      */
-    private HashMap<String, LinkedList<Snapshot>> loadAlgExpSnapshots() {
-        HashMap<String, LinkedList<Snapshot>> expAlgMap = new HashMap<>();
+    private HashMap<String, List<Snapshot>> loadAlgExpSnapshots() {
+        HashMap<String, List<Snapshot>> expAlgMap = new HashMap<>();
         for (ExperimentData expData : expList) {
             expAlgMap.put(expData.getName(), expData.buildSnapshotsFor(algTag, dataSeries, bestConf));
         }
         return expAlgMap;
     }
 
-    /**
-     * Deep clone of the experiment list.
-     *
-     * @param trainData the train data
-     * @return the cloned experiment list
-     */
-    private LinkedList<ExperimentData> deepClone(LinkedList<ExperimentData> trainData) {
-        LinkedList<ExperimentData> list = new LinkedList<>();
-        try {
-            for (ExperimentData eData : trainData) {
-                list.add(eData.clone());
-            }
-        } catch (CloneNotSupportedException ex) {
-            AppLogger.logException(getClass(), ex, "Unable to clone Experiment");
-        }
-        return list;
-    }
-
     /**
      * Checks if is valid train.
      *
@@ -140,7 +122,7 @@ public abstract class AlgorithmTrainer extends Thread implements Comparable<Algo
      */
     @Override
     public void run() {
-        HashMap<String, LinkedList<Snapshot>> algExpSnapshots = loadAlgExpSnapshots();
+        HashMap<String, List<Snapshot>> algExpSnapshots = loadAlgExpSnapshots();
         bestConf = lookForBestConfiguration(algExpSnapshots, tTiming);
         metricScore = evaluateMetricScore(getExpList(), algExpSnapshots);
         reputationScore = evaluateReputationScore(getExpList(), algExpSnapshots);
@@ -156,7 +138,7 @@ public abstract class AlgorithmTrainer extends Thread implements Comparable<Algo
      * @return the algorithm configuration
      */
     protected abstract AlgorithmConfiguration lookForBestConfiguration(HashMap<String,
-            LinkedList<Snapshot>> algExpSnapshots, TrainingTiming tTiming);
+            List<Snapshot>> algExpSnapshots, TrainingTiming tTiming);
 
     /**
      * Evaluates metric score on a specified set of experiments.
@@ -166,7 +148,7 @@ public abstract class AlgorithmTrainer extends Thread implements Comparable<Algo
      * @return the metric score
      */
     private double evaluateMetricScore(LinkedList<ExperimentData> trainData, HashMap<String,
-            LinkedList<Snapshot>> algExpSnapshots) {
+            List<Snapshot>> algExpSnapshots) {
         double[] metricEvaluation;
         LinkedList<Double> metricResults = new LinkedList<>();
         LinkedList<Double> algResults = new LinkedList<>();
@@ -188,7 +170,7 @@ public abstract class AlgorithmTrainer extends Thread implements Comparable<Algo
      * @return the reputation score
      */
     private double evaluateReputationScore(LinkedList<ExperimentData> trainData, HashMap<String,
-            LinkedList<Snapshot>> algExpSnapshots) {
+            List<Snapshot>> algExpSnapshots) {
         LinkedList<Double> reputationResults = new LinkedList<>();
         DetectionAlgorithm algorithm = DetectionAlgorithm.buildAlgorithm(getAlgType(), dataSeries, bestConf);
         for (ExperimentData expData : trainData) {
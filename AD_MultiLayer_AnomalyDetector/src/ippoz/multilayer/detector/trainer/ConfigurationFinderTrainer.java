@@ -14,6 +14,7 @@ import ippoz.multilayer.detector.reputation.Reputation;
 
 import java.util.HashMap;
 import java.util.LinkedList;
+import java.util.List;
 
 /**
  * The Class ConfigurationFinderTrainer.
@@ -39,7 +40,7 @@ public class ConfigurationFinderTrainer extends AlgorithmTrainer {
     }
 
     @Override
-    protected AlgorithmConfiguration lookForBestConfiguration(HashMap<String, LinkedList<Snapshot>> algExpSnapshots,
+    protected AlgorithmConfiguration lookForBestConfiguration(HashMap<String, List<Snapshot>> algExpSnapshots,
                                                               TrainingTiming tTiming) {
         AlgorithmConfiguration bestConf;
         DetectionAlgorithm da = DetectionAlgorithm.buildAlgorithm(getAlgType(), getDataSeries(), null);
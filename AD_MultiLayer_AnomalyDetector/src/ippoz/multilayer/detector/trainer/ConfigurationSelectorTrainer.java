@@ -17,6 +17,7 @@ import ippoz.multilayer.detector.reputation.Reputation;
 
 import java.util.HashMap;
 import java.util.LinkedList;
+import java.util.List;
 
 /**
  * The Class ConfigurationSelectorTrainer.
@@ -63,7 +64,7 @@ public class ConfigurationSelectorTrainer extends AlgorithmTrainer {
 	}
 
 	@Override
-	protected AlgorithmConfiguration lookForBestConfiguration(HashMap<String, LinkedList<Snapshot>> algExpSnapshots, TrainingTiming tTiming) {
+	protected AlgorithmConfiguration lookForBestConfiguration(HashMap<String, List<Snapshot>> algExpSnapshots, TrainingTiming tTiming) {
 		Double bestMetricValue = Double.NaN;
 		Double currentMetricValue;
 		LinkedList<Double> metricResults;
@@ -15,6 +15,7 @@ import ippoz.multilayer.detector.reputation.Reputation;
 
 import java.util.HashMap;
 import java.util.LinkedList;
+import java.util.List;
 
 /**
  * The Class FixedConfigurationTrainer.
@@ -47,7 +48,7 @@ public class FixedConfigurationTrainer extends AlgorithmTrainer {
 	}
 
 	@Override
-	protected AlgorithmConfiguration lookForBestConfiguration(HashMap<String, LinkedList<Snapshot>> algExpSnapshots,  TrainingTiming tTiming) {
+	protected AlgorithmConfiguration lookForBestConfiguration(HashMap<String, List<Snapshot>> algExpSnapshots,  TrainingTiming tTiming) {
 		tTiming.addTrainingTime(getAlgType(), 0, 1);
 		return fixConf;
 	}
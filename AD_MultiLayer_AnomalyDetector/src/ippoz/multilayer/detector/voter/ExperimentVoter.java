@@ -18,9 +18,9 @@ import java.io.FileOutputStream;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
-import java.util.Date;
 import java.util.HashMap;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.TreeMap;
 
 /**
@@ -63,17 +63,22 @@ public class ExperimentVoter extends Thread {
     /**
      * The complete results of the voting.
      */
-    private TreeMap<Date, HashMap<AlgorithmVoter, Double>> partialVoting;
+    private TreeMap<Long, HashMap<AlgorithmVoter, Double>> partialVoting;
 
     /**
      * The contracted results of the voting.
      */
-    private TreeMap<Date, Double> voting;
+    private TreeMap<Long, Double> voting;
+
+    /**
+     * The snapshots of the experiment.
+     */
+    private List<Snapshot> expSnapshots;
 
     /**
      * The list of the snapshots for each voter
      */
-    private LinkedList<HashMap<AlgorithmVoter, Snapshot>> expSnapMap;
+    private HashMap<AlgorithmVoter, List<Snapshot>> expSnapMap;
 
     private EvaluationTiming eTiming;
 
@@ -89,19 +94,22 @@ public class ExperimentVoter extends Thread {
         this.expName = expData.getName();
         this.algList = deepClone(algList);
         this.eTiming = eTiming;
+        expSnapshots = expData.buildSnapshotsFor(AlgorithmType.RCC, null, null);
         expSnapMap = loadExpAlgSnapshots(expData);
     }
 
-    private LinkedList<HashMap<AlgorithmVoter, Snapshot>> loadExpAlgSnapshots(ExperimentData expData) {
-        HashMap<AlgorithmVoter, Snapshot> newMap;
-        LinkedList<HashMap<AlgorithmVoter, Snapshot>> expAlgMap = new LinkedList<>();
-        for (int i = 0; i < expData.getSnapshotNumber(); i++) {
-            newMap = new HashMap<>();
-            for (AlgorithmVoter aVoter : algList) {
-                newMap.put(aVoter, expData.buildSnapshotFor(aVoter.getAlgorithmType(), i, aVoter.getDataSeries(),
-                        aVoter.getAlgorithmConfiguration()));
-            }
-            expAlgMap.add(newMap);
+    /**
+     * Loads the snapshots of each voter.
+     * Snapshot lists are views on the experiment: snapshots are created only while voting.
+     *
+     * @param expData the experiment data
+     * @return the snapshots of each voter
+     */
+    private HashMap<AlgorithmVoter, List<Snapshot>> loadExpAlgSnapshots(ExperimentData expData) {
+        HashMap<AlgorithmVoter, List<Snapshot>> expAlgMap = new HashMap<>();
+        for (AlgorithmVoter aVoter : algList) {
+            expAlgMap.put(aVoter, expData.buildSnapshotsFor(aVoter.getAlgorithmType(), aVoter.getDataSeries(),
+                    aVoter.getAlgorithmConfiguration()));
         }
         return expAlgMap;
     }
@@ -132,15 +140,15 @@ public class ExperimentVoter extends Thread {
         double baseTime;
         Snapshot snapshot = null;
         HashMap<AlgorithmVoter, Double> snapVoting;
-        ExperimentTiming expTiming = new ExperimentTiming(expSnapMap.size());
+        ExperimentTiming expTiming = new ExperimentTiming(expSnapshots.size());
         partialVoting = new TreeMap<>();
         voting = new TreeMap<>();
         if (algList.size() > 0) {
-            for (HashMap<AlgorithmVoter, Snapshot> anExpSnapMap : expSnapMap) {
+            for (int i = 0; i < expSnapshots.size(); i++) {
                 snapVoting = new HashMap<>();
                 for (AlgorithmVoter aVoter : algList) {
                     baseTime = AppUtility.readMillis();
-                    snapshot = anExpSnapMap.get(aVoter);
+                    snapshot = expSnapMap.get(aVoter).get(i);
                     snapVoting.put(aVoter, aVoter.voteSnapshot(snapshot));
                     expTiming.addExpTiming(aVoter.getAlgorithmType(), AppUtility.readMillis() - baseTime);
                 }
@@ -221,12 +229,12 @@ public class ExperimentVoter extends Thread {
         HashMap<Metric, Double> metResults = new HashMap<>();
         try {
             for (Metric met : validationMetrics) {
-                metResults.put(met, met.evaluateAnomalyResults(getSimpleSnapshotList(), voting, anomalyTreshold));
+                metResults.put(met, met.evaluateAnomalyResults(expSnapshots, voting, anomalyTreshold));
             }
             if (printOutput) {
                 pw = new PrintWriter(new FileOutputStream(new File(outFolderName + "/voter/results.csv"),
                         true));
-                pw.append(expName + "," + expSnapMap.size() + ",");
+                pw.append(expName + "," + expSnapshots.size() + ",");
                 for (Metric met : validationMetrics) {
                     pw.append(String.valueOf(metResults.get(met)) + ",");
                 }
@@ -239,14 +247,6 @@ public class ExperimentVoter extends Thread {
         return metResults;
     }
 
-    private LinkedList<Snapshot> getSimpleSnapshotList() {
-        LinkedList<Snapshot> simpleList = new LinkedList<>();
-        for (HashMap<AlgorithmVoter, Snapshot> map : expSnapMap) {
-            simpleList.add(map.get(algList.getFirst()));
-        }
-        return simpleList;
-    }
-
     /**
      * Prints the graphics.
      *
@@ -258,23 +258,23 @@ public class ExperimentVoter extends Thread {
         HistogramChartDrawer hist;
         HashMap<String, TreeMap<Double, Double>> voterMap = new HashMap<>();
         voterMap.put(ANOMALY_SCORE_LABEL, AppUtility.convertMapSnapshots(voting));
-        voterMap.put(FAILURE_LABEL, convertFailures(expSnapMap));
+        voterMap.put(FAILURE_LABEL, convertFailures(expSnapshots));
         hist = new HistogramChartDrawer("Anomaly Score", "Seconds", "Score", voterMap,
                 anomalyThreshold, algConvergence);
         hist.saveToFile(outFolderName + "/voter/graphic/" + expName + ".png", IMG_WIDTH, IMG_HEIGHT);
     }
 
-    private TreeMap<Double, Double> convertFailures(LinkedList<HashMap<AlgorithmVoter, Snapshot>> expSnapMap) {
-        TreeMap<Date, Double> treeMap = new TreeMap<>();
-        for (HashMap<AlgorithmVoter, Snapshot> map : expSnapMap) {
-            if (map.get(algList.getFirst()).getInjectedElement() != null) {
-                treeMap.put(map.get(algList.getFirst()).getTimestamp(), 1.0);
-                for (int i = 1; i < map.get(algList.getFirst()).getInjectedElement().getDuration(); i++) {
-                    treeMap.put(new Date(map.get(algList.getFirst()).getTimestamp().getTime() + i * 1000), -1.0);
+    private TreeMap<Double, Double> convertFailures(List<Snapshot> expSnapshots) {
+        TreeMap<Long, Double> treeMap = new TreeMap<>();
+        for (Snapshot snapshot : expSnapshots) {
+            if (snapshot.getInjectedElement() != null) {
+                treeMap.put(snapshot.getTimestamp(), 1.0);
+                for (int i = 1; i < snapshot.getInjectedElement().getDuration(); i++) {
+                    treeMap.put(snapshot.getTimestamp() + i * 1000, -1.0);
                 }
             }
         }
-        return AppUtility.convertMapTimestamps(expSnapMap.getFirst().get(algList.getFirst()).getTimestamp(), treeMap);
+        return AppUtility.convertMapTimestamps(expSnapshots.get(0).getTimestamp(), treeMap);
     }
 
     /**
@@ -298,7 +298,7 @@ public class ExperimentVoter extends Thread {
                 }
             }
             writer.write("details\n");
-            for (Date timestamp : partialVoting.keySet()) {
+            for (Long timestamp : partialVoting.keySet()) {
                 countMap = buildMap();
                 partial = "";
                 count = 0;
@@ -310,8 +310,7 @@ public class ExperimentVoter extends Thread {
                         count++;
                     }
                 }
-                writer.write(AppUtility.getSecondsBetween(timestamp, expSnapMap.getFirst().get(algList.getFirst())
-                        .getTimestamp()) + ",");
+                writer.write(AppUtility.getSecondsBetween(timestamp, expSnapshots.get(0).getTimestamp()) + ",");
                 writer.write(count + ",");
                 for (LayerType currentLayer : countMap.keySet()) {
                     for (AlgorithmType algTag : countMap.get(currentLayer).keySet()) {
@@ -0,0 +1,82 @@
+/**
+ * 
+ */
+package ippoz.multilayer.detector.commons.data;
+
+import ippoz.multilayer.detector.commons.datacategory.DataCategory;
+import ippoz.multilayer.detector.commons.indicator.Indicator;
+
+/**
+ * The Interface ColumnStore.
+ * Implement this to store the observations of an experiment column by column, one column for each (indicator, category) pair.
+ * Observations read their values through the store, without keeping per-observation maps.
+ *
+ * @author Tommy
+ */
+public interface ColumnStore {
+	
+	/**
+	 * Returns the number of stored observations.
+	 *
+	 * @return the number of observations
+	 */
+	public int size();
+	
+	/**
+	 * Gets the stored indicators.
+	 *
+	 * @return the indicators
+	 */
+	public Indicator[] getIndicators();
+	
+	/**
+	 * Gets the position of an indicator in the store, by name.
+	 * Indicators of different layers may share a name: the first one stored is returned.
+	 *
+	 * @param indicatorName the indicator name
+	 * @return the indicator index, -1 if the indicator is not stored
+	 */
+	public int getIndicatorIndex(String indicatorName);
+	
+	/**
+	 * Gets the position of an indicator in the store, resolving it through its registry id.
+	 *
+	 * @param indicator the indicator
+	 * @return the indicator index, -1 if the indicator is not stored
+	 */
+	public int getIndicatorIndex(Indicator indicator);
+	
+	/**
+	 * Gets the timestamp of an observation.
+	 *
+	 * @param index the observation index
+	 * @return the timestamp, in epoch millis
+	 */
+	public long getTimestamp(int index);
+	
+	/**
+	 * Gets the value of an indicator for an observation.
+	 *
+	 * @param indicatorIndex the indicator index
+	 * @param categoryTag the data category (plain, diff)
+	 * @param index the observation index
+	 * @return the value, NaN if missing
+	 */
+	public double getValue(int indicatorIndex, DataCategory categoryTag, int index);
+	
+	/**
+	 * Copies a whole column of the store.
+	 *
+	 * @param indicatorIndex the indicator index
+	 * @param categoryTag the data category (plain, diff)
+	 * @return a new array with the values of all the observations, NaN if missing
+	 */
+	public double[] copyColumn(int indicatorIndex, DataCategory categoryTag);
+	
+	/**
+	 * Releases the resources held by the store.
+	 * Stores that keep their values out of the heap cannot be read after being closed.
+	 */
+	public void close();
+
+}
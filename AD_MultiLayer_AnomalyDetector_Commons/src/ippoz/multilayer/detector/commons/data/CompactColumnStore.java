@@ -0,0 +1,515 @@
+/**
+ *
+ */
+package ippoz.multilayer.detector.commons.data;
+
+import ippoz.multilayer.detector.commons.datacategory.DataCategory;
+import ippoz.multilayer.detector.commons.indicator.Indicator;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+
+/**
+ * The Class CompactColumnStore.
+ * Column store encoding each column with the smallest representation that fits its values.
+ * Columns of integral values (counters, page faults, memory sizes) are delta-encoded as zig-zag varints,
+ * with a checkpoint every {@value #CHECKPOINT_INTERVAL} values to keep random access cheap.
+ * Other columns are kept as float32 when no precision is lost, or when the store is built as lossy, and as double otherwise.
+ * Values are decoded transparently by {@link #getValue(int, DataCategory, int)}.
+ *
+ * @author Tommy
+ */
+public class CompactColumnStore implements ColumnStore {
+
+	/** The stored categories. */
+	private static final DataCategory[] CATEGORIES = {DataCategory.PLAIN, DataCategory.DIFFERENCE};
+
+	/** The number of values between two checkpoints of a delta-encoded column. */
+	private static final int CHECKPOINT_INTERVAL = 32;
+
+	/** The largest integral value encoded without loss as a delta (2^53). */
+	private static final double MAX_INTEGRAL = 9007199254740992.0;
+
+	/** The stored indicators. */
+	private Indicator[] indicators;
+
+	/** The position of each indicator, by name: the first one if indicators of different layers share the name. */
+	private HashMap<String, Integer> indicatorIndexes;
+
+	/** The position of each indicator, by registry id (-1 if not stored). */
+	private int[] idIndexes;
+
+	/** The observation timestamps, delta-encoded. */
+	private DeltaColumn timestamps;
+
+	/** The columns, as [category ordinal][indicator], null for categories that are not stored. */
+	private Column[][] columns;
+
+	/** The number of observations. */
+	private int size;
+
+	/**
+	 * Instantiates a new compact column store, encoding the content of another store.
+	 *
+	 * @param source the column store to encode
+	 * @param lossy true if non-integral values can be rounded to float32
+	 */
+	public CompactColumnStore(ColumnStore source, boolean lossy) {
+		long[] sourceTimestamps;
+		double[] values;
+		size = source.size();
+		indicators = source.getIndicators();
+		indicatorIndexes = new HashMap<String, Integer>();
+		for(int i=0;i<indicators.length;i++){
+			indicatorIndexes.putIfAbsent(indicators[i].getName(), i);
+		}
+		idIndexes = buildIdIndexes(indicators);
+		sourceTimestamps = new long[size];
+		for(int i=0;i<size;i++){
+			sourceTimestamps[i] = source.getTimestamp(i);
+		}
+		timestamps = new DeltaColumn(sourceTimestamps, new BitSet());
+		columns = new Column[DataCategory.values().length][];
+		values = new double[size];
+		for(DataCategory cat : CATEGORIES){
+			columns[cat.ordinal()] = new Column[indicators.length];
+			for(int ind=0;ind<indicators.length;ind++){
+				for(int i=0;i<size;i++){
+					values[i] = source.getValue(ind, cat, i);
+				}
+				columns[cat.ordinal()][ind] = encode(values, lossy);
+			}
+		}
+	}
+
+	/**
+	 * Encodes a column with the smallest representation that fits its values.
+	 *
+	 * @param values the values of the column, NaN if missing
+	 * @param lossy true if non-integral values can be rounded to float32
+	 * @return the encoded column
+	 */
+	private static Column encode(double[] values, boolean lossy) {
+		boolean integral = true;
+		boolean exactFloat = true;
+		for(double value : values){
+			if(!Double.isNaN(value)){
+				if(integral && !isIntegral(value))
+					integral = false;
+				if(exactFloat && (double)(float)value != value)
+					exactFloat = false;
+			}
+		}
+		if(integral){
+			long[] longValues = new long[values.length];
+			BitSet missing = new BitSet(values.length);
+			for(int i=0;i<values.length;i++){
+				if(Double.isNaN(values[i])){
+					missing.set(i);
+					longValues[i] = i > 0 ? longValues[i-1] : 0;
+				} else longValues[i] = (long)values[i];
+			}
+			return new DeltaColumn(longValues, missing);
+		} else if(exactFloat || lossy)
+			return new FloatColumn(values);
+		else return new DoubleColumn(values);
+	}
+
+	/**
+	 * Checks if a value can be delta-encoded without loss.
+	 * Negative zero is excluded, since it would be decoded as zero.
+	 *
+	 * @param value the value
+	 * @return true, if the value is an integral number within 2^53
+	 */
+	private static boolean isIntegral(double value) {
+		return Math.abs(value) <= MAX_INTEGRAL && value == Math.rint(value) && !(value == 0 && Double.doubleToRawLongBits(value) != 0);
+	}
+
+	/* (non-Javadoc)
+	 * @see ippoz.multilayer.detector.commons.data.ColumnStore#size()
+	 */
+	@Override
+	public int size() {
+		return size;
+	}
+
+	/* (non-Javadoc)
+	 * @see ippoz.multilayer.detector.commons.data.ColumnStore#getIndicators()
+	 */
+	@Override
+	public Indicator[] getIndicators() {
+		return indicators.clone();
+	}
+
+	/* (non-Javadoc)
+	 * @see ippoz.multilayer.detector.commons.data.ColumnStore#getIndicatorIndex(java.lang.String)
+	 */
+	@Override
+	public int getIndicatorIndex(String indicatorName) {
+		Integer index = indicatorIndexes.get(indicatorName);
+		return index != null ? index : -1;
+	}
+
+	/* (non-Javadoc)
+	 * @see ippoz.multilayer.detector.commons.data.ColumnStore#getIndicatorIndex(ippoz.multilayer.detector.commons.indicator.Indicator)
+	 */
+	@Override
+	public int getIndicatorIndex(Indicator indicator) {
+		int id = indicator.getId();
+		if(id < idIndexes.length && idIndexes[id] >= 0)
+			return idIndexes[id];
+		else return -1;
+	}
+
+	/* (non-Javadoc)
+	 * @see ippoz.multilayer.detector.commons.data.ColumnStore#getTimestamp(int)
+	 */
+	@Override
+	public long getTimestamp(int index) {
+		return timestamps.getLong(index);
+	}
+
+	/* (non-Javadoc)
+	 * @see ippoz.multilayer.detector.commons.data.ColumnStore#getValue(int, ippoz.multilayer.detector.commons.datacategory.DataCategory, int)
+	 */
+	@Override
+	public double getValue(int indicatorIndex, DataCategory categoryTag, int index) {
+		Column[] catColumns = columns[categoryTag.ordinal()];
+		return catColumns != null ? catColumns[indicatorIndex].get(index) : Double.NaN;
+	}
+
+	/* (non-Javadoc)
+	 * @see ippoz.multilayer.detector.commons.data.ColumnStore#copyColumn(int, ippoz.multilayer.detector.commons.datacategory.DataCategory)
+	 */
+	@Override
+	public double[] copyColumn(int indicatorIndex, DataCategory categoryTag) {
+		double[] column = new double[size];
+		Column[] catColumns = columns[categoryTag.ordinal()];
+		if(catColumns != null)
+			catColumns[indicatorIndex].decode(column);
+		else Arrays.fill(column, Double.NaN);
+		return column;
+	}
+
+	/* (non-Javadoc)
+	 * @see ippoz.multilayer.detector.commons.data.ColumnStore#close()
+	 */
+	@Override
+	public void close() {
+		// values are released by the garbage collector
+	}
+
+	/**
+	 * Gets an estimate of the memory held by the encoded columns.
+	 *
+	 * @return the bytes
+	 */
+	public long getMemorySize() {
+		long bytes = timestamps.getMemorySize();
+		for(Column[] catColumns : columns){
+			if(catColumns != null){
+				for(Column column : catColumns){
+					bytes = bytes + column.getMemorySize();
+				}
+			}
+		}
+		return bytes;
+	}
+
+	/**
+	 * Builds the positions of the stored indicators, indexed by registry id.
+	 *
+	 * @param indicators the stored indicators
+	 * @return the positions, -1 for the ids that are not stored
+	 */
+	private static int[] buildIdIndexes(Indicator[] indicators) {
+		int maxId = -1;
+		for(Indicator ind : indicators){
+			maxId = Math.max(maxId, ind.getId());
+		}
+		int[] idIndexes = new int[maxId + 1];
+		Arrays.fill(idIndexes, -1);
+		for(int i=0;i<indicators.length;i++){
+			idIndexes[indicators[i].getId()] = i;
+		}
+		return idIndexes;
+	}
+
+	/**
+	 * The Interface Column.
+	 * An encoded column.
+	 */
+	private interface Column {
+
+		/**
+		 * Decodes a value.
+		 *
+		 * @param index the observation index
+		 * @return the value, NaN if missing
+		 */
+		public double get(int index);
+
+		/**
+		 * Decodes all the values.
+		 *
+		 * @param dest the array to fill, NaN for missing values
+		 */
+		public void decode(double[] dest);
+
+		/**
+		 * Gets an estimate of the memory held by the column.
+		 *
+		 * @return the bytes
+		 */
+		public long getMemorySize();
+
+	}
+
+	/**
+	 * The Class DoubleColumn.
+	 * Column kept as it is.
+	 */
+	private static class DoubleColumn implements Column {
+
+		/** The values. */
+		private double[] values;
+
+		/**
+		 * Instantiates a new double column.
+		 *
+		 * @param values the values
+		 */
+		public DoubleColumn(double[] values) {
+			this.values = values.clone();
+		}
+
+		/* (non-Javadoc)
+		 * @see ippoz.multilayer.detector.commons.data.CompactColumnStore.Column#get(int)
+		 */
+		@Override
+		public double get(int index) {
+			return values[index];
+		}
+
+		/* (non-Javadoc)
+		 * @see ippoz.multilayer.detector.commons.data.CompactColumnStore.Column#decode(double[])
+		 */
+		@Override
+		public void decode(double[] dest) {
+			System.arraycopy(values, 0, dest, 0, values.length);
+		}
+
+		/* (non-Javadoc)
+		 * @see ippoz.multilayer.detector.commons.data.CompactColumnStore.Column#getMemorySize()
+		 */
+		@Override
+		public long getMemorySize() {
+			return values.length*8L;
+		}
+
+	}
+
+	/**
+	 * The Class FloatColumn.
+	 * Column kept as float32.
+	 */
+	private static class FloatColumn implements Column {
+
+		/** The values. */
+		private float[] values;
+
+		/**
+		 * Instantiates a new float column.
+		 *
+		 * @param values the values
+		 */
+		public FloatColumn(double[] values) {
+			this.values = new float[values.length];
+			for(int i=0;i<values.length;i++){
+				this.values[i] = (float)values[i];
+			}
+		}
+
+		/* (non-Javadoc)
+		 * @see ippoz.multilayer.detector.commons.data.CompactColumnStore.Column#get(int)
+		 */
+		@Override
+		public double get(int index) {
+			return values[index];
+		}
+
+		/* (non-Javadoc)
+		 * @see ippoz.multilayer.detector.commons.data.CompactColumnStore.Column#decode(double[])
+		 */
+		@Override
+		public void decode(double[] dest) {
+			for(int i=0;i<values.length;i++){
+				dest[i] = values[i];
+			}
+		}
+
+		/* (non-Javadoc)
+		 * @see ippoz.multilayer.detector.commons.data.CompactColumnStore.Column#getMemorySize()
+		 */
+		@Override
+		public long getMemorySize() {
+			return values.length*4L;
+		}
+
+	}
+
+	/**
+	 * The Class DeltaColumn.
+	 * Column of integral values, kept as zig-zag varint deltas from the previous value.
+	 * The first value of each block of {@value CompactColumnStore#CHECKPOINT_INTERVAL} is kept as it is, with the offset of the deltas that follow.
+	 * Missing values repeat the previous one (zero delta) and are marked in a bitset.
+	 */
+	private static class DeltaColumn implements Column {
+
+		/** The first value of each block. */
+		private long[] checkpoints;
+
+		/** The offset of the deltas of each block. */
+		private int[] offsets;
+
+		/** The encoded deltas. */
+		private byte[] deltas;
+
+		/** The missing values. */
+		private BitSet missing;
+
+		/**
+		 * Instantiates a new delta column.
+		 *
+		 * @param values the values
+		 * @param missing the missing values
+		 */
+		public DeltaColumn(long[] values, BitSet missing) {
+			int blocks = (values.length + CHECKPOINT_INTERVAL - 1) / CHECKPOINT_INTERVAL;
+			int position = 0;
+			byte[] buffer = new byte[Math.max(16, values.length)];
+			checkpoints = new long[blocks];
+			offsets = new int[blocks];
+			for(int i=0;i<values.length;i++){
+				if(i % CHECKPOINT_INTERVAL == 0){
+					checkpoints[i / CHECKPOINT_INTERVAL] = values[i];
+					offsets[i / CHECKPOINT_INTERVAL] = position;
+				} else {
+					if(position + 10 > buffer.length)
+						buffer = Arrays.copyOf(buffer, buffer.length*2);
+					position = writeVarint(buffer, position, zigZag(values[i] - values[i-1]));
+				}
+			}
+			deltas = Arrays.copyOf(buffer, position);
+			this.missing = missing.isEmpty() ? null : missing;
+		}
+
+		/**
+		 * Decodes a value as a long.
+		 *
+		 * @param index the observation index
+		 * @return the value
+		 */
+		public long getLong(int index) {
+			int block = index / CHECKPOINT_INTERVAL;
+			int position = offsets[block];
+			long value = checkpoints[block];
+			long varint;
+			int shift;
+			for(int i=index % CHECKPOINT_INTERVAL;i>0;i--){
+				varint = 0;
+				shift = 0;
+				while((deltas[position] & 0x80) != 0){
+					varint = varint | ((long)(deltas[position++] & 0x7F) << shift);
+					shift = shift + 7;
+				}
+				varint = varint | ((long)deltas[position++] << shift);
+				value = value + ((varint >>> 1) ^ -(varint & 1));
+			}
+			return value;
+		}
+
+		/**
+		 * Reads a delta, moving the position after it.
+		 *
+		 * @param position the read position, updated
+		 * @return the delta
+		 */
+		private long readDelta(int[] position) {
+			long varint = 0;
+			int shift = 0;
+			int pos = position[0];
+			while((deltas[pos] & 0x80) != 0){
+				varint = varint | ((long)(deltas[pos++] & 0x7F) << shift);
+				shift = shift + 7;
+			}
+			varint = varint | ((long)deltas[pos++] << shift);
+			position[0] = pos;
+			return (varint >>> 1) ^ -(varint & 1);
+		}
+
+		/* (non-Javadoc)
+		 * @see ippoz.multilayer.detector.commons.data.CompactColumnStore.Column#decode(double[])
+		 */
+		@Override
+		public void decode(double[] dest) {
+			int[] position = new int[]{0};
+			long value = 0;
+			for(int i=0;i<dest.length;i++){
+				if(i % CHECKPOINT_INTERVAL == 0)
+					value = checkpoints[i / CHECKPOINT_INTERVAL];
+				else value = value + readDelta(position);
+				dest[i] = missing != null && missing.get(i) ? Double.NaN : value;
+			}
+		}
+
+		/* (non-Javadoc)
+		 * @see ippoz.multilayer.detector.commons.data.CompactColumnStore.Column#get(int)
+		 */
+		@Override
+		public double get(int index) {
+			if(missing != null && missing.get(index))
+				return Double.NaN;
+			return getLong(index);
+		}
+
+		/* (non-Javadoc)
+		 * @see ippoz.multilayer.detector.commons.data.CompactColumnStore.Column#getMemorySize()
+		 */
+		@Override
+		public long getMemorySize() {
+			return checkpoints.length*12L + deltas.length + (missing != null ? missing.size()/8 : 0);
+		}
+
+		/**
+		 * Maps a signed delta to an unsigned one, so that small negative deltas take few bytes.
+		 *
+		 * @param delta the delta
+		 * @return the zig-zag encoded delta
+		 */
+		private static long zigZag(long delta) {
+			return (delta << 1) ^ (delta >> 63);
+		}
+
+		/**
+		 * Writes a varint, 7 bits per byte.
+		 *
+		 * @param buffer the buffer
+		 * @param position the write position
+		 * @param varint the value to write
+		 * @return the position after the written value
+		 */
+		private static int writeVarint(byte[] buffer, int position, long varint) {
+			while((varint & ~0x7FL) != 0){
+				buffer[position++] = (byte)((varint & 0x7F) | 0x80);
+				varint = varint >>> 7;
+			}
+			buffer[position++] = (byte)varint;
+			return position;
+		}
+
+	}
+
+}
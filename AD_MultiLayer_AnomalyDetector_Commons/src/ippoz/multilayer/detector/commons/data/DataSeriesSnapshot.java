@@ -4,29 +4,46 @@
 package ippoz.multilayer.detector.commons.data;
 
 import ippoz.multilayer.detector.commons.dataseries.DataSeries;
-import ippoz.multilayer.detector.commons.failure.InjectedElement;
 import ippoz.multilayer.detector.commons.service.ServiceCall;
-import ippoz.multilayer.detector.commons.service.ServiceStat;
 import ippoz.multilayer.detector.commons.service.StatPair;
 
-import java.util.HashMap;
-import java.util.LinkedList;
-
 /**
- * @author Tommy
+ * The Class DataSeriesSnapshot.
+ * Lightweight view of a snapshot through a data series: it shares the calls, injection and stats of the base snapshot.
+ * The series value is either taken from a precomputed column or evaluated on the observation the first time it is read.
  *
+ * @author Tommy
  */
 public class DataSeriesSnapshot extends Snapshot {
 
 	private DataSeries dataSeries;
+	private Observation obs;
 	private Double snapValue;
 	
-	public DataSeriesSnapshot(Observation obs, LinkedList<ServiceCall> currentCalls, InjectedElement injEl, HashMap<String, ServiceStat> ssList, DataSeries dataSeries) {
-		super(obs.getTimestamp(), currentCalls, injEl, ssList);
+	/**
+	 * Instantiates a new data series snapshot, evaluating the series lazily.
+	 *
+	 * @param snapshot the base snapshot
+	 * @param obs the observation at the snapshot time
+	 * @param dataSeries the data series
+	 */
+	public DataSeriesSnapshot(Snapshot snapshot, Observation obs, DataSeries dataSeries) {
+		super(snapshot);
+		this.dataSeries = dataSeries;
+		this.obs = obs;
+	}
+	
+	/**
+	 * Instantiates a new data series snapshot, with a precomputed value.
+	 *
+	 * @param snapshot the base snapshot
+	 * @param dataSeries the data series
+	 * @param snapValue the value of the series at the snapshot time
+	 */
+	public DataSeriesSnapshot(Snapshot snapshot, DataSeries dataSeries, double snapValue) {
+		super(snapshot);
 		this.dataSeries = dataSeries;
-		if(dataSeries != null)
-			snapValue = dataSeries.getSeriesValue(obs);
-		else snapValue = Double.NaN;
+		this.snapValue = snapValue;
 	}
 
 	public DataSeries getDataSeries() {
@@ -34,6 +51,11 @@ public class DataSeriesSnapshot extends Snapshot {
 	}
 
 	public Double getSnapValue() {
+		if(snapValue == null){
+			if(dataSeries != null)
+				snapValue = dataSeries.getSeriesValue(obs);
+			else snapValue = Double.NaN;
+		}
 		return snapValue;
 	}
 
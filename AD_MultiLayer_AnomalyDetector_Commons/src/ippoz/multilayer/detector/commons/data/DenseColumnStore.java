@@ -0,0 +1,310 @@
+/**
+ * 
+ */
+package ippoz.multilayer.detector.commons.data;
+
+import ippoz.multilayer.detector.commons.datacategory.DataCategory;
+import ippoz.multilayer.detector.commons.indicator.Indicator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * The Class DenseColumnStore.
+ * Column store keeping the values of an experiment in a dense matrix, indexed by category, indicator and observation.
+ * Missing values are NaN. Stores are immutable once built: use a {@link DenseColumnStore.Builder} to fill them while loading.
+ *
+ * @author Tommy
+ */
+public class DenseColumnStore implements ColumnStore {
+	
+	/** The stored indicators. */
+	private Indicator[] indicators;
+	
+	/** The position of each indicator, by name: the first one if indicators of different layers share the name. */
+	private HashMap<String, Integer> indicatorIndexes;
+	
+	/** The position of each indicator, by registry id (-1 if not stored). */
+	private int[] idIndexes;
+	
+	/** The observation timestamps. */
+	private long[] timestamps;
+	
+	/** The values, as [category ordinal][indicator][observation]. */
+	private double[][][] values;
+	
+	/**
+	 * Instantiates a new dense column store.
+	 *
+	 * @param indicators the stored indicators
+	 * @param timestamps the observation timestamps
+	 * @param values the values, as [category ordinal][indicator][observation], null for categories that are not stored
+	 */
+	public DenseColumnStore(Indicator[] indicators, long[] timestamps, double[][][] values) {
+		this.indicators = indicators;
+		this.timestamps = timestamps;
+		this.values = values;
+		indicatorIndexes = new HashMap<String, Integer>();
+		for(int i=0;i<indicators.length;i++){
+			indicatorIndexes.putIfAbsent(indicators[i].getName(), i);
+		}
+		idIndexes = buildIdIndexes(indicators);
+	}
+
+	/* (non-Javadoc)
+	 * @see ippoz.multilayer.detector.commons.data.ColumnStore#size()
+	 */
+	@Override
+	public int size() {
+		return timestamps.length;
+	}
+
+	/* (non-Javadoc)
+	 * @see ippoz.multilayer.detector.commons.data.ColumnStore#getIndicators()
+	 */
+	@Override
+	public Indicator[] getIndicators() {
+		return indicators.clone();
+	}
+
+	/* (non-Javadoc)
+	 * @see ippoz.multilayer.detector.commons.data.ColumnStore#getIndicatorIndex(java.lang.String)
+	 */
+	@Override
+	public int getIndicatorIndex(String indicatorName) {
+		Integer index = indicatorIndexes.get(indicatorName);
+		return index != null ? index : -1;
+	}
+
+	/* (non-Javadoc)
+	 * @see ippoz.multilayer.detector.commons.data.ColumnStore#getIndicatorIndex(ippoz.multilayer.detector.commons.indicator.Indicator)
+	 */
+	@Override
+	public int getIndicatorIndex(Indicator indicator) {
+		int id = indicator.getId();
+		if(id < idIndexes.length && idIndexes[id] >= 0)
+			return idIndexes[id];
+		else return -1;
+	}
+
+	/* (non-Javadoc)
+	 * @see ippoz.multilayer.detector.commons.data.ColumnStore#getTimestamp(int)
+	 */
+	@Override
+	public long getTimestamp(int index) {
+		return timestamps[index];
+	}
+
+	/* (non-Javadoc)
+	 * @see ippoz.multilayer.detector.commons.data.ColumnStore#getValue(int, ippoz.multilayer.detector.commons.datacategory.DataCategory, int)
+	 */
+	@Override
+	public double getValue(int indicatorIndex, DataCategory categoryTag, int index) {
+		double[][] catValues = values[categoryTag.ordinal()];
+		return catValues != null ? catValues[indicatorIndex][index] : Double.NaN;
+	}
+	
+	/* (non-Javadoc)
+	 * @see ippoz.multilayer.detector.commons.data.ColumnStore#copyColumn(int, ippoz.multilayer.detector.commons.datacategory.DataCategory)
+	 */
+	@Override
+	public double[] copyColumn(int indicatorIndex, DataCategory categoryTag) {
+		double[] column = getColumn(indicatorIndex, categoryTag);
+		if(column != null)
+			return column.clone();
+		column = new double[timestamps.length];
+		Arrays.fill(column, Double.NaN);
+		return column;
+	}
+
+	/* (non-Javadoc)
+	 * @see ippoz.multilayer.detector.commons.data.ColumnStore#close()
+	 */
+	@Override
+	public void close() {
+		// values are released by the garbage collector
+	}
+	
+	/**
+	 * Gets a column of the store.
+	 * The returned array is shared with the store, and must not be modified.
+	 *
+	 * @param indicatorIndex the indicator index
+	 * @param categoryTag the data category (plain, diff)
+	 * @return the column, null if the category is not stored
+	 */
+	public double[] getColumn(int indicatorIndex, DataCategory categoryTag) {
+		double[][] catValues = values[categoryTag.ordinal()];
+		return catValues != null ? catValues[indicatorIndex] : null;
+	}
+	
+	/**
+	 * Builds the positions of the stored indicators, indexed by registry id.
+	 *
+	 * @param indicators the stored indicators
+	 * @return the positions, -1 for the ids that are not stored
+	 */
+	private static int[] buildIdIndexes(Indicator[] indicators) {
+		int maxId = -1;
+		for(Indicator ind : indicators){
+			maxId = Math.max(maxId, ind.getId());
+		}
+		int[] idIndexes = new int[maxId + 1];
+		Arrays.fill(idIndexes, -1);
+		for(int i=0;i<indicators.length;i++){
+			idIndexes[indicators[i].getId()] = i;
+		}
+		return idIndexes;
+	}
+	
+	/**
+	 * The Class Builder.
+	 * Fills a dense column store one observation at a time, growing the columns as needed.
+	 */
+	public static class Builder {
+		
+		/** The categories stored by the builder. */
+		private static final DataCategory[] CATEGORIES = {DataCategory.PLAIN, DataCategory.DIFFERENCE};
+		
+		/** The initial capacity of the columns. */
+		private static final int INITIAL_CAPACITY = 64;
+		
+		/** The indicators added so far. */
+		private ArrayList<Indicator> indicators;
+		
+		/** The position of each indicator, by registry indicator. */
+		private HashMap<Indicator, Integer> indicatorIndexes;
+
+		/** The position of each indicator, by name: the first one if indicators of different layers share the name. */
+		private HashMap<String, Integer> nameIndexes;
+		
+		/** The columns of each indicator, as [category][observation]. */
+		private ArrayList<double[][]> columns;
+		
+		/** The observation timestamps. */
+		private long[] timestamps;
+		
+		/** The number of observations added so far. */
+		private int size;
+		
+		/**
+		 * Instantiates a new builder.
+		 */
+		public Builder(){
+			indicators = new ArrayList<Indicator>();
+			indicatorIndexes = new HashMap<Indicator, Integer>();
+			nameIndexes = new HashMap<String, Integer>();
+			columns = new ArrayList<double[][]>();
+			timestamps = new long[INITIAL_CAPACITY];
+			size = 0;
+		}
+		
+		/**
+		 * Adds an indicator, if not already added.
+		 *
+		 * @param indicator the indicator
+		 * @return the indicator index
+		 */
+		public int addIndicator(Indicator indicator){
+			Integer index = indicatorIndexes.get(indicator);
+			if(index == null){
+				double[][] column = new double[DataCategory.values().length][];
+				for(DataCategory cat : CATEGORIES){
+					column[cat.ordinal()] = new double[timestamps.length];
+					Arrays.fill(column[cat.ordinal()], Double.NaN);
+				}
+				index = indicators.size();
+				indicators.add(indicator);
+				indicatorIndexes.put(indicator, index);
+				nameIndexes.putIfAbsent(indicator.getName(), index);
+				columns.add(column);
+			}
+			return index;
+		}
+		
+		/**
+		 * Gets the position of an indicator.
+		 *
+		 * @param indicator the indicator
+		 * @return the indicator index, -1 if the indicator was not added
+		 */
+		public int getIndicatorIndex(Indicator indicator){
+			Integer index = indicatorIndexes.get(indicator);
+			return index != null ? index : -1;
+		}
+		
+		/**
+		 * Gets the position of an indicator, by name.
+		 *
+		 * @param indicatorName the indicator name
+		 * @return the index of the first indicator added with that name, -1 if none was added
+		 */
+		public int getIndicatorIndex(String indicatorName){
+			Integer index = nameIndexes.get(indicatorName);
+			return index != null ? index : -1;
+		}
+		
+		/**
+		 * Adds an observation, with all the values missing.
+		 *
+		 * @param timestamp the timestamp, in epoch millis
+		 * @return the observation index
+		 */
+		public int addObservation(long timestamp){
+			if(size == timestamps.length){
+				int capacity = timestamps.length*2;
+				timestamps = Arrays.copyOf(timestamps, capacity);
+				for(double[][] column : columns){
+					for(DataCategory cat : CATEGORIES){
+						column[cat.ordinal()] = Arrays.copyOf(column[cat.ordinal()], capacity);
+						Arrays.fill(column[cat.ordinal()], size, capacity, Double.NaN);
+					}
+				}
+			}
+			timestamps[size] = timestamp;
+			return size++;
+		}
+		
+		/**
+		 * Sets a value.
+		 *
+		 * @param indicatorIndex the indicator index
+		 * @param categoryTag the data category (plain, diff)
+		 * @param index the observation index
+		 * @param value the value
+		 */
+		public void setValue(int indicatorIndex, DataCategory categoryTag, int index, double value){
+			double[] column = columns.get(indicatorIndex)[categoryTag.ordinal()];
+			if(column != null)
+				column[index] = value;
+		}
+		
+		/**
+		 * Gets the number of observations added so far.
+		 *
+		 * @return the number of observations
+		 */
+		public int size(){
+			return size;
+		}
+		
+		/**
+		 * Builds the store, trimming the columns to the number of observations.
+		 *
+		 * @return the dense column store
+		 */
+		public DenseColumnStore build(){
+			double[][][] values = new double[DataCategory.values().length][][];
+			for(DataCategory cat : CATEGORIES){
+				values[cat.ordinal()] = new double[indicators.size()][];
+				for(int i=0;i<indicators.size();i++){
+					values[cat.ordinal()][i] = Arrays.copyOf(columns.get(i)[cat.ordinal()], size);
+				}
+			}
+			return new DenseColumnStore(indicators.toArray(new Indicator[indicators.size()]), Arrays.copyOf(timestamps, size), values);
+		}
+		
+	}
+
+}
@@ -3,90 +3,110 @@ package ippoz.multilayer.detector.commons.data;
 import ippoz.multilayer.detector.commons.algorithm.AlgorithmType;
 import ippoz.multilayer.detector.commons.configuration.AlgorithmConfiguration;
 import ippoz.multilayer.detector.commons.dataseries.DataSeries;
+import ippoz.multilayer.detector.commons.dataseries.SeriesEvaluator;
 import ippoz.multilayer.detector.commons.failure.InjectedElement;
 import ippoz.multilayer.detector.commons.indicator.Indicator;
 import ippoz.multilayer.detector.commons.invariants.DataSeriesMember;
 import ippoz.multilayer.detector.commons.invariants.Invariant;
 import ippoz.multilayer.detector.commons.layer.LayerType;
 import ippoz.multilayer.detector.commons.service.ServiceCall;
+import ippoz.multilayer.detector.commons.service.ServiceCallIndex;
 import ippoz.multilayer.detector.commons.service.ServiceStat;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
-import java.util.Date;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
 
 /**
  * The Class ExperimentData.
  * Stores information about the data of each experiment (service calls, snapshots, timings, injections, stats)
+ * Experiment data is immutable once built, and can be shared among threads without copies.
  *
  * @author Tommy
  */
-public class ExperimentData implements Cloneable {
+public class ExperimentData {
 	
 	/** The experiment name. */
-	private String expName;
+	private final String expName;
 	
 	/** The service call list. */
-	private LinkedList<ServiceCall> callList;
+	private final List<ServiceCall> callList;
 	
 	/** The injections list. */
-	private LinkedList<InjectedElement> injList;
+	private final List<InjectedElement> injList;
 	
 	/** The service statistics list. */
-	private HashMap<String, ServiceStat> ssList;
+	private final Map<String, ServiceStat> ssList;
 	
 	/** The timings. */
-	private HashMap<String, HashMap<LayerType, LinkedList<Integer>>> timings;
+	private final Map<String, Map<LayerType, List<Integer>>> timings;
 	
-	/** The observation list. */
-	private LinkedList<Observation> obsList;
+	/** The column store holding the observed values. */
+	private final ColumnStore obsStore;
+	
+	/** The observation list, views on the rows of the column store. */
+	private final List<Observation> obsList;
 	
 	/** The snapshot list. */
-	private ArrayList<Snapshot> snapList;
+	private final List<Snapshot> snapList;
+	
+	/** The snapshot list returned to algorithms that do not use data series, carrying the injection labels. */
+	private final List<Snapshot> plainList;
+	
+	/** The injection labels of the snapshots. */
+	private final InjectionLabels injLabels;
+	
+	/** The values of the data series computed on the observations. */
+	private final SeriesColumnCache seriesCache;
 	
 	/**
 	 * Instantiates a new experiment data.
+	 * Lists and maps are copied in read-only collections, so that later changes to the arguments do not affect the experiment.
 	 *
 	 * @param expID the experiment id
-	 * @param obsList the observation list
+	 * @param obsStore the column store of the observations
 	 * @param callList the service call list
 	 * @param injList the injections list
 	 * @param ssList the service stats list
 	 * @param timings the timings
 	 */
-	public ExperimentData(String expID, LinkedList<Observation> obsList, LinkedList<ServiceCall> callList, LinkedList<InjectedElement> injList, HashMap<String, ServiceStat> ssList, HashMap<String, HashMap<LayerType, LinkedList<Integer>>> timings){
-		this(expID, obsList, new ArrayList<Snapshot>(), callList, injList, ssList, timings);
-		snapList = buildSnapshots(obsList);
+	public ExperimentData(String expID, ColumnStore obsStore, List<ServiceCall> callList, List<InjectedElement> injList, Map<String, ServiceStat> ssList, Map<String, HashMap<LayerType, LinkedList<Integer>>> timings){
+		expName = "exp" + expID;
+		this.obsStore = obsStore;
+		this.obsList = Collections.unmodifiableList(buildObservations(obsStore));
+		this.callList = Collections.unmodifiableList(new ArrayList<ServiceCall>(callList));
+		this.injList = Collections.unmodifiableList(new ArrayList<InjectedElement>(injList));
+		this.ssList = Collections.unmodifiableMap(new HashMap<String, ServiceStat>(ssList));
+		this.timings = copyTimings(timings);
+		snapList = Collections.unmodifiableList(buildSnapshots());
+		injLabels = new InjectionLabels(snapList);
+		seriesCache = new SeriesColumnCache();
+		plainList = new PlainSnapshotList();
 	}
 	
 	/**
-	 * Instantiates a new experiment data.
+	 * Copies the timings in read-only collections.
 	 *
-	 * @param expID the experiment id
-	 * @param snapList the snapshot list
-	 * @param callList the service call list
-	 * @param injList the injections list
-	 * @param ssList the service stats list
 	 * @param timings the timings
+	 * @return the read-only timings
 	 */
-	public ExperimentData(String expID, LinkedList<Observation> obsList, ArrayList<Snapshot> snapList, LinkedList<ServiceCall> callList, LinkedList<InjectedElement> injList, HashMap<String, ServiceStat> ssList, HashMap<String, HashMap<LayerType, LinkedList<Integer>>> timings){
-		expName = "exp" + expID;
-		this.obsList = obsList;
-		this.snapList = snapList;
-		this.callList = callList;
-		this.injList = injList;
-		this.ssList = ssList;
-		this.timings = timings;
-	}
-	
-	/* (non-Javadoc)
-	 * @see java.lang.Object#clone()
-	 */
-	@Override
-	public ExperimentData clone() throws CloneNotSupportedException {
-		ExperimentData eData = new ExperimentData(expName, obsList, snapList, callList, injList, ssList, timings);
-		return eData;
+	private static Map<String, Map<LayerType, List<Integer>>> copyTimings(Map<String, HashMap<LayerType, LinkedList<Integer>>> timings){
+		HashMap<LayerType, List<Integer>> layerTimings;
+		HashMap<String, Map<LayerType, List<Integer>>> outMap = new HashMap<String, Map<LayerType, List<Integer>>>();
+		for(String serieTag : timings.keySet()){
+			layerTimings = new HashMap<LayerType, List<Integer>>();
+			for(LayerType layer : timings.get(serieTag).keySet()){
+				layerTimings.put(layer, Collections.unmodifiableList(new ArrayList<Integer>(timings.get(serieTag).get(layer))));
+			}
+			outMap.put(serieTag, Collections.unmodifiableMap(layerTimings));
+		}
+		return Collections.unmodifiableMap(outMap);
 	}
 
 	/**
@@ -98,27 +118,43 @@ public class ExperimentData implements Cloneable {
 		return expName;
 	}
 
+	/**
+	 * Builds the observation views over the rows of the column store.
+	 *
+	 * @param obsStore the column store
+	 * @return the observation views
+	 */
+	private static ArrayList<Observation> buildObservations(ColumnStore obsStore) {
+		ArrayList<Observation> builtObs = new ArrayList<Observation>(obsStore.size());
+		for(int i=0;i<obsStore.size();i++){
+			builtObs.add(new Observation(obsStore, i));
+		}
+		return builtObs;
+	}
+
 	/**
 	 * Builds the snapshots of the experiment depending on the observations.
 	 */
-	private ArrayList<Snapshot> buildSnapshots(LinkedList<Observation> obsList) {
+	private ArrayList<Snapshot> buildSnapshots() {
 		int injIndex = 0;
-		LinkedList<ServiceCall> currentCalls;
 		InjectedElement currentInj;
-		ArrayList<Snapshot> builtSnap = new ArrayList<Snapshot>();
-		for(Observation obs : obsList){
-			currentCalls = new LinkedList<ServiceCall>();
-			for(ServiceCall call : callList){
-				if(call.isAliveAt(obs.getTimestamp()))
-					currentCalls.add(call);
-			}
-			while(injList.size() > injIndex && injList.get(injIndex).getTimestamp().before(obs.getTimestamp())){
+		long obsTime;
+		long[] timestamps = new long[obsStore.size()];
+		InjectedElement[] injections = injList.toArray(new InjectedElement[injList.size()]);
+		ArrayList<Snapshot> builtSnap = new ArrayList<Snapshot>(obsStore.size());
+		for(int i=0;i<timestamps.length;i++){
+			timestamps[i] = obsStore.getTimestamp(i);
+		}
+		ServiceCall[][] aliveCalls = new ServiceCallIndex(callList).getAliveCalls(timestamps);
+		for(int i=0;i<timestamps.length;i++){
+			obsTime = timestamps[i];
+			while(injections.length > injIndex && injections[injIndex].getTimestamp() < obsTime){
 				injIndex++;
 			}
-			if(injList.size() > injIndex && injList.get(injIndex).getTimestamp().compareTo(obs.getTimestamp()) == 0)
-				currentInj = injList.get(injIndex);
+			if(injections.length > injIndex && injections[injIndex].getTimestamp() == obsTime)
+				currentInj = injections[injIndex];
 			else currentInj = null;		
-			builtSnap.add(new Snapshot(obs.getTimestamp(), currentCalls, currentInj, ssList));
+			builtSnap.add(new Snapshot(obsTime, aliveCalls[i], currentInj, ssList));
 		}
 		return builtSnap;
 	}
@@ -137,25 +173,80 @@ public class ExperimentData implements Cloneable {
 	 *
 	 * @return the service stats
 	 */
-	public HashMap<String, ServiceStat> getServiceStats(){
+	public Map<String, ServiceStat> getServiceStats(){
 		return ssList;
 	}
 
+	/**
+	 * Gets the observations of this experiment.
+	 *
+	 * @return the observations
+	 */
+	public List<Observation> getObservations() {
+		return obsList;
+	}
+	
+	/**
+	 * Gets the column store holding the observed values of this experiment.
+	 *
+	 * @return the column store
+	 */
+	public ColumnStore getColumnStore() {
+		return obsStore;
+	}
+	
+	/**
+	 * Releases the observed values of this experiment.
+	 * Called once all the consumers of the loaded data are done: values kept out of the heap cannot be read afterwards.
+	 */
+	public void close() {
+		SnapshotCache.evict(this);
+		seriesCache.clear();
+		obsStore.close();
+	}
+	
+	/**
+	 * Gets the cache of the data series values computed on the observations of this experiment.
+	 *
+	 * @return the series column cache
+	 */
+	public SeriesColumnCache getSeriesCache() {
+		return seriesCache;
+	}
+	
+	/**
+	 * Gets the service calls of this experiment.
+	 *
+	 * @return the service calls
+	 */
+	public List<ServiceCall> getServiceCalls() {
+		return callList;
+	}
+
 	/**
 	 * Gets the injections for this experiment.
 	 *
 	 * @return the injections
 	 */
-	public LinkedList<InjectedElement> getInjections() {
+	public List<InjectedElement> getInjections() {
 		return injList;
 	}
 	
+	/**
+	 * Gets the injection labels of the snapshots, computed once for the experiment.
+	 *
+	 * @return the injection labels
+	 */
+	public InjectionLabels getInjectionLabels() {
+		return injLabels;
+	}
+	
 	/**
 	 * Gets the first timestamp.
 	 *
 	 * @return the first timestamp
 	 */
-	public Date getFirstTimestamp(){
+	public long getFirstTimestamp(){
 		return snapList.get(0).getTimestamp();
 	}
 
@@ -164,14 +255,14 @@ public class ExperimentData implements Cloneable {
 	 *
 	 * @return the monitor performance indexes
 	 */
-	public HashMap<String, HashMap<LayerType, LinkedList<Integer>>> getMonitorPerformanceIndexes() {
+	public Map<String, Map<LayerType, List<Integer>>> getMonitorPerformanceIndexes() {
 		return timings;
 	}
 
 	public HashMap<LayerType, Integer> getLayerIndicators(){
 		HashMap<LayerType, Integer> layerInd = new HashMap<>();
-		if(snapList.size() > 0){
-			for(Indicator ind : obsList.get(0).getIndicators()){
+		if(obsStore.size() > 0){
+			for(Indicator ind : obsStore.getIndicators()){
 				layerInd.putIfAbsent(ind.getLayer(), 0);
 				layerInd.replace(ind.getLayer(), layerInd.get(ind.getLayer())+1);
 			}
@@ -185,62 +276,274 @@ public class ExperimentData implements Cloneable {
 	 * @return the indicators
 	 */
 	public Indicator[] getIndicators() {
-		return obsList.get(0).getIndicators();
+		return obsStore.getIndicators();
 	}
 	
-	private MultipleSnapshot getMultipleSnapshot(int index, String textItem) {
+	/**
+	 * Gets the data series read by the multiple snapshots of an algorithm.
+	 *
+	 * @param algType the algorithm type
+	 * @param conf the algorithm configuration
+	 * @return the data series
+	 */
+	private DataSeries[] getMultipleSeries(AlgorithmType algType, AlgorithmConfiguration conf) {
 		LinkedList<DataSeries> sList = new LinkedList<DataSeries>();
-		sList.add(DataSeries.fromString(textItem.split(";")[0], true));
-		sList.add(DataSeries.fromString(textItem.split(";")[1], true));
-		return new MultipleSnapshot(obsList.get(index), callList, snapList.get(index).getInjectedElement(), ssList, sList.toArray(new DataSeries[sList.size()]));
+		if(algType == AlgorithmType.INV){
+			Invariant inv = (Invariant)conf.getRawItem(AlgorithmConfiguration.INVARIANT);
+			if(inv.getFirstMember() instanceof DataSeriesMember)
+				sList.add(((DataSeriesMember)inv.getFirstMember()).getDataSeries());
+			if(inv.getSecondMember() instanceof DataSeriesMember)
+				sList.add(((DataSeriesMember)inv.getSecondMember()).getDataSeries());
+		} else {
+			String textItem = conf.getItem(AlgorithmConfiguration.PEARSON_DETAIL);
+			sList.add(DataSeries.fromString(textItem.split(";")[0], true));
+			sList.add(DataSeries.fromString(textItem.split(";")[1], true));
+		}
+		return sList.toArray(new DataSeries[sList.size()]);
 	}
 	
-	private MultipleSnapshot getMultipleSnapshot(int index, Invariant inv) {
-		LinkedList<DataSeries> sList = new LinkedList<DataSeries>();
-		if(inv.getFirstMember() instanceof DataSeriesMember)
-			sList.add(((DataSeriesMember)inv.getFirstMember()).getDataSeries());
-		if(inv.getSecondMember() instanceof DataSeriesMember)
-			sList.add(((DataSeriesMember)inv.getSecondMember()).getDataSeries());
-		return new MultipleSnapshot(obsList.get(index), callList, snapList.get(index).getInjectedElement(), ssList, sList.toArray(new DataSeries[sList.size()]));
+	private MultipleSnapshot getMultipleSnapshot(int index, DataSeries[] seriesList) {
+		return new MultipleSnapshot(snapList.get(index), obsList.get(index), seriesList);
 	}
 
 	public DataSeriesSnapshot getDataSeriesSnapshot(DataSeries dataSeries, int index) {
-		return new DataSeriesSnapshot(obsList.get(index), callList, snapList.get(index).getInjectedElement(), ssList, dataSeries); 
+		return new DataSeriesSnapshot(snapList.get(index), obsList.get(index), dataSeries); 
 	}
 
 	public Snapshot getSnapshot(int index) {
 		return snapList.get(index);
 	}
 	
-	public LinkedList<Snapshot> buildSnapshotsFor(AlgorithmType algType, DataSeries dataSeries, AlgorithmConfiguration conf){
-		LinkedList<Snapshot> outList = new LinkedList<Snapshot>();
-		for(int i=0;i<getSnapshotNumber();i++){
-			outList.add(buildSnapshotFor(algType, i, dataSeries, conf));
+	/**
+	 * Builds the snapshots used by an algorithm on this experiment.
+	 * Snapshots are not materialized: the returned list creates lightweight views when accessed, reading the values of the data series from columns computed once for the list.
+	 * Lists are shared through the {@link SnapshotCache}, so that algorithms using the same data series on this experiment do not rebuild them.
+	 *
+	 * @param algType the algorithm type
+	 * @param dataSeries the data series
+	 * @param conf the algorithm configuration
+	 * @return the snapshots, as a read-only list
+	 */
+	public List<Snapshot> buildSnapshotsFor(AlgorithmType algType, DataSeries dataSeries, AlgorithmConfiguration conf){
+		switch(algType){
+			case RCC:
+				return plainList;
+			case INV:
+			case PEA:
+				return getSnapshotList(null, getMultipleSeries(algType, conf));
+			default:
+				return getSnapshotList(dataSeries, null);
 		}
-		return outList;
+	}
+	
+	/**
+	 * Gets a snapshot list from the snapshot cache, building it if not cached.
+	 *
+	 * @param dataSeries the data series, for single-series snapshots
+	 * @param seriesList the data series, for multiple snapshots
+	 * @return the snapshot list
+	 */
+	private List<Snapshot> getSnapshotList(DataSeries dataSeries, DataSeries[] seriesList){
+		SnapshotList newList;
+		List<Snapshot> snapshots;
+		SnapshotCache.Key key = SnapshotCache.buildKey(this, dataSeries, seriesList);
+		if(key == null)
+			return buildSnapshotList(dataSeries, seriesList);
+		snapshots = SnapshotCache.get(key);
+		if(snapshots == null){
+			newList = buildSnapshotList(dataSeries, seriesList);
+			snapshots = SnapshotCache.put(key, newList, newList.getMemorySize());
+		}
+		return snapshots;
+	}
+	
+	/**
+	 * Builds a snapshot list, computing the columns of its data series.
+	 *
+	 * @param dataSeries the data series, for single-series snapshots
+	 * @param seriesList the data series, for multiple snapshots
+	 * @return the snapshot list
+	 */
+	private SnapshotList buildSnapshotList(DataSeries dataSeries, DataSeries[] seriesList){
+		double[][] columns;
+		if(seriesList != null){
+			columns = new double[seriesList.length][];
+			for(int i=0;i<seriesList.length;i++){
+				columns[i] = getSeriesColumn(seriesList[i]);
+			}
+		} else columns = new double[][]{getSeriesColumn(dataSeries)};
+		return new SnapshotList(snapList, injLabels, dataSeries, seriesList, columns);
+	}
+	
+	/**
+	 * Gets the values of a data series, NaN if the series is missing.
+	 *
+	 * @param ds the data series
+	 * @return the values
+	 */
+	private double[] getSeriesColumn(DataSeries ds){
+		if(ds != null)
+			return getSharedSeriesValue(ds);
+		double[] column = new double[obsList.size()];
+		Arrays.fill(column, Double.NaN);
+		return column;
 	}
 	
 	public Snapshot buildSnapshotFor(AlgorithmType algType, int index, DataSeries dataSeries, AlgorithmConfiguration conf){
-		Invariant inv;
 		switch(algType){
 			case RCC:
 				return getSnapshot(index);
 			case INV:
-				inv = (Invariant)conf.getRawItem(AlgorithmConfiguration.INVARIANT);
-				return getMultipleSnapshot(index, inv);
 			case PEA:
-				return getMultipleSnapshot(index, conf.getItem(AlgorithmConfiguration.PEARSON_DETAIL));
+				return getMultipleSnapshot(index, getMultipleSeries(algType, conf));
 			default:
 				return getDataSeriesSnapshot(dataSeries, index);
 		}
 	}
 	
+	/**
+	 * Gets the values of a data series for all the observations.
+	 *
+	 * @param ds the data series
+	 * @return a copy of the values of the series
+	 */
 	public double[] getDataSeriesValue(DataSeries ds){
+		return getSharedSeriesValue(ds).clone();
+	}
+	
+	/**
+	 * Gets the values of a data series for all the observations.
+	 * Values are computed once and shared through the series column cache: the returned array is never handed out of the experiment.
+	 *
+	 * @param ds the data series
+	 * @return the values of the series
+	 */
+	private double[] getSharedSeriesValue(DataSeries ds){
+		SeriesEvaluator evaluator = ds.getEvaluator();
+		if(evaluator != null)
+			return evaluator.evaluate(obsStore, seriesCache);
 		double[] outList = new double[obsList.size()];
-		for(int i=0;i<obsList.size();i++){
+		for(int i=0;i<outList.length;i++){
 			outList[i] = ds.getSeriesValue(obsList.get(i));
 		}
 		return outList;
 	}
 	
+	/**
+	 * The Class SnapshotList.
+	 * Read-only list of the snapshots of the experiment, seen through one or more data series.
+	 * Series values are computed once, column by column, when the list is created; snapshots are created on access and share the calls of the base snapshots.
+	 * The list does not refer to its experiment, so that cached lists do not keep the observations of closed experiments reachable.
+	 */
+	private static class SnapshotList extends AbstractList<Snapshot> implements RandomAccess, InjectionLabels.Provider {
+		
+		/** The base snapshots. */
+		private final List<Snapshot> snapList;
+		
+		/** The injection labels of the snapshots. */
+		private final InjectionLabels injLabels;
+		
+		/** The data series, for single-series snapshots. */
+		private final DataSeries dataSeries;
+		
+		/** The data series, for multiple snapshots. */
+		private final DataSeries[] seriesList;
+		
+		/** The values of the series, one column for each series. */
+		private final double[][] columns;
+		
+		/**
+		 * Instantiates a new snapshot list.
+		 *
+		 * @param snapList the base snapshots
+		 * @param injLabels the injection labels of the snapshots
+		 * @param dataSeries the data series, for single-series snapshots
+		 * @param seriesList the data series, for multiple snapshots
+		 * @param columns the values of the series, one column for each series
+		 */
+		public SnapshotList(List<Snapshot> snapList, InjectionLabels injLabels, DataSeries dataSeries, DataSeries[] seriesList, double[][] columns) {
+			this.snapList = snapList;
+			this.injLabels = injLabels;
+			this.dataSeries = dataSeries;
+			this.seriesList = seriesList;
+			this.columns = columns;
+		}
+		
+		/**
+		 * Gets an estimate of the memory held by the list.
+		 *
+		 * @return the memory size, in bytes
+		 */
+		public long getMemorySize(){
+			long size = 0;
+			for(double[] column : columns){
+				size = size + 16 + 8L*column.length;
+			}
+			return size;
+		}
+		
+		/* (non-Javadoc)
+		 * @see java.util.AbstractList#get(int)
+		 */
+		@Override
+		public Snapshot get(int index) {
+			if(seriesList != null){
+				double[] seriesValues = new double[seriesList.length];
+				for(int i=0;i<seriesList.length;i++){
+					seriesValues[i] = columns[i][index];
+				}
+				return new MultipleSnapshot(snapList.get(index), seriesList, seriesValues);
+			} else return new DataSeriesSnapshot(snapList.get(index), dataSeries, columns[0][index]);
+		}
+
+		/* (non-Javadoc)
+		 * @see java.util.AbstractCollection#size()
+		 */
+		@Override
+		public int size() {
+			return snapList.size();
+		}
+
+		/* (non-Javadoc)
+		 * @see ippoz.multilayer.detector.commons.data.InjectionLabels.Provider#getInjectionLabels()
+		 */
+		@Override
+		public InjectionLabels getInjectionLabels() {
+			return injLabels;
+		}
+		
+	}
+	
+	/**
+	 * The Class PlainSnapshotList.
+	 * Read-only list of the snapshots of the experiment, carrying their injection labels.
+	 */
+	private class PlainSnapshotList extends AbstractList<Snapshot> implements RandomAccess, InjectionLabels.Provider {
+
+		/* (non-Javadoc)
+		 * @see java.util.AbstractList#get(int)
+		 */
+		@Override
+		public Snapshot get(int index) {
+			return snapList.get(index);
+		}
+
+		/* (non-Javadoc)
+		 * @see java.util.AbstractCollection#size()
+		 */
+		@Override
+		public int size() {
+			return snapList.size();
+		}
+
+		/* (non-Javadoc)
+		 * @see ippoz.multilayer.detector.commons.data.InjectionLabels.Provider#getInjectionLabels()
+		 */
+		@Override
+		public InjectionLabels getInjectionLabels() {
+			return injLabels;
+		}
+		
+	}
+	
 }
@@ -0,0 +1,189 @@
+/**
+ *
+ */
+package ippoz.multilayer.detector.commons.data;
+
+import ippoz.multilayer.detector.commons.failure.InjectedElement;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The Class InjectionLabels.
+ * Labels the snapshots of an experiment with respect to the injections: each snapshot is either the start of an injection,
+ * inside the window of the injection that precedes it (thus undetectable), or outside any injection.
+ * Labels are computed once with a sequential walk over the snapshots, and are used by metrics to count TP, FP, FN and TN.
+ *
+ * @author Tommy
+ */
+public class InjectionLabels {
+
+	/** The snapshot timestamps. */
+	private long[] timestamps;
+
+	/** The snapshots where an injection starts. */
+	private BitSet injectionStarts;
+
+	/** The snapshots inside an injection window, start included. */
+	private BitSet injectionWindows;
+
+	/** The snapshots inside an injection window, start excluded. */
+	private BitSet undetectable;
+
+	/**
+	 * Instantiates new injection labels for a list of snapshots.
+	 *
+	 * @param snapList the snapshots
+	 */
+	public InjectionLabels(List<Snapshot> snapList) {
+		Snapshot snap;
+		InjectedElement injEl;
+		timestamps = new long[snapList.size()];
+		injectionStarts = new BitSet(timestamps.length);
+		undetectable = new BitSet(timestamps.length);
+		for(int i=0;i<timestamps.length;i++){
+			timestamps[i] = snapList.get(i).getTimestamp();
+		}
+		for(int i=0;i<timestamps.length;i++){
+			snap = snapList.get(i);
+			injEl = snap.getInjectedElement();
+			if(injEl != null && injEl.happensAt(timestamps[i])){
+				injectionStarts.set(i);
+				i++;
+				while(i < timestamps.length && injEl.compliesWith(timestamps[i])){
+					undetectable.set(i);
+					i++;
+				}
+				i--;
+			}
+		}
+		injectionWindows = (BitSet) injectionStarts.clone();
+		injectionWindows.or(undetectable);
+	}
+
+	/**
+	 * Gets the injection labels of a list of snapshots.
+	 * Labels precomputed by the experiment are reused when the list comes from an {@link ExperimentData}.
+	 *
+	 * @param snapList the snapshots
+	 * @return the injection labels
+	 */
+	public static InjectionLabels of(List<Snapshot> snapList) {
+		if(snapList instanceof Provider)
+			return ((Provider)snapList).getInjectionLabels();
+		else return new InjectionLabels(snapList);
+	}
+
+	/**
+	 * Aligns the anomaly evaluations with the snapshots.
+	 *
+	 * @param anomalyEvaluations the anomaly evaluations, by timestamp
+	 * @return the evaluation of each snapshot, NaN if missing
+	 */
+	public double[] getEvaluations(Map<Long, Double> anomalyEvaluations) {
+		Double value;
+		double[] evaluations = new double[timestamps.length];
+		for(int i=0;i<timestamps.length;i++){
+			value = anomalyEvaluations.get(timestamps[i]);
+			evaluations[i] = value != null ? value : Double.NaN;
+		}
+		return evaluations;
+	}
+
+	/**
+	 * Counts the injections that are (or are not) detected.
+	 *
+	 * @param evaluations the evaluation of each snapshot
+	 * @param detected true to count detected injections, false to count missed ones
+	 * @return the number of injections
+	 */
+	public int countInjections(double[] evaluations, boolean detected) {
+		int count = 0;
+		for(int i=injectionStarts.nextSetBit(0);i>=0;i=injectionStarts.nextSetBit(i+1)){
+			if(isAnomaly(evaluations[i]) == detected)
+				count++;
+		}
+		return count;
+	}
+
+	/**
+	 * Counts the snapshots outside injection windows that are (or are not) reported as anomalous.
+	 *
+	 * @param evaluations the evaluation of each snapshot
+	 * @param detected true to count anomalous snapshots, false to count normal ones
+	 * @return the number of snapshots
+	 */
+	public int countNormal(double[] evaluations, boolean detected) {
+		int count = 0;
+		for(int i=injectionWindows.nextClearBit(0);i<timestamps.length;i=injectionWindows.nextClearBit(i+1)){
+			if(isAnomaly(evaluations[i]) == detected)
+				count++;
+		}
+		return count;
+	}
+
+	/**
+	 * Checks if an evaluation reports an anomaly, as metrics do.
+	 *
+	 * @param evaluation the evaluation
+	 * @return true, if the evaluation reports an anomaly
+	 */
+	private static boolean isAnomaly(double evaluation) {
+		return evaluation >= 1.0;
+	}
+
+	/**
+	 * Returns the number of labelled snapshots.
+	 *
+	 * @return the number of snapshots
+	 */
+	public int size() {
+		return timestamps.length;
+	}
+
+	/**
+	 * Gets the number of undetectable snapshots, inside an injection window but after its start.
+	 *
+	 * @return the number of undetectable snapshots
+	 */
+	public int getUndetectable() {
+		return undetectable.cardinality();
+	}
+
+	/**
+	 * Checks if an injection starts at a snapshot.
+	 *
+	 * @param index the snapshot index
+	 * @return true, if an injection starts at that snapshot
+	 */
+	public boolean isInjectionStart(int index) {
+		return injectionStarts.get(index);
+	}
+
+	/**
+	 * Checks if a snapshot is inside an injection window.
+	 *
+	 * @param index the snapshot index
+	 * @return true, if the snapshot is inside an injection window
+	 */
+	public boolean isInjectionWindow(int index) {
+		return injectionWindows.get(index);
+	}
+
+	/**
+	 * The Interface Provider.
+	 * Implemented by snapshot lists that carry precomputed injection labels.
+	 */
+	public interface Provider {
+
+		/**
+		 * Gets the injection labels of the snapshots.
+		 *
+		 * @return the injection labels
+		 */
+		public InjectionLabels getInjectionLabels();
+
+	}
+
+}
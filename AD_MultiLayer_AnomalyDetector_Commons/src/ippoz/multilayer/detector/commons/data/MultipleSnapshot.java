@@ -4,43 +4,65 @@
 package ippoz.multilayer.detector.commons.data;
 
 import ippoz.multilayer.detector.commons.dataseries.DataSeries;
-import ippoz.multilayer.detector.commons.failure.InjectedElement;
-import ippoz.multilayer.detector.commons.service.ServiceCall;
-import ippoz.multilayer.detector.commons.service.ServiceStat;
-
-import java.util.HashMap;
-import java.util.LinkedList;
 
 /**
- * @author Tommy
+ * The Class MultipleSnapshot.
+ * Lightweight view of a snapshot through more data series. 
+ * The snapshot of each series is created only when requested, reading precomputed values if available.
  *
+ * @author Tommy
  */
 public class MultipleSnapshot extends Snapshot {
 
-	private HashMap<DataSeries, DataSeriesSnapshot> dsMap;
+	private DataSeries[] seriesList;
+	private Observation obs;
+	private double[] seriesValues;
+	
+	/**
+	 * Instantiates a new multiple snapshot, evaluating the series lazily.
+	 *
+	 * @param snapshot the base snapshot
+	 * @param obs the observation at the snapshot time
+	 * @param seriesList the data series
+	 */
+	public MultipleSnapshot(Snapshot snapshot, Observation obs, DataSeries[] seriesList) {
+		super(snapshot);
+		this.seriesList = seriesList;
+		this.obs = obs;
+	}
 	
-	public MultipleSnapshot(Observation obs, LinkedList<ServiceCall> currentCalls, InjectedElement injEl, HashMap<String, ServiceStat> ssList, DataSeries[] seriesList) {
-		super(obs.getTimestamp(), currentCalls, injEl, ssList);
-		dsMap = generateMultipleSnapshots(obs, seriesList);
+	/**
+	 * Instantiates a new multiple snapshot, with precomputed values.
+	 *
+	 * @param snapshot the base snapshot
+	 * @param seriesList the data series
+	 * @param seriesValues the value of each series at the snapshot time
+	 */
+	public MultipleSnapshot(Snapshot snapshot, DataSeries[] seriesList, double[] seriesValues) {
+		super(snapshot);
+		this.seriesList = seriesList;
+		this.seriesValues = seriesValues;
 	}
 
-	private HashMap<DataSeries, DataSeriesSnapshot> generateMultipleSnapshots(Observation obs, DataSeries[] seriesList) {
-		HashMap<DataSeries, DataSeriesSnapshot> outMap = new HashMap<DataSeries, DataSeriesSnapshot>();
-		for(DataSeries ds : seriesList){
-			outMap.put(ds, new DataSeriesSnapshot(obs, getServiceCalls(), getInjectedElement(), getServiceStats(), ds));
-		}
-		return outMap;
+	public DataSeriesSnapshot getSnapshot(DataSeries dataSeries){
+		int index = indexOf(dataSeries);
+		if(index < 0)
+			return null;
+		else if(seriesValues != null)
+			return new DataSeriesSnapshot(this, seriesList[index], seriesValues[index]);
+		else return new DataSeriesSnapshot(this, obs, seriesList[index]);
 	}
 	
-	public DataSeriesSnapshot getSnapshot(DataSeries dataSeries){
-		DataSeriesSnapshot out = dsMap.get(dataSeries);
-		if(out == null){
-			for(DataSeries ds : dsMap.keySet()){
-				if(ds.toString().equals(dataSeries.toString()))
-					return dsMap.get(ds);
-			}
-		} else return out;
-		return null;
+	private int indexOf(DataSeries dataSeries){
+		for(int i=0;i<seriesList.length;i++){
+			if(seriesList[i] == dataSeries)
+				return i;
+		}
+		for(int i=0;i<seriesList.length;i++){
+			if(dataSeries.equals(seriesList[i]))
+				return i;
+		}
+		return -1;
 	}
 
 }
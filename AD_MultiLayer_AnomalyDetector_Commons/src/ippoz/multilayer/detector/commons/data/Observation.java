@@ -3,43 +3,31 @@ package ippoz.multilayer.detector.commons.data;
 import ippoz.multilayer.detector.commons.datacategory.DataCategory;
 import ippoz.multilayer.detector.commons.indicator.Indicator;
 import ippoz.multilayer.detector.commons.support.AppLogger;
-import ippoz.multilayer.detector.commons.support.AppUtility;
-
-import java.util.Date;
-import java.util.HashMap;
 
 /**
  * The Class Observation.
  * Stores data related to observations of all the indicator at a given time timestamp.
+ * Observations are views on a row of the column store of an experiment.
  *
  * @author Tommy
  */
 public class Observation {
 	
-	/** The timestamp. */
-	private Date timestamp;
-	
-	/** The observed indicators. */
-	private HashMap<Indicator, IndicatorData> observedIndicators;
+	/** The column store holding the values. */
+	private ColumnStore store;
 	
-	/**
-	 * Instantiates a new observation.
-	 *
-	 * @param timestamp the timestamp
-	 */
-	public Observation(String timestamp){
-		this.timestamp = AppUtility.convertStringToDate(timestamp);
-		observedIndicators = new HashMap<>();
-	}
+	/** The index of the observation in the column store. */
+	private int storeIndex;
 	
 	/**
-	 * Adds the indicator.
+	 * Instantiates a new observation, as a view on a row of a column store.
 	 *
-	 * @param newInd the new indicator
-	 * @param newValue the new value of the indicator
+	 * @param store the column store
+	 * @param storeIndex the index of the observation in the store
 	 */
-	public void addIndicator(Indicator newInd, IndicatorData newValue){
-		observedIndicators.put(newInd, newValue);
+	public Observation(ColumnStore store, int storeIndex){
+		this.store = store;
+		this.storeIndex = storeIndex;
 	}
 
 	/**
@@ -47,8 +35,8 @@ public class Observation {
 	 *
 	 * @return the timestamp
 	 */
-	public Date getTimestamp() {
-		return timestamp;
+	public long getTimestamp() {
+		return store.getTimestamp(storeIndex);
 	}
 	
 	/**
@@ -57,34 +45,39 @@ public class Observation {
 	 * @return the indicators
 	 */
 	public Indicator[] getIndicators(){
-		return observedIndicators.keySet().toArray(new Indicator[observedIndicators.keySet().size()]);
+		return store.getIndicators();
 	}
 
 	/**
 	 * Gets the value of an indicator for this specific observation.
+	 * The indicator is resolved through its registry id, without searching it by name.
 	 *
 	 * @param indicator the indicator
 	 * @param categoryTag the data category (plain, diff)
-	 * @return the indicator value
+	 * @return the indicator value, NaN if missing
 	 */
-	public String getValue(Indicator indicator, DataCategory categoryTag) {
-		return observedIndicators.get(indicator).getCategoryValue(categoryTag);
+	public double getValue(Indicator indicator, DataCategory categoryTag) {
+		int indIndex = store.getIndicatorIndex(indicator);
+		if(indIndex >= 0)
+			return store.getValue(indIndex, categoryTag, storeIndex);
+		AppLogger.logError(getClass(), "NoSuchIndicator", "Unable to find Indicator '" + indicator.getName() + "' of layer " + indicator.getLayer());
+		return Double.NaN;
 	}
 	
 	/**
 	 * Gets the value of an indicator for this specific observation.
+	 * Values are read directly from the column store.
 	 *
 	 * @param indicatorName the indicator
 	 * @param categoryTag the data category (plain, diff)
-	 * @return the indicator value
+	 * @return the indicator value, NaN if missing
 	 */
-	public String getValue(String indicatorName, DataCategory categoryTag) {
-		for(Indicator ind : getIndicators()){
-			if(ind.getName().equals(indicatorName.trim()))
-				return getValue(ind, categoryTag);
-		}
+	public double getValue(String indicatorName, DataCategory categoryTag) {
+		int indIndex = store.getIndicatorIndex(indicatorName.trim());
+		if(indIndex >= 0)
+			return store.getValue(indIndex, categoryTag, storeIndex);
 		AppLogger.logError(getClass(), "NoSuchIndicator", "Unable to find Indicator '" + indicatorName + "'");
-		return null;
+		return Double.NaN;
 	}
 	
 	/**
@@ -93,7 +86,7 @@ public class Observation {
 	 * @return the number of indicators
 	 */
 	public int getNumberOfObservedIndicators(){
-		return observedIndicators.size();
+		return store.getIndicators().length;
 	}
 
 }
@@ -0,0 +1,293 @@
+/**
+ *
+ */
+package ippoz.multilayer.detector.commons.data;
+
+import ippoz.multilayer.detector.commons.datacategory.DataCategory;
+import ippoz.multilayer.detector.commons.indicator.Indicator;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.LongBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * The Class OffHeapColumnStore.
+ * Column store keeping timestamps and values of an experiment in a direct buffer, out of the heap.
+ * Columns are laid out as [indicator][category][observation], as in the persistent experiment cache.
+ * The buffer is released by {@link #close()}: reads hold a shared lock, so close waits for the running reads,
+ * and reads after close fail with an IllegalStateException instead of touching released memory.
+ * Direct memory is bounded by the -XX:MaxDirectMemorySize option of the JVM.
+ *
+ * @author Tommy
+ */
+public class OffHeapColumnStore implements ColumnStore {
+
+	/** The stored categories. */
+	private static final DataCategory[] CATEGORIES = {DataCategory.PLAIN, DataCategory.DIFFERENCE};
+
+	/** The stored indicators. */
+	private Indicator[] indicators;
+
+	/** The position of each indicator, by name: the first one if indicators of different layers share the name. */
+	private HashMap<String, Integer> indicatorIndexes;
+
+	/** The position of each indicator, by registry id (-1 if not stored). */
+	private int[] idIndexes;
+
+	/** The position of each category in the columns, by category ordinal (-1 if not stored). */
+	private int[] categoryIndexes;
+
+	/** The number of observations. */
+	private int size;
+
+	/** The lock shared by reads and held exclusively by close. */
+	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+	/** The direct buffer holding timestamps and values, null once released. */
+	private ByteBuffer buffer;
+
+	/** The observation timestamps, as a view of the buffer. */
+	private LongBuffer timestamps;
+
+	/** The values, as a view of the buffer. */
+	private DoubleBuffer values;
+
+	/**
+	 * Instantiates a new off-heap column store, copying the content of another store.
+	 *
+	 * @param source the column store to copy
+	 * @throws IllegalArgumentException if the store does not fit in a direct buffer
+	 */
+	public OffHeapColumnStore(ColumnStore source) {
+		size = source.size();
+		indicators = source.getIndicators();
+		indicatorIndexes = new HashMap<String, Integer>();
+		for(int i=0;i<indicators.length;i++){
+			indicatorIndexes.putIfAbsent(indicators[i].getName(), i);
+		}
+		idIndexes = buildIdIndexes(indicators);
+		categoryIndexes = new int[DataCategory.values().length];
+		Arrays.fill(categoryIndexes, -1);
+		for(int c=0;c<CATEGORIES.length;c++){
+			categoryIndexes[CATEGORIES[c].ordinal()] = c;
+		}
+		long capacity = ((long)size + (long)indicators.length*CATEGORIES.length*size)*8;
+		if(capacity > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("Unable to store " + indicators.length + " indicators and " + size + " observations off-heap: " + capacity + " bytes exceed the " + Integer.MAX_VALUE + " bytes of a direct buffer");
+		buffer = ByteBuffer.allocateDirect((int)capacity).order(ByteOrder.nativeOrder());
+		for(int i=0;i<size;i++){
+			buffer.putLong(source.getTimestamp(i));
+		}
+		for(int ind=0;ind<indicators.length;ind++){
+			for(DataCategory cat : CATEGORIES){
+				for(int i=0;i<size;i++){
+					buffer.putDouble(source.getValue(ind, cat, i));
+				}
+			}
+		}
+		buffer.position(0);
+		buffer.limit(size*8);
+		timestamps = buffer.slice().order(ByteOrder.nativeOrder()).asLongBuffer();
+		buffer.position(size*8);
+		buffer.limit(buffer.capacity());
+		values = buffer.slice().order(ByteOrder.nativeOrder()).asDoubleBuffer();
+		buffer.clear();
+	}
+
+	/* (non-Javadoc)
+	 * @see ippoz.multilayer.detector.commons.data.ColumnStore#size()
+	 */
+	@Override
+	public int size() {
+		return size;
+	}
+
+	/* (non-Javadoc)
+	 * @see ippoz.multilayer.detector.commons.data.ColumnStore#getIndicators()
+	 */
+	@Override
+	public Indicator[] getIndicators() {
+		return indicators.clone();
+	}
+
+	/* (non-Javadoc)
+	 * @see ippoz.multilayer.detector.commons.data.ColumnStore#getIndicatorIndex(java.lang.String)
+	 */
+	@Override
+	public int getIndicatorIndex(String indicatorName) {
+		Integer index = indicatorIndexes.get(indicatorName);
+		return index != null ? index : -1;
+	}
+
+	/* (non-Javadoc)
+	 * @see ippoz.multilayer.detector.commons.data.ColumnStore#getIndicatorIndex(ippoz.multilayer.detector.commons.indicator.Indicator)
+	 */
+	@Override
+	public int getIndicatorIndex(Indicator indicator) {
+		int id = indicator.getId();
+		if(id < idIndexes.length && idIndexes[id] >= 0)
+			return idIndexes[id];
+		else return -1;
+	}
+
+	/* (non-Javadoc)
+	 * @see ippoz.multilayer.detector.commons.data.ColumnStore#getTimestamp(int)
+	 */
+	@Override
+	public long getTimestamp(int index) {
+		lock.readLock().lock();
+		try {
+			checkOpen();
+			return timestamps.get(index);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see ippoz.multilayer.detector.commons.data.ColumnStore#getValue(int, ippoz.multilayer.detector.commons.datacategory.DataCategory, int)
+	 */
+	@Override
+	public double getValue(int indicatorIndex, DataCategory categoryTag, int index) {
+		int catIndex = categoryIndexes[categoryTag.ordinal()];
+		lock.readLock().lock();
+		try {
+			checkOpen();
+			if(catIndex < 0)
+				return Double.NaN;
+			return values.get((indicatorIndex*CATEGORIES.length + catIndex)*size + index);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see ippoz.multilayer.detector.commons.data.ColumnStore#copyColumn(int, ippoz.multilayer.detector.commons.datacategory.DataCategory)
+	 */
+	@Override
+	public double[] copyColumn(int indicatorIndex, DataCategory categoryTag) {
+		double[] column = new double[size];
+		int catIndex = categoryIndexes[categoryTag.ordinal()];
+		lock.readLock().lock();
+		try {
+			checkOpen();
+			if(catIndex >= 0){
+				DoubleBuffer view = values.duplicate();
+				view.position((indicatorIndex*CATEGORIES.length + catIndex)*size);
+				view.get(column);
+			} else Arrays.fill(column, Double.NaN);
+		} finally {
+			lock.readLock().unlock();
+		}
+		return column;
+	}
+
+	/* (non-Javadoc)
+	 * @see ippoz.multilayer.detector.commons.data.ColumnStore#close()
+	 */
+	@Override
+	public void close() {
+		lock.writeLock().lock();
+		try {
+			if(buffer != null)
+				release(buffer);
+			timestamps = null;
+			values = null;
+			buffer = null;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Checks if the store was closed.
+	 *
+	 * @return true, if closed
+	 */
+	public boolean isClosed() {
+		lock.readLock().lock();
+		try {
+			return buffer == null;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Gets the direct memory held by the store.
+	 *
+	 * @return the bytes, 0 if closed
+	 */
+	public long getMemorySize() {
+		lock.readLock().lock();
+		try {
+			return buffer != null ? buffer.capacity() : 0;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Checks that the store was not closed. Must be called holding the read lock.
+	 *
+	 * @throws IllegalStateException if the store was closed
+	 */
+	private void checkOpen() {
+		if(values == null)
+			throw new IllegalStateException("Off-heap column store already closed");
+	}
+
+	/**
+	 * Releases the memory of a direct buffer without waiting for the garbage collector.
+	 * Uses the buffer cleaner on Java 8 and Unsafe.invokeCleaner on later versions; if neither is accessible,
+	 * the memory is released when the buffer is collected.
+	 *
+	 * @param directBuffer the direct buffer
+	 */
+	private static void release(ByteBuffer directBuffer) {
+		try {
+			Method cleanerMethod = directBuffer.getClass().getMethod("cleaner");
+			cleanerMethod.setAccessible(true);
+			Object cleaner = cleanerMethod.invoke(directBuffer);
+			if(cleaner != null)
+				cleaner.getClass().getMethod("clean").invoke(cleaner);
+			return;
+		} catch (Exception ex) {
+			// not Java 8, try with Unsafe
+		}
+		try {
+			Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+			Field unsafeField = unsafeClass.getDeclaredField("theUnsafe");
+			unsafeField.setAccessible(true);
+			unsafeClass.getMethod("invokeCleaner", ByteBuffer.class).invoke(unsafeField.get(null), directBuffer);
+		} catch (Exception ex) {
+			// left to the garbage collector
+		}
+	}
+
+	/**
+	 * Builds the positions of the stored indicators, indexed by registry id.
+	 *
+	 * @param indicators the stored indicators
+	 * @return the positions, -1 for the ids that are not stored
+	 */
+	private static int[] buildIdIndexes(Indicator[] indicators) {
+		int maxId = -1;
+		for(Indicator ind : indicators){
+			maxId = Math.max(maxId, ind.getId());
+		}
+		int[] idIndexes = new int[maxId + 1];
+		Arrays.fill(idIndexes, -1);
+		for(int i=0;i<indicators.length;i++){
+			idIndexes[indicators[i].getId()] = i;
+		}
+		return idIndexes;
+	}
+
+}
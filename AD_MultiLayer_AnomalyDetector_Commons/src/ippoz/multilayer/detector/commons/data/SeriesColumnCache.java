@@ -0,0 +1,222 @@
+/**
+ *
+ */
+package ippoz.multilayer.detector.commons.data;
+
+import ippoz.multilayer.detector.commons.support.AppLogger;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map.Entry;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The Class SeriesColumnCache.
+ * Keeps the values of the data series of an experiment, materialized as columns, so that each series is computed once
+ * and shared by trainers, voters and correlation mining. Composite series are computed from the cached columns of their operands.
+ * The cache is bounded by a memory budget, and evicts the least recently used columns.
+ * Cached columns are shared, and must not be modified.
+ *
+ * @author Tommy
+ */
+public class SeriesColumnCache {
+
+	/** The default memory budget of each experiment, in bytes. */
+	private static long defaultMaxBytes = 16L*1024*1024;
+
+	/** The number of hits of all the caches. */
+	private static AtomicLong totalHits = new AtomicLong();
+
+	/** The number of misses of all the caches. */
+	private static AtomicLong totalMisses = new AtomicLong();
+
+	/** The cached columns, by series key, in access order. */
+	private LinkedHashMap<Long, double[]> columns;
+
+	/** The columns being computed, by series key. */
+	private HashMap<Long, FutureTask<double[]>> pending;
+
+	/** The memory budget, in bytes. */
+	private long maxBytes;
+
+	/** The memory held by the cached columns, in bytes. */
+	private long usedBytes;
+
+	/** The number of hits. */
+	private AtomicLong hits;
+
+	/** The number of misses. */
+	private AtomicLong misses;
+
+	/**
+	 * Instantiates a new series column cache, with the default memory budget.
+	 */
+	public SeriesColumnCache() {
+		this(defaultMaxBytes);
+	}
+
+	/**
+	 * Instantiates a new series column cache.
+	 *
+	 * @param maxBytes the memory budget, in bytes
+	 */
+	public SeriesColumnCache(long maxBytes) {
+		this.maxBytes = maxBytes;
+		columns = new LinkedHashMap<Long, double[]>(16, 0.75f, true);
+		pending = new HashMap<Long, FutureTask<double[]>>();
+		usedBytes = 0;
+		hits = new AtomicLong();
+		misses = new AtomicLong();
+	}
+
+	/**
+	 * Sets the memory budget of the caches created from now on.
+	 *
+	 * @param newMaxBytes the memory budget of each experiment, in bytes
+	 */
+	public static void setDefaultMaxBytes(long newMaxBytes) {
+		defaultMaxBytes = newMaxBytes;
+	}
+
+	/**
+	 * Gets the column of a series, computing it if not cached.
+	 * Threads asking for a column that is being computed wait for it instead of computing it again.
+	 *
+	 * @param key the series key, as built by the series evaluator
+	 * @param loader computes the column
+	 * @return the column, shared with the cache
+	 */
+	public double[] getColumn(long key, Callable<double[]> loader) {
+		FutureTask<double[]> task;
+		boolean owner = false;
+		synchronized(this){
+			double[] column = columns.get(key);
+			if(column != null){
+				hits.incrementAndGet();
+				totalHits.incrementAndGet();
+				return column;
+			}
+			task = pending.get(key);
+			if(task == null){
+				misses.incrementAndGet();
+				totalMisses.incrementAndGet();
+				task = new FutureTask<double[]>(loader);
+				pending.put(key, task);
+				owner = true;
+			} else {
+				hits.incrementAndGet();
+				totalHits.incrementAndGet();
+			}
+		}
+		if(owner)
+			task.run();
+		try {
+			return task.get();
+		} catch (InterruptedException ex) {
+			AppLogger.logException(getClass(), ex, "Interrupted while computing column '" + key + "'");
+			Thread.currentThread().interrupt();
+			return null;
+		} catch (ExecutionException ex) {
+			if(ex.getCause() instanceof RuntimeException)
+				throw (RuntimeException)ex.getCause();
+			AppLogger.logException(getClass(), ex, "Unable to compute column '" + key + "'");
+			return null;
+		} finally {
+			if(owner)
+				store(key, task);
+		}
+	}
+
+	/**
+	 * Moves a computed column from the pending ones to the cache.
+	 *
+	 * @param key the series key
+	 * @param task the task computing the column
+	 */
+	private synchronized void store(long key, FutureTask<double[]> task) {
+		double[] column = null;
+		pending.remove(key);
+		try {
+			column = task.isDone() ? task.get() : null;
+		} catch (Exception ex) {
+			// failed columns are not cached
+		}
+		if(column != null && getMemorySize(column) <= maxBytes){
+			columns.put(key, column);
+			usedBytes = usedBytes + getMemorySize(column);
+			evict();
+		}
+	}
+
+	/**
+	 * Evicts the least recently used columns until the cache fits its memory budget.
+	 */
+	private void evict() {
+		Iterator<Entry<Long, double[]>> it = columns.entrySet().iterator();
+		while(usedBytes > maxBytes && it.hasNext()){
+			usedBytes = usedBytes - getMemorySize(it.next().getValue());
+			it.remove();
+		}
+	}
+
+	/**
+	 * Gets an estimate of the memory held by a column.
+	 *
+	 * @param column the column
+	 * @return the bytes
+	 */
+	private static long getMemorySize(double[] column) {
+		return 16 + 8L*column.length;
+	}
+
+	/**
+	 * Empties the cache.
+	 */
+	public synchronized void clear() {
+		columns.clear();
+		usedBytes = 0;
+	}
+
+	/**
+	 * Gets the hit rate of this cache.
+	 *
+	 * @return the hit rate, 0 if the cache was never used
+	 */
+	public double getHitRate() {
+		long total = hits.get() + misses.get();
+		return total > 0 ? 1.0*hits.get()/total : 0.0;
+	}
+
+	/**
+	 * Gets a summary of the usage of this cache.
+	 *
+	 * @return the summary
+	 */
+	public synchronized String getSummary() {
+		return columns.size() + " columns (" + (usedBytes/1024) + " KB), " + hits.get() + " hits, " + misses.get() + " misses, hit rate " + String.format("%.3f", getHitRate());
+	}
+
+	/**
+	 * Gets the hit rate of all the caches.
+	 *
+	 * @return the hit rate, 0 if no cache was used
+	 */
+	public static double getTotalHitRate() {
+		long total = totalHits.get() + totalMisses.get();
+		return total > 0 ? 1.0*totalHits.get()/total : 0.0;
+	}
+
+	/**
+	 * Gets a summary of the usage of all the caches.
+	 *
+	 * @return the summary
+	 */
+	public static String getTotalSummary() {
+		return totalHits.get() + " hits, " + totalMisses.get() + " misses, hit rate " + String.format("%.3f", getTotalHitRate());
+	}
+
+}
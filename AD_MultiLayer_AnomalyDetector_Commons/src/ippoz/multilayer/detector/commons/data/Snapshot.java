@@ -8,9 +8,10 @@ import ippoz.multilayer.detector.commons.service.ServiceCall;
 import ippoz.multilayer.detector.commons.service.ServiceStat;
 import ippoz.multilayer.detector.commons.service.StatPair;
 
-import java.util.Date;
-import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 
 /**
  * The Class Snapshot.
@@ -20,38 +21,38 @@ import java.util.LinkedList;
  */
 public class Snapshot {
 	
-	/** The list of services called at that time instant. */
-	private LinkedList<ServiceCall> sCall;
+	/** The services called at that time instant, shared with the other snapshots having the same calls. */
+	private ServiceCall[] sCall;
 	
 	/** The injection at that time instant. */
 	private InjectedElement injEl;
 	
 	/** The snapshot timestamp. */
-	private Date timestamp;
+	private long timestamp;
 	
 	/** The service stat list. */
-	private HashMap<String, ServiceStat> ssList;
+	private Map<String, ServiceStat> ssList;
 	
 	/**
 	 * Instantiates a new snapshot.
 	 *
-	 * @param currentCalls the current calls
+	 * @param currentCalls the calls alive at the snapshot timestamp, as found by a {@link ippoz.multilayer.detector.commons.service.ServiceCallIndex}
 	 * @param injEl the injection
 	 */
-	public Snapshot(Date timestamp, LinkedList<ServiceCall> currentCalls, InjectedElement injEl, HashMap<String, ServiceStat> ssList) {
+	public Snapshot(long timestamp, ServiceCall[] currentCalls, InjectedElement injEl, Map<String, ServiceStat> ssList) {
 		this.timestamp = timestamp;
-		this.sCall = filterCalls(currentCalls);
+		this.sCall = currentCalls;
 		this.injEl = injEl;
 		this.ssList = ssList;
 	}
 	
-	private LinkedList<ServiceCall> filterCalls(LinkedList<ServiceCall> currentCalls) {
-		LinkedList<ServiceCall> okCalls = new LinkedList<ServiceCall>();
-		for(ServiceCall sCall : currentCalls){
-			if(sCall.isAliveAt(timestamp))
-				okCalls.add(sCall);
-		}
-		return okCalls;
+	/**
+	 * Instantiates a new snapshot, sharing timestamp, calls, injection and service stats of another snapshot.
+	 *
+	 * @param snapshot the base snapshot
+	 */
+	protected Snapshot(Snapshot snapshot) {
+		this(snapshot.timestamp, snapshot.sCall, snapshot.injEl, snapshot.ssList);
 	}
 
 	/**
@@ -59,7 +60,7 @@ public class Snapshot {
 	 *
 	 * @return the timestamp
 	 */
-	public Date getTimestamp(){
+	public long getTimestamp(){
 		return timestamp;
 	}
 	
@@ -82,12 +83,12 @@ public class Snapshot {
 	}
 	
 	/**
-	 * Gets the service calls.
+	 * Gets the service calls alive at the snapshot timestamp.
 	 *
-	 * @return the service calls
+	 * @return a read-only view of the service calls
 	 */
-	public LinkedList<ServiceCall> getServiceCalls() {
-		return sCall;
+	public List<ServiceCall> getServiceCalls() {
+		return Collections.unmodifiableList(Arrays.asList(sCall));
 	}
 	
 	/**
@@ -99,7 +100,7 @@ public class Snapshot {
 		return injEl;
 	}
 
-	public HashMap<String, ServiceStat> getServiceStats() {
+	public Map<String, ServiceStat> getServiceStats() {
 		return ssList;
 	}
 	
@@ -0,0 +1,271 @@
+/**
+ *
+ */
+package ippoz.multilayer.detector.commons.data;
+
+import ippoz.multilayer.detector.commons.dataseries.DataSeries;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The Class SnapshotCache.
+ * Shares the snapshot lists built for a (data series, experiment) pair among all the trainers and voters.
+ * The cache is bounded by an estimate of the memory held by the cached lists, and evicts the least recently used ones.
+ * Lists are keyed by the experiment instance they were built on, and are evicted when that experiment is closed.
+ *
+ * @author Tommy
+ */
+public class SnapshotCache {
+
+	/** The default memory budget, in bytes. */
+	private static final long DEFAULT_MAX_BYTES = 256L*1024*1024;
+
+	/** The cached snapshot lists, in access order. */
+	private static LinkedHashMap<Key, CacheEntry> cache = new LinkedHashMap<Key, CacheEntry>(16, 0.75f, true);
+
+	/** The memory budget, in bytes. */
+	private static long maxBytes = DEFAULT_MAX_BYTES;
+
+	/** The memory currently held by the cached lists, in bytes. */
+	private static long usedBytes = 0;
+
+	/** The number of hits. */
+	private static AtomicLong hits = new AtomicLong();
+
+	/** The number of misses. */
+	private static AtomicLong misses = new AtomicLong();
+
+	/**
+	 * Instantiates a new snapshot cache.
+	 */
+	private SnapshotCache(){}
+
+	/**
+	 * Sets the memory budget of the cache, evicting lists if needed.
+	 *
+	 * @param newMaxBytes the memory budget, in bytes
+	 */
+	public static synchronized void setMaxBytes(long newMaxBytes){
+		maxBytes = newMaxBytes;
+		evict();
+	}
+
+	/**
+	 * Builds the key of a snapshot list.
+	 *
+	 * @param expData the experiment the list is built on
+	 * @param dataSeries the data series, for single-series snapshots
+	 * @param seriesList the data series, for multiple snapshots
+	 * @return the key, null if the snapshots do not depend on any data series
+	 */
+	public static Key buildKey(ExperimentData expData, DataSeries dataSeries, DataSeries[] seriesList){
+		if(seriesList != null)
+			return new Key(expData, seriesList.clone());
+		else if(dataSeries != null)
+			return new Key(expData, new DataSeries[]{dataSeries});
+		else return null;
+	}
+
+	/**
+	 * Gets a cached snapshot list.
+	 *
+	 * @param key the key
+	 * @return the snapshot list, null if not cached
+	 */
+	public static synchronized List<Snapshot> get(Key key){
+		CacheEntry entry = cache.get(key);
+		if(entry != null){
+			hits.incrementAndGet();
+			return entry.getSnapshots();
+		} else {
+			misses.incrementAndGet();
+			return null;
+		}
+	}
+
+	/**
+	 * Caches a snapshot list.
+	 * If another thread cached a list with the same key in the meantime, that list is kept and returned.
+	 *
+	 * @param key the key
+	 * @param snapshots the snapshot list
+	 * @param bytes the memory held by the list, in bytes
+	 * @return the cached snapshot list
+	 */
+	public static synchronized List<Snapshot> put(Key key, List<Snapshot> snapshots, long bytes){
+		CacheEntry entry = cache.get(key);
+		if(entry != null)
+			return entry.getSnapshots();
+		if(bytes <= maxBytes){
+			cache.put(key, new CacheEntry(snapshots, bytes));
+			usedBytes = usedBytes + bytes;
+			evict();
+		}
+		return snapshots;
+	}
+
+	/**
+	 * Evicts the least recently used lists until the cache fits its memory budget.
+	 */
+	private static void evict(){
+		Iterator<Entry<Key, CacheEntry>> it = cache.entrySet().iterator();
+		while(usedBytes > maxBytes && it.hasNext()){
+			usedBytes = usedBytes - it.next().getValue().getBytes();
+			it.remove();
+		}
+	}
+
+	/**
+	 * Evicts all the lists built on an experiment.
+	 *
+	 * @param expData the experiment
+	 */
+	public static synchronized void evict(ExperimentData expData){
+		Entry<Key, CacheEntry> entry;
+		Iterator<Entry<Key, CacheEntry>> it = cache.entrySet().iterator();
+		while(it.hasNext()){
+			entry = it.next();
+			if(entry.getKey().expData == expData){
+				usedBytes = usedBytes - entry.getValue().getBytes();
+				it.remove();
+			}
+		}
+	}
+
+	/**
+	 * Empties the cache.
+	 */
+	public static synchronized void clear(){
+		cache.clear();
+		usedBytes = 0;
+	}
+
+	/**
+	 * Gets the number of hits.
+	 *
+	 * @return the hits
+	 */
+	public static long getHits(){
+		return hits.get();
+	}
+
+	/**
+	 * Gets the number of misses.
+	 *
+	 * @return the misses
+	 */
+	public static long getMisses(){
+		return misses.get();
+	}
+
+	/**
+	 * Gets the hit rate.
+	 *
+	 * @return the hit rate, 0 if the cache was never used
+	 */
+	public static double getHitRate(){
+		long total = getHits() + getMisses();
+		return total > 0 ? 1.0*getHits()/total : 0.0;
+	}
+
+	/**
+	 * Gets a summary of the cache usage.
+	 *
+	 * @return the summary
+	 */
+	public static synchronized String getSummary(){
+		return cache.size() + " snapshot lists (" + (usedBytes/1024) + " KB), " + getHits() + " hits, " + getMisses() + " misses, hit rate " + String.format("%.3f", getHitRate());
+	}
+
+	/**
+	 * The Class Key.
+	 * The key of a snapshot list: the experiment instance, compared by identity, and the data series.
+	 */
+	public static class Key {
+
+		/** The experiment the list is built on. */
+		private final ExperimentData expData;
+
+		/** The data series of the list, null for missing series. */
+		private final DataSeries[] seriesList;
+
+		/**
+		 * Instantiates a new key.
+		 *
+		 * @param expData the experiment
+		 * @param seriesList the data series
+		 */
+		private Key(ExperimentData expData, DataSeries[] seriesList) {
+			this.expData = expData;
+			this.seriesList = seriesList;
+		}
+
+		/* (non-Javadoc)
+		 * @see java.lang.Object#equals(java.lang.Object)
+		 */
+		@Override
+		public boolean equals(Object other) {
+			if(!(other instanceof Key))
+				return false;
+			return expData == ((Key)other).expData && Arrays.equals(seriesList, ((Key)other).seriesList);
+		}
+
+		/* (non-Javadoc)
+		 * @see java.lang.Object#hashCode()
+		 */
+		@Override
+		public int hashCode() {
+			return System.identityHashCode(expData)*31 + Arrays.hashCode(seriesList);
+		}
+
+	}
+
+	/**
+	 * The Class CacheEntry.
+	 * A cached snapshot list, with the memory it holds.
+	 */
+	private static class CacheEntry {
+
+		/** The snapshots. */
+		private List<Snapshot> snapshots;
+
+		/** The memory held by the snapshots, in bytes. */
+		private long bytes;
+
+		/**
+		 * Instantiates a new cache entry.
+		 *
+		 * @param snapshots the snapshots
+		 * @param bytes the memory held by the snapshots, in bytes
+		 */
+		public CacheEntry(List<Snapshot> snapshots, long bytes) {
+			this.snapshots = snapshots;
+			this.bytes = bytes;
+		}
+
+		/**
+		 * Gets the snapshots.
+		 *
+		 * @return the snapshots
+		 */
+		public List<Snapshot> getSnapshots() {
+			return snapshots;
+		}
+
+		/**
+		 * Gets the memory held by the snapshots.
+		 *
+		 * @return the bytes
+		 */
+		public long getBytes() {
+			return bytes;
+		}
+
+	}
+
+}
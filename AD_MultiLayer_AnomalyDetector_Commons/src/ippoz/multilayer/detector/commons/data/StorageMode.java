@@ -0,0 +1,45 @@
+/**
+ *
+ */
+package ippoz.multilayer.detector.commons.data;
+
+/**
+ * The Enum StorageMode.
+ * Defines where the indicator values of the loaded experiments are kept.
+ *
+ * @author Tommy
+ */
+public enum StorageMode {
+
+	/** Values are kept in arrays on the heap. */
+	HEAP,
+
+	/** Values are kept in direct buffers, out of the heap, and released when the experiment is closed. */
+	OFF_HEAP,
+
+	/** Values are encoded without loss: integral columns as varint deltas, the others as float32 when exact. */
+	COMPACT,
+
+	/** Values are encoded as in COMPACT, rounding non-integral columns to float32. */
+	FLOAT32;
+
+	/**
+	 * Moves a column store to this storage mode.
+	 *
+	 * @param source the column store, as loaded
+	 * @return the column store in this storage mode
+	 */
+	public ColumnStore store(ColumnStore source){
+		switch(this){
+			case OFF_HEAP:
+				return source instanceof OffHeapColumnStore ? source : new OffHeapColumnStore(source);
+			case COMPACT:
+				return new CompactColumnStore(source, false);
+			case FLOAT32:
+				return new CompactColumnStore(source, true);
+			default:
+				return source;
+		}
+	}
+
+}
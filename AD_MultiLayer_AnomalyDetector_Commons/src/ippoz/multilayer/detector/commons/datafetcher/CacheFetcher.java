@@ -0,0 +1,124 @@
+package ippoz.multilayer.detector.commons.datafetcher;
+
+import ippoz.multilayer.detector.commons.data.ColumnStore;
+import ippoz.multilayer.detector.commons.data.DenseColumnStore;
+import ippoz.multilayer.detector.commons.datafetcher.cache.CachedRun;
+import ippoz.multilayer.detector.commons.datafetcher.cache.ExperimentCache;
+import ippoz.multilayer.detector.commons.failure.InjectedElement;
+import ippoz.multilayer.detector.commons.layer.LayerType;
+import ippoz.multilayer.detector.commons.service.ServiceCall;
+import ippoz.multilayer.detector.commons.service.ServiceStat;
+
+import java.util.HashMap;
+import java.util.LinkedList;
+
+/**
+ * The Class CacheFetcher.
+ * Concrete fetcher that reads a run from the persistent experiment cache.
+ *
+ * @author Tommy
+ */
+public class CacheFetcher extends DataFetcher {
+	
+	/** The experiment cache. */
+	private ExperimentCache cache;
+	
+	/** The runID. */
+	private String runId;
+	
+	/** The cached run, read on first access. */
+	private CachedRun cachedRun;
+	
+	/**
+	 * Instantiates a new cache fetcher.
+	 *
+	 * @param runId the runID
+	 * @param cache the experiment cache
+	 */
+	public CacheFetcher(String runId, ExperimentCache cache){
+		this.runId = runId;
+		this.cache = cache;
+	}
+	
+	/**
+	 * Gets the cached run, reading it from the cache the first time.
+	 *
+	 * @return the cached run
+	 */
+	private CachedRun getCachedRun(){
+		if(cachedRun == null){
+			cachedRun = readRun(cache, runId);
+			if(cachedRun == null)
+				cachedRun = new CachedRun(runId, new DenseColumnStore.Builder().build(), new LinkedList<ServiceCall>(), new LinkedList<InjectedElement>(), new HashMap<String, ServiceStat>(), new HashMap<String, HashMap<LayerType, LinkedList<Integer>>>());
+		}
+		return cachedRun;
+	}
+
+	/**
+	 * Reads a run from the cache.
+	 *
+	 * @param cache the experiment cache
+	 * @param runId the runID
+	 * @return the cached run, null if it cannot be read
+	 */
+	protected CachedRun readRun(ExperimentCache cache, String runId){
+		return cache.load(runId);
+	}
+
+	/* (non-Javadoc)
+	 * @see ippoz.multilayer.detector.commons.datafetcher.DataFetcher#getID()
+	 */
+	@Override
+	protected String getID() {
+		return runId;
+	}
+
+	/* (non-Javadoc)
+	 * @see ippoz.multilayer.detector.commons.datafetcher.DataFetcher#getObservations()
+	 */
+	@Override
+	protected ColumnStore getObservations() {
+		return getCachedRun().getObservations();
+	}
+
+	/* (non-Javadoc)
+	 * @see ippoz.multilayer.detector.commons.datafetcher.DataFetcher#getServiceCalls()
+	 */
+	@Override
+	protected LinkedList<ServiceCall> getServiceCalls() {
+		return getCachedRun().getServiceCalls();
+	}
+
+	/* (non-Javadoc)
+	 * @see ippoz.multilayer.detector.commons.datafetcher.DataFetcher#getServiceStats()
+	 */
+	@Override
+	protected HashMap<String, ServiceStat> getServiceStats() {
+		return getCachedRun().getServiceStats();
+	}
+
+	/* (non-Javadoc)
+	 * @see ippoz.multilayer.detector.commons.datafetcher.DataFetcher#getInjections()
+	 */
+	@Override
+	protected LinkedList<InjectedElement> getInjections() {
+		return getCachedRun().getInjections();
+	}
+
+	/* (non-Javadoc)
+	 * @see ippoz.multilayer.detector.commons.datafetcher.DataFetcher#getPerformanceTimings()
+	 */
+	@Override
+	protected HashMap<String, HashMap<LayerType, LinkedList<Integer>>> getPerformanceTimings() {
+		return getCachedRun().getPerformanceTimings();
+	}
+
+	/* (non-Javadoc)
+	 * @see ippoz.multilayer.detector.commons.datafetcher.DataFetcher#flush()
+	 */
+	@Override
+	public void flush() {
+		cachedRun = null;
+	}
+
+}
@@ -1,7 +1,8 @@
 package ippoz.multilayer.detector.commons.datafetcher;
 
 import ippoz.multilayer.detector.commons.data.ExperimentData;
-import ippoz.multilayer.detector.commons.data.Observation;
+import ippoz.multilayer.detector.commons.data.ColumnStore;
+import ippoz.multilayer.detector.commons.data.StorageMode;
 import ippoz.multilayer.detector.commons.failure.InjectedElement;
 import ippoz.multilayer.detector.commons.layer.LayerType;
 import ippoz.multilayer.detector.commons.service.ServiceCall;
@@ -21,6 +22,18 @@ public abstract class DataFetcher extends Thread {
 	/** The fetched experiment data. */
 	private ExperimentData expData;
 	
+	/** The storage mode of the fetched observations. */
+	private StorageMode storageMode = StorageMode.HEAP;
+	
+	/**
+	 * Sets the storage mode of the fetched observations.
+	 *
+	 * @param storageMode the storage mode
+	 */
+	public void setStorageMode(StorageMode storageMode){
+		this.storageMode = storageMode;
+	}
+	
 	/**
 	 * Gets the fetched data.
 	 *
@@ -35,7 +48,7 @@ public abstract class DataFetcher extends Thread {
 	 */
 	@Override
 	public void run() {
-		expData = new ExperimentData(getID(), getObservations(), getServiceCalls(), getInjections(), getServiceStats(), getPerformanceTimings());
+		expData = new ExperimentData(getID(), storageMode.store(getObservations()), getServiceCalls(), getInjections(), getServiceStats(), getPerformanceTimings());
 	}
 
 	/**
@@ -46,11 +59,11 @@ public abstract class DataFetcher extends Thread {
 	protected abstract String getID();
 	
 	/**
-	 * Gets the experiment observations.
+	 * Gets the experiment observations, stored column by column.
 	 *
 	 * @return the observations
 	 */
-	protected abstract LinkedList<Observation> getObservations();
+	protected abstract ColumnStore getObservations();
 
 	/**
 	 * Gets the experiment service calls.
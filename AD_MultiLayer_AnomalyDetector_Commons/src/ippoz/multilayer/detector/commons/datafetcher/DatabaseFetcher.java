@@ -1,6 +1,7 @@
 package ippoz.multilayer.detector.commons.datafetcher;
 
-import ippoz.multilayer.detector.commons.data.Observation;
+import ippoz.multilayer.detector.commons.data.ColumnStore;
+import ippoz.multilayer.detector.commons.datafetcher.database.DatabaseConnectionPool;
 import ippoz.multilayer.detector.commons.datafetcher.database.DatabaseManager;
 import ippoz.multilayer.detector.commons.failure.InjectedElement;
 import ippoz.multilayer.detector.commons.layer.LayerType;
@@ -23,6 +24,12 @@ public class DatabaseFetcher extends DataFetcher {
 	/** The database manager. */
 	private DatabaseManager dbManager;
 	
+	/** The runID. */
+	private String runId;
+	
+	/** The flag indicating if the run was fetched without query failures. */
+	private boolean complete;
+	
 	/**
 	 * Instantiates a new database fetcher.
 	 *
@@ -31,15 +38,57 @@ public class DatabaseFetcher extends DataFetcher {
 	 * @param password the database password
 	 */
 	public DatabaseFetcher(String runId, String username, String password){
+		this.runId = runId;
 		dbManager = new DatabaseManager("experiment", username, password, runId);
 	}
+	
+	/**
+	 * Instantiates a new database fetcher that takes its connections from a shared pool.
+	 *
+	 * @param runId the runID
+	 * @param pool the pool of database connectors
+	 */
+	public DatabaseFetcher(String runId, DatabaseConnectionPool pool){
+		this.runId = runId;
+		dbManager = new DatabaseManager(pool, runId);
+	}
+	
+	/**
+	 * Instantiates a new database fetcher that reads its run from a database manager loading a block of runs.
+	 *
+	 * @param runId the runID
+	 * @param blockManager the database manager of the block including the run
+	 */
+	public DatabaseFetcher(String runId, DatabaseManager blockManager){
+		this.runId = runId;
+		dbManager = blockManager;
+	}
+
+	/* (non-Javadoc)
+	 * @see ippoz.multilayer.detector.commons.datafetcher.DataFetcher#run()
+	 */
+	@Override
+	public void run() {
+		complete = false;
+		super.run();
+		complete = dbManager.isComplete();
+	}
+	
+	/**
+	 * Checks if the run was fetched without query failures.
+	 *
+	 * @return true, if all the queries of the run succeeded
+	 */
+	public boolean isComplete() {
+		return complete;
+	}
 
 	/* (non-Javadoc)
 	 * @see ippoz.multilayer.detector.datafetcher.DataFetcher#getObservations()
 	 */
 	@Override
-	protected LinkedList<Observation> getObservations() {
-		return dbManager.getRunObservations();
+	protected ColumnStore getObservations() {
+		return dbManager.getRunObservations(runId);
 	}
 
 	/* (non-Javadoc)
@@ -47,7 +96,7 @@ public class DatabaseFetcher extends DataFetcher {
 	 */
 	@Override
 	protected LinkedList<ServiceCall> getServiceCalls() {
-		return dbManager.getServiceCalls();
+		return dbManager.getServiceCalls(runId);
 	}
 
 	/* (non-Javadoc)
@@ -63,7 +112,7 @@ public class DatabaseFetcher extends DataFetcher {
 	 */
 	@Override
 	protected LinkedList<InjectedElement> getInjections() {
-		return dbManager.getInjections();
+		return dbManager.getInjections(runId);
 	}
 
 	/* (non-Javadoc)
@@ -84,7 +133,7 @@ public class DatabaseFetcher extends DataFetcher {
 	 */
 	@Override
 	protected String getID() {
-		return dbManager.getRunID();
+		return runId;
 	}
 
 	/* (non-Javadoc)
@@ -92,7 +141,7 @@ public class DatabaseFetcher extends DataFetcher {
 	 */
 	@Override
 	protected HashMap<String, HashMap<LayerType, LinkedList<Integer>>> getPerformanceTimings() {
-		return dbManager.getPerformanceTimings();
+		return dbManager.getPerformanceTimings(runId);
 	}
 
 }
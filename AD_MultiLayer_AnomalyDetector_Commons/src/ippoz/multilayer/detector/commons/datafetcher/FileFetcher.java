@@ -0,0 +1,141 @@
+package ippoz.multilayer.detector.commons.datafetcher;
+
+import ippoz.multilayer.detector.commons.data.ColumnStore;
+import ippoz.multilayer.detector.commons.datafetcher.file.CsvManager;
+import ippoz.multilayer.detector.commons.failure.InjectedElement;
+import ippoz.multilayer.detector.commons.layer.LayerType;
+import ippoz.multilayer.detector.commons.service.ServiceCall;
+import ippoz.multilayer.detector.commons.service.ServiceStat;
+
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The Class FileFetcher.
+ * Concrete fetcher that reads a run exported as CSV files.
+ * The files of the run are parsed in parallel, starting all of them at the first access.
+ *
+ * @author Tommy
+ */
+public class FileFetcher extends DataFetcher {
+	
+	/** The CSV manager. */
+	private CsvManager csvManager;
+	
+	/** The runID. */
+	private String runId;
+	
+	/** The files of the run being read, null if not started or flushed. */
+	private RunFiles runFiles;
+	
+	/**
+	 * Instantiates a new file fetcher.
+	 *
+	 * @param runId the runID
+	 * @param csvManager the CSV manager of the data folder
+	 */
+	public FileFetcher(String runId, CsvManager csvManager){
+		this.runId = runId;
+		this.csvManager = csvManager;
+	}
+	
+	/**
+	 * Starts reading the files of the run, if not already started.
+	 * Callers wait on the returned files, which are not affected by a concurrent flush.
+	 *
+	 * @return the files of the run being read
+	 */
+	private synchronized RunFiles load(){
+		if(runFiles == null)
+			runFiles = new RunFiles();
+		return runFiles;
+	}
+
+	/* (non-Javadoc)
+	 * @see ippoz.multilayer.detector.commons.datafetcher.DataFetcher#getID()
+	 */
+	@Override
+	protected String getID() {
+		return runId;
+	}
+
+	/* (non-Javadoc)
+	 * @see ippoz.multilayer.detector.commons.datafetcher.DataFetcher#getObservations()
+	 */
+	@Override
+	protected ColumnStore getObservations() {
+		return load().observations.join();
+	}
+
+	/* (non-Javadoc)
+	 * @see ippoz.multilayer.detector.commons.datafetcher.DataFetcher#getServiceCalls()
+	 */
+	@Override
+	protected LinkedList<ServiceCall> getServiceCalls() {
+		return load().serviceCalls.join();
+	}
+
+	/* (non-Javadoc)
+	 * @see ippoz.multilayer.detector.commons.datafetcher.DataFetcher#getServiceStats()
+	 */
+	@Override
+	protected HashMap<String, ServiceStat> getServiceStats() {
+		return csvManager.getServiceStats();
+	}
+
+	/* (non-Javadoc)
+	 * @see ippoz.multilayer.detector.commons.datafetcher.DataFetcher#getInjections()
+	 */
+	@Override
+	protected LinkedList<InjectedElement> getInjections() {
+		return load().injections.join();
+	}
+
+	/* (non-Javadoc)
+	 * @see ippoz.multilayer.detector.commons.datafetcher.DataFetcher#getPerformanceTimings()
+	 */
+	@Override
+	protected HashMap<String, HashMap<LayerType, LinkedList<Integer>>> getPerformanceTimings() {
+		return load().timings.join();
+	}
+
+	/* (non-Javadoc)
+	 * @see ippoz.multilayer.detector.commons.datafetcher.DataFetcher#flush()
+	 */
+	@Override
+	public synchronized void flush() {
+		runFiles = null;
+	}
+	
+	/**
+	 * The Class RunFiles.
+	 * The files of a run, each one read asynchronously.
+	 */
+	private class RunFiles {
+		
+		/** The observations being read. */
+		private final CompletableFuture<ColumnStore> observations;
+		
+		/** The service calls being read. */
+		private final CompletableFuture<LinkedList<ServiceCall>> serviceCalls;
+		
+		/** The injections being read. */
+		private final CompletableFuture<LinkedList<InjectedElement>> injections;
+		
+		/** The performance timings being read. */
+		private final CompletableFuture<HashMap<String, HashMap<LayerType, LinkedList<Integer>>>> timings;
+		
+		/**
+		 * Starts reading the files of the run.
+		 */
+		public RunFiles(){
+			observations = CompletableFuture.supplyAsync(() -> csvManager.getObservations(runId));
+			serviceCalls = CompletableFuture.supplyAsync(() -> csvManager.getServiceCalls(runId));
+			injections = CompletableFuture.supplyAsync(() -> csvManager.getInjections(runId));
+			timings = CompletableFuture.supplyAsync(() -> csvManager.getPerformanceTimings(runId));
+		}
+		
+	}
+
+}
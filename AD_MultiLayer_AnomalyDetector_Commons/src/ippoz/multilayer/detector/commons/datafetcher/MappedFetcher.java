@@ -0,0 +1,33 @@
+package ippoz.multilayer.detector.commons.datafetcher;
+
+import ippoz.multilayer.detector.commons.datafetcher.cache.CachedRun;
+import ippoz.multilayer.detector.commons.datafetcher.cache.ExperimentCache;
+
+/**
+ * The Class MappedFetcher.
+ * Concrete fetcher that memory-maps a run of the persistent experiment cache.
+ * Indicator values are not copied: observations read them straight from the mapped file.
+ *
+ * @author Tommy
+ */
+public class MappedFetcher extends CacheFetcher {
+	
+	/**
+	 * Instantiates a new mapped fetcher.
+	 *
+	 * @param runId the runID
+	 * @param cache the experiment cache
+	 */
+	public MappedFetcher(String runId, ExperimentCache cache){
+		super(runId, cache);
+	}
+
+	/* (non-Javadoc)
+	 * @see ippoz.multilayer.detector.commons.datafetcher.CacheFetcher#readRun(ippoz.multilayer.detector.commons.datafetcher.cache.ExperimentCache, java.lang.String)
+	 */
+	@Override
+	protected CachedRun readRun(ExperimentCache cache, String runId) {
+		return cache.map(runId);
+	}
+
+}
@@ -0,0 +1,114 @@
+/**
+ * 
+ */
+package ippoz.multilayer.detector.commons.datafetcher.cache;
+
+import ippoz.multilayer.detector.commons.data.ColumnStore;
+import ippoz.multilayer.detector.commons.failure.InjectedElement;
+import ippoz.multilayer.detector.commons.layer.LayerType;
+import ippoz.multilayer.detector.commons.service.ServiceCall;
+import ippoz.multilayer.detector.commons.service.ServiceStat;
+
+import java.util.HashMap;
+import java.util.LinkedList;
+
+/**
+ * The Class CachedRun.
+ * Holds the data of a run read from the experiment cache.
+ *
+ * @author Tommy
+ */
+public class CachedRun {
+	
+	/** The runID. */
+	private String runId;
+	
+	/** The observations. */
+	private ColumnStore obsStore;
+	
+	/** The service calls. */
+	private LinkedList<ServiceCall> callList;
+	
+	/** The injections. */
+	private LinkedList<InjectedElement> injList;
+	
+	/** The service stats. */
+	private HashMap<String, ServiceStat> ssList;
+	
+	/** The performance timings. */
+	private HashMap<String, HashMap<LayerType, LinkedList<Integer>>> timings;
+
+	/**
+	 * Instantiates a new cached run.
+	 *
+	 * @param runId the runID
+	 * @param obsStore the observations
+	 * @param callList the service calls
+	 * @param injList the injections
+	 * @param ssList the service stats
+	 * @param timings the performance timings
+	 */
+	public CachedRun(String runId, ColumnStore obsStore, LinkedList<ServiceCall> callList, LinkedList<InjectedElement> injList, HashMap<String, ServiceStat> ssList, HashMap<String, HashMap<LayerType, LinkedList<Integer>>> timings) {
+		this.runId = runId;
+		this.obsStore = obsStore;
+		this.callList = callList;
+		this.injList = injList;
+		this.ssList = ssList;
+		this.timings = timings;
+	}
+
+	/**
+	 * Gets the runID.
+	 *
+	 * @return the runID
+	 */
+	public String getRunID() {
+		return runId;
+	}
+
+	/**
+	 * Gets the observations.
+	 *
+	 * @return the observations
+	 */
+	public ColumnStore getObservations() {
+		return obsStore;
+	}
+
+	/**
+	 * Gets the service calls.
+	 *
+	 * @return the service calls
+	 */
+	public LinkedList<ServiceCall> getServiceCalls() {
+		return callList;
+	}
+
+	/**
+	 * Gets the injections.
+	 *
+	 * @return the injections
+	 */
+	public LinkedList<InjectedElement> getInjections() {
+		return injList;
+	}
+
+	/**
+	 * Gets the service stats.
+	 *
+	 * @return the service stats
+	 */
+	public HashMap<String, ServiceStat> getServiceStats() {
+		return ssList;
+	}
+
+	/**
+	 * Gets the performance timings.
+	 *
+	 * @return the performance timings
+	 */
+	public HashMap<String, HashMap<LayerType, LinkedList<Integer>>> getPerformanceTimings() {
+		return timings;
+	}
+
+}
@@ -0,0 +1,591 @@
+/**
+ * 
+ */
+package ippoz.multilayer.detector.commons.datafetcher.cache;
+
+import ippoz.multilayer.detector.commons.data.ExperimentData;
+import ippoz.multilayer.detector.commons.data.ColumnStore;
+import ippoz.multilayer.detector.commons.data.DenseColumnStore;
+import ippoz.multilayer.detector.commons.datacategory.DataCategory;
+import ippoz.multilayer.detector.commons.failure.InjectedElement;
+import ippoz.multilayer.detector.commons.indicator.Indicator;
+import ippoz.multilayer.detector.commons.indicator.IndicatorRegistry;
+import ippoz.multilayer.detector.commons.layer.LayerType;
+import ippoz.multilayer.detector.commons.service.IndicatorStat;
+import ippoz.multilayer.detector.commons.service.ServiceCall;
+import ippoz.multilayer.detector.commons.service.ServiceStat;
+import ippoz.multilayer.detector.commons.service.StatPair;
+import ippoz.multilayer.detector.commons.support.AppLogger;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The Class ExperimentCache.
+ * Persistent cache of loaded experiments, stored as one binary file per run.
+ * Each file starts with a header including the validity stamp of the source, then stores the experiment data column by column:
+ * observation timestamps, one column of values for each (indicator, category) pair, service calls, injections, service stats and timings.
+ * Missing indicator values are stored as NaN.
+ * Cached runs can either be loaded into memory, or memory-mapped to read indicator values straight from the file.
+ *
+ * @author Tommy
+ */
+public class ExperimentCache {
+	
+	/** The magic number identifying cache files. */
+	public static final int MAGIC = 0x4D4C4144;
+	
+	/** The version of the cache format. */
+	public static final int VERSION = 1;
+	
+	/** The extension of cache files. */
+	private static final String CACHE_EXTENSION = ".expcache";
+	
+	/** The categories stored in the cache. */
+	private static final DataCategory[] CATEGORIES = {DataCategory.PLAIN, DataCategory.DIFFERENCE};
+	
+	/** The cache folder. */
+	private File cacheFolder;
+	
+	/**
+	 * Instantiates a new experiment cache.
+	 *
+	 * @param cacheFolder the cache folder
+	 */
+	public ExperimentCache(String cacheFolder){
+		this.cacheFolder = new File(cacheFolder);
+		if(!this.cacheFolder.exists() && !this.cacheFolder.mkdirs())
+			AppLogger.logError(getClass(), "CacheError", "Unable to create cache folder '" + cacheFolder + "'");
+	}
+	
+	/**
+	 * Gets the cache file of a run.
+	 *
+	 * @param runId the runID
+	 * @return the cache file
+	 */
+	public File getCacheFile(String runId){
+		return new File(cacheFolder, "run" + runId + CACHE_EXTENSION);
+	}
+	
+	/**
+	 * Checks if the cache of a run is valid, i.e., it exists and was built from the same version of the source.
+	 *
+	 * @param runId the runID
+	 * @param sourceStamp the validity stamp of the source, or null if the source cannot be checked
+	 * @return true, if the cached run can be used
+	 */
+	public boolean isValid(String runId, String sourceStamp){
+		File cacheFile = getCacheFile(runId);
+		if(!cacheFile.exists())
+			return false;
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(cacheFile)))) {
+			if(in.readInt() != MAGIC || in.readInt() != VERSION)
+				return false;
+			return sourceStamp == null || sourceStamp.equals(in.readUTF());
+		} catch (IOException ex) {
+			AppLogger.logException(getClass(), ex, "Unable to read cache of run " + runId);
+			return false;
+		}
+	}
+	
+	/**
+	 * Stores an experiment in the cache.
+	 * The file is written aside and then moved, so that readers never see partial files.
+	 *
+	 * @param runId the runID
+	 * @param sourceStamp the validity stamp of the source
+	 * @param expData the experiment data
+	 * @return true, if the experiment is stored
+	 */
+	public boolean store(String runId, String sourceStamp, ExperimentData expData){
+		File cacheFile = getCacheFile(runId);
+		File tempFile = new File(cacheFolder, cacheFile.getName() + ".tmp");
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeUTF(sourceStamp != null ? sourceStamp : "");
+			out.writeUTF(runId);
+			writeObservations(out, expData.getColumnStore());
+			writeServiceCalls(out, expData.getServiceCalls());
+			writeInjections(out, expData.getInjections());
+			writeServiceStats(out, expData.getServiceStats());
+			writeTimings(out, expData.getMonitorPerformanceIndexes());
+		} catch (IOException ex) {
+			AppLogger.logException(getClass(), ex, "Unable to write cache of run " + runId);
+			tempFile.delete();
+			return false;
+		}
+		try {
+			Files.move(tempFile.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			return true;
+		} catch (IOException ex) {
+			AppLogger.logException(getClass(), ex, "Unable to store cache of run " + runId);
+			tempFile.delete();
+			return false;
+		}
+	}
+	
+	/**
+	 * Loads a cached run.
+	 *
+	 * @param runId the runID
+	 * @return the cached run, null if it cannot be read
+	 */
+	public CachedRun load(String runId){
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(getCacheFile(runId))))) {
+			if(in.readInt() != MAGIC || in.readInt() != VERSION){
+				AppLogger.logError(getClass(), "CacheError", "Unsupported cache file for run " + runId);
+				return null;
+			}
+			in.readUTF();
+			return new CachedRun(in.readUTF(), readObservations(in), readServiceCalls(in), readInjections(in), readServiceStats(in), readTimings(in));
+		} catch (IOException | IllegalArgumentException ex) {
+			AppLogger.logException(getClass(), ex, "Unable to read cache of run " + runId);
+			return null;
+		}
+	}
+	
+	/**
+	 * Maps a cached run into memory.
+	 * Observations of the mapped run are stored in a {@link MappedColumnStore}, reading values from the mapped file.
+	 *
+	 * @param runId the runID
+	 * @return the cached run, null if it cannot be read
+	 */
+	public CachedRun map(String runId){
+		try (FileChannel channel = FileChannel.open(getCacheFile(runId).toPath(), StandardOpenOption.READ)) {
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			DataInputStream in = new DataInputStream(new BufferInputStream(buffer));
+			if(in.readInt() != MAGIC || in.readInt() != VERSION){
+				AppLogger.logError(getClass(), "CacheError", "Unsupported cache file for run " + runId);
+				return null;
+			}
+			in.readUTF();
+			return new CachedRun(in.readUTF(), mapObservations(in, buffer), readServiceCalls(in), readInjections(in), readServiceStats(in), readTimings(in));
+		} catch (IOException | IllegalArgumentException ex) {
+			AppLogger.logException(getClass(), ex, "Unable to map cache of run " + runId);
+			return null;
+		}
+	}
+	
+	/**
+	 * Maps the observations.
+	 * The header of the observations is read from the stream, then the value columns are sliced from the buffer and skipped.
+	 *
+	 * @param in the input stream, reading from the buffer
+	 * @param buffer the mapped buffer
+	 * @return the observations
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private static ColumnStore mapObservations(DataInputStream in, ByteBuffer buffer) throws IOException {
+		Indicator[] indicators = readIndicators(in);
+		DataCategory[] categories = readCategories(in);
+		long[] timestamps = new long[in.readInt()];
+		for(int t=0;t<timestamps.length;t++){
+			timestamps[t] = in.readLong();
+		}
+		int nValues = indicators.length*categories.length*timestamps.length;
+		ByteBuffer columns = buffer.duplicate();
+		columns.limit(columns.position() + nValues*Double.BYTES);
+		DoubleBuffer values = columns.slice().asDoubleBuffer();
+		buffer.position(buffer.position() + nValues*Double.BYTES);
+		return new MappedColumnStore(indicators, categories, timestamps, values);
+	}
+	
+	/**
+	 * Writes the observations, column by column.
+	 *
+	 * @param out the output stream
+	 * @param obsStore the observations
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private static void writeObservations(DataOutputStream out, ColumnStore obsStore) throws IOException {
+		Indicator[] indicators = obsStore.getIndicators();
+		out.writeInt(indicators.length);
+		for(Indicator ind : indicators){
+			out.writeUTF(ind.getName());
+			out.writeUTF(ind.getLayer() != null ? ind.getLayer().toString() : "");
+		}
+		out.writeInt(CATEGORIES.length);
+		for(DataCategory cat : CATEGORIES){
+			out.writeUTF(cat.toString());
+		}
+		out.writeInt(obsStore.size());
+		for(int t=0;t<obsStore.size();t++){
+			out.writeLong(obsStore.getTimestamp(t));
+		}
+		for(int i=0;i<indicators.length;i++){
+			for(DataCategory cat : CATEGORIES){
+				for(int t=0;t<obsStore.size();t++){
+					out.writeDouble(obsStore.getValue(i, cat, t));
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Reads the observations.
+	 *
+	 * @param in the input stream
+	 * @return the observations
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private static ColumnStore readObservations(DataInputStream in) throws IOException {
+		Indicator[] indicators = readIndicators(in);
+		DataCategory[] categories = readCategories(in);
+		long[] timestamps = new long[in.readInt()];
+		double[][][] values = new double[DataCategory.values().length][][];
+		for(int t=0;t<timestamps.length;t++){
+			timestamps[t] = in.readLong();
+		}
+		for(DataCategory cat : categories){
+			values[cat.ordinal()] = new double[indicators.length][timestamps.length];
+		}
+		for(int i=0;i<indicators.length;i++){
+			for(DataCategory cat : categories){
+				double[] column = values[cat.ordinal()][i];
+				for(int t=0;t<timestamps.length;t++){
+					column[t] = in.readDouble();
+				}
+			}
+		}
+		return new DenseColumnStore(indicators, timestamps, values);
+	}
+	
+	/**
+	 * Reads the stored indicators.
+	 *
+	 * @param in the input stream
+	 * @return the indicators
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private static Indicator[] readIndicators(DataInputStream in) throws IOException {
+		Indicator[] indicators = new Indicator[in.readInt()];
+		for(int i=0;i<indicators.length;i++){
+			indicators[i] = IndicatorRegistry.getIndicator(in.readUTF(), readLayer(in.readUTF()), String.class);
+		}
+		return indicators;
+	}
+	
+	/**
+	 * Reads the stored categories.
+	 *
+	 * @param in the input stream
+	 * @return the categories
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private static DataCategory[] readCategories(DataInputStream in) throws IOException {
+		DataCategory[] categories = new DataCategory[in.readInt()];
+		for(int c=0;c<categories.length;c++){
+			categories[c] = DataCategory.valueOf(in.readUTF());
+		}
+		return categories;
+	}
+	
+	/**
+	 * Reads a layer.
+	 *
+	 * @param layer the layer string
+	 * @return the layer, null if empty
+	 */
+	private static LayerType readLayer(String layer){
+		return layer.length() > 0 ? LayerType.valueOf(layer) : null;
+	}
+	
+	/**
+	 * Writes the service calls, column by column.
+	 *
+	 * @param out the output stream
+	 * @param callList the service calls
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private static void writeServiceCalls(DataOutputStream out, List<ServiceCall> callList) throws IOException {
+		out.writeInt(callList.size());
+		for(ServiceCall call : callList){
+			out.writeUTF(call.getServiceName());
+		}
+		for(ServiceCall call : callList){
+			out.writeLong(call.getStartTime());
+		}
+		for(ServiceCall call : callList){
+			out.writeLong(call.getEndTime());
+		}
+		for(ServiceCall call : callList){
+			writeNullableString(out, call.getResponseCode());
+		}
+	}
+	
+	/**
+	 * Reads the service calls.
+	 *
+	 * @param in the input stream
+	 * @return the service calls
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private static LinkedList<ServiceCall> readServiceCalls(DataInputStream in) throws IOException {
+		String[] names = new String[in.readInt()];
+		long[] starts = new long[names.length];
+		long[] ends = new long[names.length];
+		LinkedList<ServiceCall> callList = new LinkedList<ServiceCall>();
+		for(int i=0;i<names.length;i++){
+			names[i] = in.readUTF();
+		}
+		for(int i=0;i<names.length;i++){
+			starts[i] = in.readLong();
+		}
+		for(int i=0;i<names.length;i++){
+			ends[i] = in.readLong();
+		}
+		for(int i=0;i<names.length;i++){
+			callList.add(new ServiceCall(names[i], starts[i], ends[i], readNullableString(in)));
+		}
+		return callList;
+	}
+	
+	/**
+	 * Writes the injections, column by column.
+	 *
+	 * @param out the output stream
+	 * @param injList the injections
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private static void writeInjections(DataOutputStream out, List<InjectedElement> injList) throws IOException {
+		out.writeInt(injList.size());
+		for(InjectedElement inj : injList){
+			out.writeLong(inj.getTimestamp());
+		}
+		for(InjectedElement inj : injList){
+			out.writeInt(inj.getDuration());
+		}
+		for(InjectedElement inj : injList){
+			writeNullableString(out, inj.getDescription());
+		}
+	}
+	
+	/**
+	 * Reads the injections.
+	 *
+	 * @param in the input stream
+	 * @return the injections
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private static LinkedList<InjectedElement> readInjections(DataInputStream in) throws IOException {
+		long[] timestamps = new long[in.readInt()];
+		int[] durations = new int[timestamps.length];
+		LinkedList<InjectedElement> injList = new LinkedList<InjectedElement>();
+		for(int i=0;i<timestamps.length;i++){
+			timestamps[i] = in.readLong();
+		}
+		for(int i=0;i<timestamps.length;i++){
+			durations[i] = in.readInt();
+		}
+		for(int i=0;i<timestamps.length;i++){
+			injList.add(new InjectedElement(timestamps[i], readNullableString(in), durations[i]));
+		}
+		return injList;
+	}
+	
+	/**
+	 * Writes the service stats.
+	 *
+	 * @param out the output stream
+	 * @param ssList the service stats
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private static void writeServiceStats(DataOutputStream out, Map<String, ServiceStat> ssList) throws IOException {
+		out.writeInt(ssList.size());
+		for(String serviceName : ssList.keySet()){
+			ServiceStat stat = ssList.get(serviceName);
+			out.writeUTF(serviceName);
+			writeStatPair(out, stat.getObsStat());
+			writeStatPair(out, stat.getTimeStat());
+			out.writeInt(stat.getIndStats().size());
+			for(IndicatorStat indStat : stat.getIndStats()){
+				out.writeUTF(indStat.getName());
+				writeStatPair(out, indStat.getFirstObs());
+				writeStatPair(out, indStat.getLastObs());
+				writeStatPair(out, indStat.getAllObs());
+			}
+		}
+	}
+	
+	/**
+	 * Reads the service stats.
+	 *
+	 * @param in the input stream
+	 * @return the service stats
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private static HashMap<String, ServiceStat> readServiceStats(DataInputStream in) throws IOException {
+		HashMap<String, ServiceStat> ssList = new HashMap<String, ServiceStat>();
+		int nStats = in.readInt();
+		for(int i=0;i<nStats;i++){
+			String serviceName = in.readUTF();
+			ServiceStat stat = new ServiceStat(serviceName, readStatPair(in), readStatPair(in));
+			int nIndStats = in.readInt();
+			for(int j=0;j<nIndStats;j++){
+				stat.addIndicatorStat(new IndicatorStat(in.readUTF(), readStatPair(in), readStatPair(in), readStatPair(in)));
+			}
+			ssList.put(serviceName, stat);
+		}
+		return ssList;
+	}
+	
+	/**
+	 * Writes the performance timings.
+	 *
+	 * @param out the output stream
+	 * @param timings the timings
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private static void writeTimings(DataOutputStream out, Map<String, Map<LayerType, List<Integer>>> timings) throws IOException {
+		out.writeInt(timings.size());
+		for(String perfType : timings.keySet()){
+			out.writeUTF(perfType);
+			out.writeInt(timings.get(perfType).size());
+			for(LayerType layer : timings.get(perfType).keySet()){
+				out.writeUTF(layer != null ? layer.toString() : "");
+				out.writeInt(timings.get(perfType).get(layer).size());
+				for(Integer timing : timings.get(perfType).get(layer)){
+					out.writeInt(timing);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Reads the performance timings.
+	 *
+	 * @param in the input stream
+	 * @return the timings
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private static HashMap<String, HashMap<LayerType, LinkedList<Integer>>> readTimings(DataInputStream in) throws IOException {
+		HashMap<String, HashMap<LayerType, LinkedList<Integer>>> timings = new HashMap<String, HashMap<LayerType, LinkedList<Integer>>>();
+		int nTypes = in.readInt();
+		for(int i=0;i<nTypes;i++){
+			HashMap<LayerType, LinkedList<Integer>> typeTimings = new HashMap<LayerType, LinkedList<Integer>>();
+			timings.put(in.readUTF(), typeTimings);
+			int nLayers = in.readInt();
+			for(int j=0;j<nLayers;j++){
+				LinkedList<Integer> layerTimings = new LinkedList<Integer>();
+				typeTimings.put(readLayer(in.readUTF()), layerTimings);
+				int nTimings = in.readInt();
+				for(int k=0;k<nTimings;k++){
+					layerTimings.add(in.readInt());
+				}
+			}
+		}
+		return timings;
+	}
+	
+	/**
+	 * Writes a stat pair.
+	 *
+	 * @param out the output stream
+	 * @param pair the stat pair
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private static void writeStatPair(DataOutputStream out, StatPair pair) throws IOException {
+		out.writeDouble(pair.getAvg());
+		out.writeDouble(pair.getStd());
+	}
+	
+	/**
+	 * Reads a stat pair.
+	 *
+	 * @param in the input stream
+	 * @return the stat pair
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private static StatPair readStatPair(DataInputStream in) throws IOException {
+		return new StatPair(in.readDouble(), in.readDouble());
+	}
+	
+	/**
+	 * Writes a string that may be null.
+	 *
+	 * @param out the output stream
+	 * @param value the string
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private static void writeNullableString(DataOutputStream out, String value) throws IOException {
+		out.writeBoolean(value != null);
+		if(value != null)
+			out.writeUTF(value);
+	}
+	
+	/**
+	 * Reads a string that may be null.
+	 *
+	 * @param in the input stream
+	 * @return the string
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private static String readNullableString(DataInputStream in) throws IOException {
+		return in.readBoolean() ? in.readUTF() : null;
+	}
+
+	
+	/**
+	 * The Class BufferInputStream.
+	 * Input stream reading from a buffer, leaving the buffer positioned right after the last byte read.
+	 */
+	private static class BufferInputStream extends InputStream {
+		
+		/** The buffer. */
+		private ByteBuffer buffer;
+		
+		/**
+		 * Instantiates a new buffer input stream.
+		 *
+		 * @param buffer the buffer
+		 */
+		public BufferInputStream(ByteBuffer buffer){
+			this.buffer = buffer;
+		}
+
+		/* (non-Javadoc)
+		 * @see java.io.InputStream#read()
+		 */
+		@Override
+		public int read() throws IOException {
+			return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+		}
+
+		/* (non-Javadoc)
+		 * @see java.io.InputStream#read(byte[], int, int)
+		 */
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			if(len == 0)
+				return 0;
+			if(!buffer.hasRemaining())
+				return -1;
+			len = Math.min(len, buffer.remaining());
+			buffer.get(b, off, len);
+			return len;
+		}
+		
+	}
+
+}
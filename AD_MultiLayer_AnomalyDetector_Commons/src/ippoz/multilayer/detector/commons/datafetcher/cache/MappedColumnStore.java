@@ -0,0 +1,194 @@
+/**
+ * 
+ */
+package ippoz.multilayer.detector.commons.datafetcher.cache;
+
+import ippoz.multilayer.detector.commons.data.ColumnStore;
+import ippoz.multilayer.detector.commons.datacategory.DataCategory;
+import ippoz.multilayer.detector.commons.indicator.Indicator;
+
+import java.nio.DoubleBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * The Class MappedColumnStore.
+ * Column store whose values are read straight from a memory-mapped cache file.
+ * Values are never copied: each column is a region of the mapped buffer, accessed with absolute reads only, so that the store can be shared among threads.
+ *
+ * @author Tommy
+ */
+public class MappedColumnStore implements ColumnStore {
+	
+	/** The stored indicators. */
+	private Indicator[] indicators;
+	
+	/** The position of each indicator, by name: the first one if indicators of different layers share the name. */
+	private HashMap<String, Integer> indicatorIndexes;
+	
+	/** The position of each indicator, by registry id (-1 if not stored). */
+	private int[] idIndexes;
+	
+	/** The stored categories. */
+	private DataCategory[] categories;
+	
+	/** The position of each category, by ordinal. */
+	private int[] categoryIndexes;
+	
+	/** The observation timestamps. */
+	private long[] timestamps;
+	
+	/** The mapped values, column by column. */
+	private DoubleBuffer values;
+	
+	/**
+	 * Instantiates a new mapped column store.
+	 *
+	 * @param indicators the stored indicators
+	 * @param categories the stored categories
+	 * @param timestamps the observation timestamps
+	 * @param values the mapped values, one column of timestamps.length values for each (indicator, category) pair
+	 */
+	public MappedColumnStore(Indicator[] indicators, DataCategory[] categories, long[] timestamps, DoubleBuffer values) {
+		this.indicators = indicators;
+		this.categories = categories;
+		this.timestamps = timestamps;
+		this.values = values;
+		indicatorIndexes = new HashMap<String, Integer>();
+		for(int i=0;i<indicators.length;i++){
+			indicatorIndexes.putIfAbsent(indicators[i].getName(), i);
+		}
+		idIndexes = buildIdIndexes(indicators);
+		categoryIndexes = new int[DataCategory.values().length];
+		for(int c=0;c<categoryIndexes.length;c++){
+			categoryIndexes[c] = -1;
+		}
+		for(int c=0;c<categories.length;c++){
+			categoryIndexes[categories[c].ordinal()] = c;
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see ippoz.multilayer.detector.commons.data.ColumnStore#size()
+	 */
+	@Override
+	public int size() {
+		return timestamps.length;
+	}
+
+	/* (non-Javadoc)
+	 * @see ippoz.multilayer.detector.commons.data.ColumnStore#getIndicators()
+	 */
+	@Override
+	public Indicator[] getIndicators() {
+		return indicators.clone();
+	}
+
+	/* (non-Javadoc)
+	 * @see ippoz.multilayer.detector.commons.data.ColumnStore#getIndicatorIndex(java.lang.String)
+	 */
+	@Override
+	public int getIndicatorIndex(String indicatorName) {
+		Integer index = indicatorIndexes.get(indicatorName);
+		return index != null ? index : -1;
+	}
+
+	/* (non-Javadoc)
+	 * @see ippoz.multilayer.detector.commons.data.ColumnStore#getIndicatorIndex(ippoz.multilayer.detector.commons.indicator.Indicator)
+	 */
+	@Override
+	public int getIndicatorIndex(Indicator indicator) {
+		int id = indicator.getId();
+		if(id < idIndexes.length && idIndexes[id] >= 0)
+			return idIndexes[id];
+		else return -1;
+	}
+
+	/* (non-Javadoc)
+	 * @see ippoz.multilayer.detector.commons.data.ColumnStore#getTimestamp(int)
+	 */
+	@Override
+	public long getTimestamp(int index) {
+		return timestamps[index];
+	}
+
+	/* (non-Javadoc)
+	 * @see ippoz.multilayer.detector.commons.data.ColumnStore#getValue(int, ippoz.multilayer.detector.commons.datacategory.DataCategory, int)
+	 */
+	@Override
+	public double getValue(int indicatorIndex, DataCategory categoryTag, int index) {
+		int catIndex = categoryIndexes[categoryTag.ordinal()];
+		if(catIndex < 0)
+			return Double.NaN;
+		return values.get(getColumnOffset(indicatorIndex, catIndex) + index);
+	}
+	
+	/* (non-Javadoc)
+	 * @see ippoz.multilayer.detector.commons.data.ColumnStore#copyColumn(int, ippoz.multilayer.detector.commons.datacategory.DataCategory)
+	 */
+	@Override
+	public double[] copyColumn(int indicatorIndex, DataCategory categoryTag) {
+		double[] column = new double[timestamps.length];
+		DoubleBuffer mapped = getColumn(indicatorIndex, categoryTag);
+		if(mapped != null)
+			mapped.get(column);
+		else Arrays.fill(column, Double.NaN);
+		return column;
+	}
+
+	/* (non-Javadoc)
+	 * @see ippoz.multilayer.detector.commons.data.ColumnStore#close()
+	 */
+	@Override
+	public void close() {
+		// the file is unmapped by the garbage collector
+	}
+	
+	/**
+	 * Gets a column of the store as a read-only view on the mapped buffer.
+	 *
+	 * @param indicatorIndex the indicator index
+	 * @param categoryTag the data category (plain, diff)
+	 * @return the column, null if the category is not stored
+	 */
+	public DoubleBuffer getColumn(int indicatorIndex, DataCategory categoryTag) {
+		int catIndex = categoryIndexes[categoryTag.ordinal()];
+		if(catIndex < 0)
+			return null;
+		DoubleBuffer column = values.duplicate();
+		column.position(getColumnOffset(indicatorIndex, catIndex));
+		column.limit(column.position() + timestamps.length);
+		return column.slice().asReadOnlyBuffer();
+	}
+	
+	/**
+	 * Builds the positions of the stored indicators, indexed by registry id.
+	 *
+	 * @param indicators the stored indicators
+	 * @return the positions, -1 for the ids that are not stored
+	 */
+	private static int[] buildIdIndexes(Indicator[] indicators) {
+		int maxId = -1;
+		for(Indicator ind : indicators){
+			maxId = Math.max(maxId, ind.getId());
+		}
+		int[] idIndexes = new int[maxId + 1];
+		Arrays.fill(idIndexes, -1);
+		for(int i=0;i<indicators.length;i++){
+			idIndexes[indicators[i].getId()] = i;
+		}
+		return idIndexes;
+	}
+	
+	/**
+	 * Gets the offset of a column in the mapped values.
+	 *
+	 * @param indicatorIndex the indicator index
+	 * @param catIndex the position of the category
+	 * @return the offset of the column
+	 */
+	private int getColumnOffset(int indicatorIndex, int catIndex){
+		return (indicatorIndex*categories.length + catIndex)*timestamps.length;
+	}
+
+}
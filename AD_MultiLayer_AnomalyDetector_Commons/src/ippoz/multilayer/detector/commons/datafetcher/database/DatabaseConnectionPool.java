@@ -0,0 +1,180 @@
+/**
+ * 
+ */
+package ippoz.multilayer.detector.commons.datafetcher.database;
+
+import ippoz.multilayer.detector.commons.support.AppLogger;
+
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.function.Supplier;
+
+/**
+ * The Class DatabaseConnectionPool.
+ * Bounded pool of database connectors, shared by all the fetchers that load data from the same database.
+ * Connectors are opened lazily, up to the pool size, and reused until the pool is closed.
+ * The most recently released connector is handed out first, so that its prepared statements are reused.
+ * The pool also caches the run-independent tables (e.g., layers, service stats), which are read only once.
+ *
+ * @author Tommy
+ */
+public class DatabaseConnectionPool {
+	
+	/** The database name. */
+	private String dbName;
+	
+	/** The database username. */
+	private String username;
+	
+	/** The database password. */
+	private String password;
+	
+	/** The maximum number of open connectors. */
+	private int poolSize;
+	
+	/** The number of open connectors. */
+	private int openConnectors;
+	
+	/** The idle connectors. */
+	private LinkedList<DatabaseConnector> idleConnectors;
+	
+	/** The closed flag. */
+	private boolean closed;
+	
+	/** The run-independent tables, by tag. */
+	private HashMap<String, Object> sharedTables;
+	
+	/** The lock guarding the loading of the shared tables. */
+	private final Object sharedLock = new Object();
+	
+	/**
+	 * Instantiates a new database connection pool.
+	 *
+	 * @param dbName the database name
+	 * @param username the database username
+	 * @param password the database password
+	 * @param poolSize the maximum number of open connections
+	 */
+	public DatabaseConnectionPool(String dbName, String username, String password, int poolSize){
+		this.dbName = dbName;
+		this.username = username;
+		this.password = password;
+		this.poolSize = poolSize > 0 ? poolSize : 1;
+		idleConnectors = new LinkedList<DatabaseConnector>();
+		sharedTables = new HashMap<String, Object>();
+		openConnectors = 0;
+		closed = false;
+	}
+	
+	/**
+	 * Acquires a connector, waiting if all the connectors are in use.
+	 *
+	 * @return the connector, null if the pool is closed or the connection cannot be established
+	 */
+	public DatabaseConnector acquire(){
+		synchronized(this){
+			try {
+				while(!closed && idleConnectors.isEmpty() && openConnectors >= poolSize){
+					wait();
+				}
+			} catch (InterruptedException ex) {
+				AppLogger.logException(getClass(), ex, "Interrupted while waiting for a DB connection");
+				Thread.currentThread().interrupt();
+				return null;
+			}
+			if(closed)
+				return null;
+			if(!idleConnectors.isEmpty())
+				return idleConnectors.removeFirst();
+			openConnectors++;
+		}
+		DatabaseConnector connector = new DatabaseConnector(dbName, username, password, false);
+		if(connector.getConnection() == null){
+			discard();
+			return null;
+		}
+		return connector;
+	}
+	
+	/**
+	 * Releases a connector, making it available for other fetchers.
+	 *
+	 * @param connector the connector
+	 */
+	public void release(DatabaseConnector connector){
+		if(connector != null){
+			synchronized(this){
+				if(!closed){
+					idleConnectors.addFirst(connector);
+					notifyAll();
+					return;
+				}
+			}
+			closeConnector(connector);
+			discard();
+		}
+	}
+	
+	/**
+	 * Forgets about an open connector.
+	 */
+	private synchronized void discard(){
+		openConnectors--;
+		notifyAll();
+	}
+	
+	/**
+	 * Gets a run-independent table, loading it the first time it is requested.
+	 * Tables that cannot be loaded (i.e., the loader returns null) are requested again on the next call.
+	 *
+	 * @param <T> the type of the table
+	 * @param tableTag the table tag
+	 * @param loader the table loader
+	 * @return the table
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> T getSharedTable(String tableTag, Supplier<T> loader){
+		synchronized(sharedLock){
+			Object table = sharedTables.get(tableTag);
+			if(table == null){
+				table = loader.get();
+				if(table != null)
+					sharedTables.put(tableTag, table);
+			}
+			return (T)table;
+		}
+	}
+	
+	/**
+	 * Closes the pool and all the idle connectors.
+	 * Connectors in use are closed as soon as they are released.
+	 */
+	public void close(){
+		LinkedList<DatabaseConnector> toClose;
+		synchronized(this){
+			closed = true;
+			toClose = idleConnectors;
+			openConnectors = openConnectors - toClose.size();
+			idleConnectors = new LinkedList<DatabaseConnector>();
+			notifyAll();
+		}
+		for(DatabaseConnector connector : toClose){
+			closeConnector(connector);
+		}
+	}
+	
+	/**
+	 * Closes a connector.
+	 *
+	 * @param connector the connector
+	 */
+	private void closeConnector(DatabaseConnector connector){
+		try {
+			connector.closeConnection();
+		} catch (SQLException ex) {
+			AppLogger.logException(getClass(), ex, "Unable to close SQL Connection");
+		}
+	}
+
+}
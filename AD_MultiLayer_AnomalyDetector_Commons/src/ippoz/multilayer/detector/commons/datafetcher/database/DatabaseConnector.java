@@ -11,10 +11,15 @@ import java.io.FileReader;
 import java.io.Reader;
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.LinkedList;
 
@@ -28,9 +33,21 @@ import com.ibatis.common.jdbc.ScriptRunner;
  */
 public class DatabaseConnector {
 	
+	/** The fetch size used by streamed queries on drivers that do not support row-by-row streaming. */
+	private static final int DEFAULT_FETCH_SIZE = 1000;
+	
+	/** The connection options for MySQL: statements are prepared on the server, so they are parsed and planned once. */
+	private static final String MYSQL_OPTIONS = "?useServerPrepStmts=true";
+	
 	/** The basic connection. */
 	private Connection conn;
 	
+	/** The fetch size used by streamed queries. */
+	private int streamFetchSize;
+	
+	/** The prepared statements, by query. */
+	private HashMap<String, PreparedStatement> statements;
+	
 	/**
 	 * Instantiates a new database connector.
 	 *
@@ -59,8 +76,10 @@ public class DatabaseConnector {
 				dbName = "experiment";
 				createDatabase(url, dbName, username, password);
 			}
+			statements = new HashMap<String, PreparedStatement>();
+			streamFetchSize = url.startsWith("jdbc:mysql") ? Integer.MIN_VALUE : DEFAULT_FETCH_SIZE;
 			Class.forName(driver).newInstance();
-			conn = DriverManager.getConnection(url + dbName, username, password);
+			conn = DriverManager.getConnection(url + dbName + (url.startsWith("jdbc:mysql") ? MYSQL_OPTIONS : ""), username, password);
 		} catch (InstantiationException | IllegalAccessException | ClassNotFoundException | SQLException e) {
 			AppLogger.logException(getClass(), e, "Impossible to estalish DB connection");
 		} 
@@ -98,47 +117,135 @@ public class DatabaseConnector {
 	 * Executes query.
 	 *
 	 * @param query the SQL query
+	 * @param params the parameters, bound to the '?' placeholders of the query
 	 * @return the array list containing the results of the query
 	 */
-	protected ArrayList<HashMap<String, String>> executeQuery(String query){
-		Statement stmt = null;
+	protected ArrayList<HashMap<String, String>> executeQuery(String query, Object... params){
 		ResultSet rs = null;
 		try {
-			stmt = conn.createStatement();
-			//AppLogger.logInfo(getClass(), "QUERY: " + query);
-			rs = stmt.executeQuery(query);
+			rs = prepare(query, params).executeQuery();
 			return parseResultSet(rs);
 		} catch (SQLException e) {
 			AppLogger.logException(getClass(), e, "Query not executed: '" + query + "'");
+		} finally {
+			closeQuietly(rs);
 		}
 		return null;
 	}
 	
+	/**
+	 * Gets the prepared statement for a query, preparing it the first time the query is used on this connection,
+	 * and binds the parameters.
+	 *
+	 * @param query the SQL query
+	 * @param params the parameters
+	 * @return the prepared statement
+	 * @throws SQLException the SQL exception
+	 */
+	private PreparedStatement prepare(String query, Object... params) throws SQLException {
+		PreparedStatement stmt = statements.get(query);
+		if(stmt == null){
+			stmt = conn.prepareStatement(query, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+			stmt.setFetchSize(streamFetchSize);
+			statements.put(query, stmt);
+		} else stmt.clearParameters();
+		if(params != null){
+			for(int i=0;i<params.length;i++){
+				bindParameter(stmt, i+1, params[i]);
+			}
+		}
+		return stmt;
+	}
+	
+	/**
+	 * Binds a parameter to a prepared statement, depending on its type.
+	 *
+	 * @param stmt the prepared statement
+	 * @param index the parameter index
+	 * @param param the parameter value
+	 * @throws SQLException the SQL exception
+	 */
+	private static void bindParameter(PreparedStatement stmt, int index, Object param) throws SQLException {
+		if(param == null)
+			stmt.setNull(index, Types.NULL);
+		else if(param instanceof Integer)
+			stmt.setInt(index, (Integer)param);
+		else if(param instanceof Long)
+			stmt.setLong(index, (Long)param);
+		else if(param instanceof Double)
+			stmt.setDouble(index, (Double)param);
+		else if(param instanceof String)
+			stmt.setString(index, (String)param);
+		else if(param instanceof Date)
+			stmt.setTimestamp(index, new Timestamp(((Date)param).getTime()));
+		else stmt.setObject(index, param);
+	}
+	
+	/**
+	 * Executes a query streaming its rows, one at a time, to the given handler.
+	 * The query is prepared once per connection and the parameters are bound to its '?' placeholders.
+	 * The result set is forward-only and read-only, so the driver does not buffer the whole result.
+	 * The handler must not issue other queries on this connector while the result is being streamed.
+	 *
+	 * @param query the SQL query
+	 * @param handler the row handler
+	 * @param params the parameters
+	 * @return true, if the query is fully consumed
+	 */
+	public boolean streamQuery(String query, RowHandler handler, Object... params){
+		ResultSet rs = null;
+		try {
+			rs = prepare(query, params).executeQuery();
+			ResultRow row = new ResultRow(rs);
+			while(rs.next()){
+				handler.handleRow(row);
+			}
+			return true;
+		} catch (SQLException e) {
+			AppLogger.logException(getClass(), e, "Query not executed: '" + query + "'");
+		} finally {
+			closeQuietly(rs);
+		}
+		return false;
+	}
+	
+	/**
+	 * Closes a result set, ignoring errors.
+	 * Statements are kept open, to be reused by the next execution of the same query.
+	 *
+	 * @param rs the result set
+	 */
+	private void closeQuietly(ResultSet rs){
+		try {
+			if(rs != null)
+				rs.close();
+		} catch (SQLException e) {
+			AppLogger.logException(getClass(), e, "Unable to close result set");
+		}
+	}
+	
 	/**
 	 * Closes basic connection.
 	 *
 	 * @throws SQLException the SQL exception
 	 */
 	public void closeConnection() throws SQLException{
+		for(PreparedStatement stmt : statements.values()){
+			stmt.close();
+		}
+		statements.clear();
 		conn.close();
 	}
 	
 	/**
 	 * Execute a given query passed by string.
 	 *
-	 * @param params the parameters
+	 * @param params the parameters, bound to the '?' placeholders of the query
 	 * @param query the query
 	 * @return the resulting arraylist
 	 */
 	public ArrayList<HashMap<String, String>> executeCustomQuery(String[] params, String query){
-		int i = 0;
-		while(query.indexOf("?") != -1){
-			if(params.length <= i){
-				AppLogger.logError(DatabaseConnector.class, "SQLError", "Malformed parameters list");
-			} else query = query.substring(0, query.indexOf("?")) + params[i] + query.substring(query.indexOf("?")+1);
-			i++;
-		}
-		return executeQuery(query);
+		return executeQuery(query, (Object[])params);
 	}
 	
 	/**
@@ -151,7 +258,7 @@ public class DatabaseConnector {
 	 * @return the resulting arraylist
 	 */
 	public ArrayList<HashMap<String, String>> executeBuildedQuery(String[] params, String[] tables, String filter, String[] orders){
-		return executeQuery(buildQuery(params, tables, filter, orders));
+		return executeQuery(buildQuery(params, tables, filter, orders), (Object[])null);
 	}
 	
 	/**
@@ -195,11 +302,15 @@ public class DatabaseConnector {
 		ArrayList<HashMap<String, String>> list = null;
 		try {
 			list = new ArrayList<HashMap<String, String>>();
-			rs.beforeFirst();
+			ResultSetMetaData metaData = rs.getMetaData();
+			String[] labels = new String[metaData.getColumnCount()];
+			for(int i=0;i<labels.length;i++){
+				labels[i] = metaData.getColumnLabel(i+1);
+			}
 			while(rs.next()){
 				partial = new HashMap<String, String>();
-				for(int i=1;i<=rs.getMetaData().getColumnCount();i++){
-					partial.put(rs.getMetaData().getColumnLabel(i), rs.getString(i));
+				for(int i=0;i<labels.length;i++){
+					partial.put(labels[i], rs.getString(i+1));
 				}
 				list.add(partial);
 			}
@@ -1,10 +1,10 @@
 package ippoz.multilayer.detector.commons.datafetcher.database;
 
-import ippoz.multilayer.detector.commons.data.IndicatorData;
-import ippoz.multilayer.detector.commons.data.Observation;
+import ippoz.multilayer.detector.commons.data.ColumnStore;
+import ippoz.multilayer.detector.commons.data.DenseColumnStore;
 import ippoz.multilayer.detector.commons.datacategory.DataCategory;
 import ippoz.multilayer.detector.commons.failure.InjectedElement;
-import ippoz.multilayer.detector.commons.indicator.Indicator;
+import ippoz.multilayer.detector.commons.indicator.IndicatorRegistry;
 import ippoz.multilayer.detector.commons.layer.LayerType;
 import ippoz.multilayer.detector.commons.service.IndicatorStat;
 import ippoz.multilayer.detector.commons.service.ServiceCall;
@@ -14,35 +14,125 @@ import ippoz.multilayer.detector.commons.support.AppLogger;
 import ippoz.multilayer.detector.commons.support.AppUtility;
 
 import java.sql.SQLException;
-import java.util.Date;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedList;
+import java.util.List;
 
 /**
  * The Class DatabaseManager.
- * Instantiates a MYSQL Database manager
+ * Instantiates a MYSQL Database manager.
+ * The manager loads a block of runs with a few set-based queries (run_id in ...), then hands out the data of each run.
+ * Run-independent tables are loaded once and shared through the connection pool.
  *
  * @author Tommy
  */
 public class DatabaseManager {
 
     /**
-     * The database connector.
+     * The tag of the shared layers table.
      */
-    private DatabaseConnector connector;
+    private static final String LAYERS_TABLE = "probe_type";
 
     /**
-     * The runID.
+     * The tag of the shared service stats table.
      */
-    private String runId;
+    private static final String SERVICE_STATS_TABLE = "service_stat";
 
     /**
-     * The map of the layers.
+     * The tag of the shared performance types table.
      */
-    private HashMap<String, LayerType> layers;
+    private static final String PERFORMANCE_TYPES_TABLE = "performance_type";
 
     /**
-     * Instantiates a new database manager.
+     * The tables joined to load the observations, one row per (observation, indicator, category).
+     */
+    private static final String OBSERVATION_SOURCE = "observation o "
+            + "left join (select indicator_observation_id, observation_id, probe_type_id, in_tag "
+            + "from indicator natural join indicator_observation) io on io.observation_id = o.observation_id "
+            + "left join (select indicator_observation_id, vc_description, ioc_value "
+            + "from indicator_observation_category natural join value_category) iv "
+            + "on iv.indicator_observation_id = io.indicator_observation_id";
+
+    /**
+     * The tables joined to load the service calls.
+     */
+    private static final String SERVICE_CALL_SOURCE = "service_method_invocation natural join service_method natural join service";
+
+    /**
+     * The tables joined to load the injections.
+     */
+    private static final String INJECTION_SOURCE = "failure natural join failure_type";
+
+    /**
+     * The run data checked by the validity stamps, as {tables, columns}: one entry for each kind of run data stored by the cache.
+     */
+    private static final String[][] RUN_STAMP_SOURCES = {
+            {OBSERVATION_SOURCE, "o.observation_id, ob_time, io.indicator_observation_id, probe_type_id, in_tag, vc_description, ioc_value"},
+            {SERVICE_CALL_SOURCE, "se_name, start_time, end_time, response"},
+            {INJECTION_SOURCE, "fa_time, fa_description, fa_duration"},
+            {"performance", "performance_type_id, probe_type_id, perf_time"}
+    };
+
+    /**
+     * The run-independent data checked by the validity stamps, as {tables, columns}.
+     */
+    private static final String[][] SHARED_STAMP_SOURCES = {
+            {"service_stat natural join service", "se_name, serv_dur_avg, serv_dur_std, serv_obs_avg, serv_obs_std"},
+            {"indicator natural join service_indicator_stat natural join service_stat natural join service",
+                    "se_name, in_tag, si_avg_first, si_std_first, si_avg_last, si_std_last, si_all_avg, si_all_std"},
+            {"probe_type", "probe_type_id, pt_description"},
+            {"performance_type", "performance_type_id, pet_description"}
+    };
+
+    /**
+     * The pool of database connectors.
+     */
+    private DatabaseConnectionPool pool;
+
+    /**
+     * The flag indicating if the pool is owned by this manager.
+     */
+    private boolean ownsPool;
+
+    /**
+     * The runIDs of the block.
+     */
+    private List<String> runIds;
+
+    /**
+     * The flag indicating if the block has been loaded.
+     */
+    private boolean loaded;
+
+    /**
+     * The flag indicating if all the queries loading the block succeeded.
+     */
+    private boolean complete;
+
+    /**
+     * The observations, by runID.
+     */
+    private HashMap<String, ColumnStore> observations;
+
+    /**
+     * The service calls, by runID.
+     */
+    private HashMap<String, LinkedList<ServiceCall>> serviceCalls;
+
+    /**
+     * The injections, by runID.
+     */
+    private HashMap<String, LinkedList<InjectedElement>> injections;
+
+    /**
+     * The performance timings, by runID.
+     */
+    private HashMap<String, HashMap<String, HashMap<LayerType, LinkedList<Integer>>>> timings;
+
+    /**
+     * Instantiates a new database manager for a single run, using a dedicated connection.
      *
      * @param dbName   the database name
      * @param username the database username
@@ -50,23 +140,116 @@ public class DatabaseManager {
      * @param runId    the runID
      */
     public DatabaseManager(String dbName, String username, String password, String runId) {
-        try {
-            this.runId = runId;
-            connector = new DatabaseConnector(dbName, username, password, false);
-            loadSystemLayers();
-        } catch (Exception ex) {
+        this(new DatabaseConnectionPool(dbName, username, password, 1), runId);
+        ownsPool = true;
+    }
+
+    /**
+     * Instantiates a new database manager for a single run, using connections from a shared pool.
+     *
+     * @param pool  the pool of database connectors
+     * @param runId the runID
+     */
+    public DatabaseManager(DatabaseConnectionPool pool, String runId) {
+        this(pool, Collections.singletonList(runId));
+    }
+
+    /**
+     * Instantiates a new database manager for a block of runs, using connections from a shared pool.
+     *
+     * @param pool   the pool of database connectors
+     * @param runIds the runIDs of the block
+     */
+    public DatabaseManager(DatabaseConnectionPool pool, List<String> runIds) {
+        this.pool = pool;
+        this.runIds = runIds;
+        ownsPool = false;
+        loaded = false;
+    }
+
+    /**
+     * Gets the system layers, which are cached by the pool.
+     *
+     * @return the map of the layers
+     */
+    private HashMap<String, LayerType> getLayers() {
+        HashMap<String, LayerType> layers = pool.getSharedTable(LAYERS_TABLE, () -> {
+            HashMap<String, LayerType> readLayers = new HashMap<>();
+            return streamQuery("select probe_type_id, pt_description from probe_type",
+                    row -> readLayers.put(row.getString("probe_type_id"),
+                            LayerType.valueOf(row.getString("pt_description")))) ? readLayers : null;
+        });
+        if (layers == null) {
             AppLogger.logInfo(getClass(), "Need to start MySQL Server...");
+            complete = false;
+            return new HashMap<>();
         }
+        return layers;
     }
 
     /**
-     * Load system layers.
+     * Gets the performance types, which are cached by the pool.
+     *
+     * @return the map of the performance type descriptions, by performance_type_id
      */
-    private void loadSystemLayers() {
-        layers = new HashMap<>();
-        for (HashMap<String, String> ptMap : connector.executeCustomQuery(null,
-                "select * from probe_type")) {
-            layers.put(ptMap.get("probe_type_id"), LayerType.valueOf(ptMap.get("pt_description")));
+    private HashMap<String, String> getPerformanceTypes() {
+        HashMap<String, String> perfTypes = pool.getSharedTable(PERFORMANCE_TYPES_TABLE, () -> {
+            HashMap<String, String> readTypes = new HashMap<>();
+            return streamQuery("select performance_type_id, pet_description from performance_type",
+                    row -> readTypes.put(row.getString("performance_type_id"), row.getString("pet_description")))
+                    ? readTypes : null;
+        });
+        if (perfTypes == null) {
+            complete = false;
+            return new HashMap<>();
+        }
+        return perfTypes;
+    }
+
+    /**
+     * Gets the runIDs of the block as query parameters.
+     *
+     * @return the runID parameters
+     */
+    private Object[] getRunParameters() {
+        Object[] params = new Object[runIds.size()];
+        for (int i = 0; i < params.length; i++) {
+            params[i] = AppUtility.isInteger(runIds.get(i)) ? Integer.valueOf(runIds.get(i)) : runIds.get(i);
+        }
+        return params;
+    }
+
+    /**
+     * Gets the run filter, having one placeholder for each runID of the block.
+     *
+     * @return the run filter
+     */
+    private String getRunFilter() {
+        StringBuilder filter = new StringBuilder("run_id in (");
+        for (int i = 0; i < runIds.size(); i++) {
+            filter.append(i == 0 ? "?" : ", ?");
+        }
+        return filter.append(")").toString();
+    }
+
+    /**
+     * Streams a query on a connector taken from the pool.
+     *
+     * @param query   the SQL query
+     * @param handler the row handler
+     * @param params  the query parameters
+     * @return true, if the query is fully consumed
+     */
+    private boolean streamQuery(String query, RowHandler handler, Object... params) {
+        DatabaseConnector connector = pool.acquire();
+        if (connector == null) {
+            AppLogger.logError(getClass(), "SQLException", "No DB connection available for runs " + runIds);
+            return false;
+        }
+        try {
+            return connector.streamQuery(query, handler, params);
+        } finally {
+            pool.release(connector);
         }
     }
 
@@ -76,40 +259,220 @@ public class DatabaseManager {
      * @throws SQLException the SQL exception
      */
     public void flush() throws SQLException {
-        connector.closeConnection();
-        connector = null;
+        if (ownsPool && pool != null) {
+            pool.close();
+            pool = null;
+        }
     }
 
     /**
-     * Gets the observations for the specific runID.
+     * Loads all the runs of the block, if not already loaded.
+     */
+    private synchronized void load() {
+        if (!loaded) {
+            complete = true;
+            observations = loadObservations();
+            serviceCalls = loadServiceCalls();
+            injections = loadInjections();
+            timings = loadPerformanceTimings();
+            loaded = true;
+        }
+    }
+
+    /**
+     * Loads the observations of the block.
+     * Observations are streamed with a single joined query, ordered by run, observation and indicator observation,
+     * and the column stores of the runs are filled while walking the rows.
+     * Outer joins keep the observations without indicators, and the indicators without values, as the per-observation queries did.
      *
-     * @return the run observations
+     * @return the observations, by runID
+     */
+    private HashMap<String, ColumnStore> loadObservations() {
+        ObservationBuilder builder = new ObservationBuilder(getLayers());
+        complete = streamQuery("select run_id, o.observation_id, ob_time, io.indicator_observation_id, probe_type_id, in_tag, "
+                + "vc_description, ioc_value from " + OBSERVATION_SOURCE
+                + " where " + getRunFilter() + " order by run_id, o.observation_id, io.indicator_observation_id",
+                builder, getRunParameters()) && complete;
+        return builder.complete();
+    }
+
+    /**
+     * Loads the service calls of the block.
+     *
+     * @return the service calls, by runID
+     */
+    private HashMap<String, LinkedList<ServiceCall>> loadServiceCalls() {
+        HashMap<String, LinkedList<ServiceCall>> callMap = new HashMap<>();
+        complete = streamQuery("select run_id, se_name, " +
+                "min(start_time) as st_time, max(end_time) as en_time, response " +
+                "from " + SERVICE_CALL_SOURCE + " where " +
+                getRunFilter() + " group by run_id, se_name order by run_id, st_time",
+                row -> callMap.computeIfAbsent(row.getString("run_id"), k -> new LinkedList<>())
+                        .add(new ServiceCall(row.getString("se_name"), row.getString("st_time"),
+                                row.getString("en_time"), row.getString("response"))), getRunParameters()) && complete;
+        return callMap;
+    }
+
+    /**
+     * Loads the service stats, which are shared by all the runs.
+     *
+     * @return the service stats
      */
-    public LinkedList<Observation> getRunObservations() {
-        Observation obs;
-        LinkedList<Observation> obsList = new LinkedList<>();
-        HashMap<DataCategory, String> indData;
-        for (HashMap<String, String> obsMap : connector.executeCustomQuery(null,
-                "select observation_id, ob_time from observation where run_id = " + runId)) {
-            obs = new Observation(obsMap.get("ob_time"));
-            for (HashMap<String, String> indObs : connector.executeCustomQuery(null,
-                    "select indicator_observation_id, probe_type_id, in_tag " +
-                            "from indicator natural join indicator_observation where observation_id = "
-                            + obsMap.get("observation_id"))) {
-                indData = new HashMap<>();
-                for (HashMap<String, String> indValues : connector.executeCustomQuery(null,
-                        "select vc_description, ioc_value from indicator_observation_category natural join "
-                                + "value_category where indicator_observation_id = "
-                                + indObs.get("indicator_observation_id"))) {
-                    indData.put(DataCategory.valueOf(indValues.get("vc_description").toUpperCase()),
-                            indValues.get("ioc_value"));
-                }
-                obs.addIndicator(new Indicator(indObs.get("in_tag"), layers.get(indObs.get("probe_type_id")),
-                        String.class), new IndicatorData(indData));
+    private HashMap<String, ServiceStat> loadServiceStats() {
+        HashMap<String, ServiceStat> ssList = new HashMap<>();
+        if (!streamQuery("select * from service_stat natural join service",
+                row -> ssList.put(row.getString("se_name"), new ServiceStat(row.getString("se_name"),
+                        new StatPair(row.getString("serv_dur_avg"), row.getString("serv_dur_std")),
+                        new StatPair(row.getString("serv_obs_avg"), row.getString("serv_obs_std"))))))
+            return null;
+        if (!streamQuery("select * from indicator natural join service_indicator_stat natural join service_stat " +
+                "natural join service", row -> {
+            ServiceStat current = ssList.get(row.getString("se_name"));
+            if (current != null) {
+                current.addIndicatorStat(new IndicatorStat(row.getString("in_tag"),
+                        new StatPair(row.getString("si_avg_first"), row.getString("si_std_first")),
+                        new StatPair(row.getString("si_avg_last"), row.getString("si_std_last")),
+                        new StatPair(row.getString("si_all_avg"), row.getString("si_all_std"))));
             }
-            obsList.add(obs);
+        }))
+            return null;
+        return ssList;
+    }
+
+    /**
+     * Loads the injections of the block.
+     *
+     * @return the injections, by runID
+     */
+    private HashMap<String, LinkedList<InjectedElement>> loadInjections() {
+        HashMap<String, LinkedList<InjectedElement>> injMap = new HashMap<>();
+        complete = streamQuery("select * from " + INJECTION_SOURCE + " where " + getRunFilter()
+                + " order by run_id, fa_time", row -> {
+            long fa_time = AppUtility.parseTimestamp(row.getString("fa_time"));
+            String fa_description = row.getString("fa_description");
+            String fa_duration1 = row.getString("fa_duration");
+            // The default time duration for fa is set to 2 seconds if it's not found
+            int fa_duration = (fa_duration1 != null) ? Integer.parseInt(fa_duration1) : 2;
+            injMap.computeIfAbsent(row.getString("run_id"), k -> new LinkedList<>())
+                    .add(new InjectedElement(fa_time, fa_description, fa_duration));
+        }, getRunParameters()) && complete;
+        return injMap;
+    }
+
+    /**
+     * Loads the performance timings of the block.
+     *
+     * @return the performance timings, by runID
+     */
+    private HashMap<String, HashMap<String, HashMap<LayerType, LinkedList<Integer>>>> loadPerformanceTimings() {
+        HashMap<String, String> perfTypes = getPerformanceTypes();
+        HashMap<String, LayerType> layerMap = getLayers();
+        HashMap<String, HashMap<String, HashMap<LayerType, LinkedList<Integer>>>> timingMap = new HashMap<>();
+        for (String runId : runIds) {
+            HashMap<String, HashMap<LayerType, LinkedList<Integer>>> runTimings = new HashMap<>();
+            for (String perfType : perfTypes.values()) {
+                runTimings.put(perfType, new HashMap<>());
+            }
+            timingMap.put(runId, runTimings);
+        }
+        complete = streamQuery("select run_id, performance_type_id, probe_type_id, perf_time from performance where "
+                + getRunFilter(), row -> {
+            HashMap<String, HashMap<LayerType, LinkedList<Integer>>> runTimings = timingMap.get(row.getString("run_id"));
+            String perfType = perfTypes.get(row.getString("performance_type_id"));
+            if (runTimings != null && perfType != null) {
+                runTimings.get(perfType).computeIfAbsent(layerMap.get(row.getString("probe_type_id")),
+                        k -> new LinkedList<>()).add(row.getInt("perf_time"));
+            }
+        }, getRunParameters()) && complete;
+        return timingMap;
+    }
+
+    /**
+     * Gets the validity stamps of the runs of the block, used to check if cached copies of the runs are up to date.
+     * The stamp of a run holds the number of rows and a checksum of the values of each kind of data the cache stores:
+     * observations with their indicator values, service calls, injections and timings of the run,
+     * and the service stats, layers and performance types shared by all the runs.
+     *
+     * @return the validity stamps, by runID, or null if the database cannot be queried
+     */
+    public HashMap<String, String> getRunStamps() {
+        HashMap<String, String[]> runParts = new HashMap<>();
+        for (String runId : runIds) {
+            String[] parts = new String[RUN_STAMP_SOURCES.length];
+            Arrays.fill(parts, "0");
+            runParts.put(runId, parts);
+        }
+        StringBuilder query = new StringBuilder();
+        LinkedList<Object> params = new LinkedList<>();
+        for (int i = 0; i < RUN_STAMP_SOURCES.length; i++) {
+            query.append(i == 0 ? "" : " union all ").append("select run_id, ").append(i).append(" as part, ")
+                    .append(getStampColumns(RUN_STAMP_SOURCES[i][1])).append(" from ").append(RUN_STAMP_SOURCES[i][0])
+                    .append(" where ").append(getRunFilter()).append(" group by run_id");
+            params.addAll(Arrays.asList(getRunParameters()));
+        }
+        if (!streamQuery(query.toString(), row -> {
+            String[] parts = runParts.get(row.getString("run_id"));
+            if (parts != null)
+                parts[row.getInt("part")] = row.getString("row_count") + ":" + row.getString("checksum");
+        }, params.toArray()))
+            return null;
+        String[] sharedParts = new String[SHARED_STAMP_SOURCES.length];
+        Arrays.fill(sharedParts, "0");
+        query = new StringBuilder();
+        for (int i = 0; i < SHARED_STAMP_SOURCES.length; i++) {
+            query.append(i == 0 ? "" : " union all ").append("select ").append(i).append(" as part, ")
+                    .append(getStampColumns(SHARED_STAMP_SOURCES[i][1])).append(" from ").append(SHARED_STAMP_SOURCES[i][0]);
         }
-        return obsList;
+        if (!streamQuery(query.toString(),
+                row -> sharedParts[row.getInt("part")] = row.getString("row_count") + ":" + row.getString("checksum")))
+            return null;
+        HashMap<String, String> stamps = new HashMap<>();
+        for (String runId : runIds) {
+            stamps.put(runId, String.join("/", runParts.get(runId)) + "/" + String.join("/", sharedParts));
+        }
+        return stamps;
+    }
+
+    /**
+     * Gets the stamp columns of a table: its number of rows and a checksum of the given columns of each row.
+     *
+     * @param columns the checked columns
+     * @return the select list, having row_count and checksum columns
+     */
+    private static String getStampColumns(String columns) {
+        return "count(*) as row_count, coalesce(sum(crc32(concat_ws('#', " + columns + "))), 0) as checksum";
+    }
+
+    /**
+     * Gets the observations of a run of the block.
+     * Data is handed out once: the block does not keep it after this call.
+     *
+     * @param runId the runID
+     * @return the run observations
+     */
+    public ColumnStore getRunObservations(String runId) {
+        load();
+        return removeRunData(observations, runId, new DenseColumnStore.Builder().build());
+    }
+
+    /**
+     * Gets the observations for the specific runID.
+     *
+     * @return the run observations
+     */
+    public ColumnStore getRunObservations() {
+        return getRunObservations(getRunID());
+    }
+
+    /**
+     * Gets the service calls of a run of the block.
+     *
+     * @param runId the runID
+     * @return the service calls
+     */
+    public LinkedList<ServiceCall> getServiceCalls(String runId) {
+        load();
+        return removeRunData(serviceCalls, runId, new LinkedList<>());
     }
 
     /**
@@ -118,69 +481,74 @@ public class DatabaseManager {
      * @return the service calls
      */
     public LinkedList<ServiceCall> getServiceCalls() {
-        LinkedList<ServiceCall> callList = new LinkedList<>();
-        for (HashMap<String, String> callMap : connector.executeCustomQuery(null, "select se_name, " +
-                "min(start_time) as st_time, max(end_time) as en_time, response " +
-                "from service_method_invocation natural join service_method natural join service where run_id = "
-                + runId + " group by se_name order by st_time")) {
-            callList.add(new ServiceCall(callMap.get("se_name"), callMap.get("st_time"), callMap.get("en_time"),
-                    callMap.get("response")));
-        }
-        return callList;
+        return getServiceCalls(getRunID());
     }
 
     /**
-     * Gets the service stats for the specific runID.
+     * Gets the service stats, which are the same for all the runs.
      *
      * @return the service stats
      */
     public HashMap<String, ServiceStat> getServiceStats() {
-        ServiceStat current;
-        HashMap<String, ServiceStat> ssList = new HashMap<>();
-        for (HashMap<String, String> ssInfo : connector.executeCustomQuery(null,
-                "select * from service_stat natural join service")) {
-            current = new ServiceStat(ssInfo.get("se_name"), new StatPair(ssInfo.get("serv_dur_avg"),
-                    ssInfo.get("serv_dur_std")), new StatPair(ssInfo.get("serv_obs_avg"), ssInfo.get("serv_obs_std")));
-            for (HashMap<String, String> isInfo : connector.executeCustomQuery(null,
-                    "select * from indicator natural join service_indicator_stat natural join service_stat " +
-                            "natural join service where se_name = '" + ssInfo.get("se_name") + "'")) {
-                current.addIndicatorStat(new IndicatorStat(isInfo.get("in_tag"),
-                        new StatPair(isInfo.get("si_avg_first"), isInfo.get("si_std_first")),
-                        new StatPair(isInfo.get("si_avg_last"), isInfo.get("si_std_last")),
-                        new StatPair(isInfo.get("si_all_avg"), isInfo.get("si_all_std"))));
+        HashMap<String, ServiceStat> ssList = pool.getSharedTable(SERVICE_STATS_TABLE, this::loadServiceStats);
+        if (ssList == null) {
+            synchronized (this) {
+                complete = false;
             }
-            ssList.put(ssInfo.get("se_name"), current);
+            return new HashMap<>();
         }
         return ssList;
     }
 
+    /**
+     * Checks if all the queries loading the block succeeded, loading the block if needed.
+     * Data of incomplete blocks may be partial, and must not be cached.
+     *
+     * @return true, if the block was loaded without query failures
+     */
+    public synchronized boolean isComplete() {
+        load();
+        return complete;
+    }
+
+    /**
+     * Gets the injections of a run of the block.
+     *
+     * @param runId the runID
+     * @return the injections
+     */
+    public LinkedList<InjectedElement> getInjections(String runId) {
+        load();
+        return removeRunData(injections, runId, new LinkedList<>());
+    }
+
     /**
      * Gets the injections for the specific runID.
      *
      * @return the injections
      */
     public LinkedList<InjectedElement> getInjections() {
-        LinkedList<InjectedElement> injList = new LinkedList<>();
-        for (HashMap<String, String> injInfo : connector.executeCustomQuery(null,
-                "select * from failure natural join failure_type where run_id = " + runId
-                        + " order by fa_time")) {
-            Date fa_time = AppUtility.convertStringToDate(injInfo.get("fa_time"));
-            String fa_description = injInfo.get("fa_description");
-            String fa_duration1 = injInfo.get("fa_duration");
-            // The default time duration for fa is set to 2 seconds if it's not found
-            int fa_duration = (fa_duration1 != null) ? Integer.parseInt(fa_duration1) : 2;
-            injList.add(new InjectedElement(fa_time, fa_description, fa_duration));
-        }
-        return injList;
+        return getInjections(getRunID());
     }
 
     /**
-     * Gets the runID.
+     * Gets the runID (the first one, if the manager handles a block of runs).
      *
      * @return the runID
      */
     public String getRunID() {
-        return runId;
+        return runIds.get(0);
+    }
+
+    /**
+     * Gets the performance timings of a run of the block.
+     *
+     * @param runId the runID
+     * @return the performance timings
+     */
+    public HashMap<String, HashMap<LayerType, LinkedList<Integer>>> getPerformanceTimings(String runId) {
+        load();
+        return removeRunData(timings, runId, new HashMap<>());
     }
 
     /**
@@ -189,21 +557,114 @@ public class DatabaseManager {
      * @return the performance timings
      */
     public HashMap<String, HashMap<LayerType, LinkedList<Integer>>> getPerformanceTimings() {
-        String perfType;
-        HashMap<String, HashMap<LayerType, LinkedList<Integer>>> timings = new HashMap<>();
-        for (HashMap<String, String> perfIndexes : connector.executeCustomQuery(null,
-                "select * from performance_type")) {
-            perfType = perfIndexes.get("pet_description");
-            timings.put(perfType, new HashMap<>());
-            for (HashMap<String, String> timing : connector.executeCustomQuery(null,
-                    "select * from performance where run_id = " + runId + " and performance_type_id = "
-                            + perfIndexes.get("performance_type_id"))) {
-                timings.get(perfType).computeIfAbsent(layers.get(timing.get("probe_type_id")), k -> new LinkedList<>());
-                timings.get(perfType).get(layers.get(timing.get("probe_type_id")))
-                        .add(Integer.parseInt(timing.get("perf_time")));
+        return getPerformanceTimings(getRunID());
+    }
+
+    /**
+     * Removes the data of a run from a block map.
+     *
+     * @param <T>          the type of the run data
+     * @param dataMap      the block map
+     * @param runId        the runID
+     * @param defaultValue the value to be returned if the run has no data
+     * @return the run data
+     */
+    private synchronized <T> T removeRunData(HashMap<String, T> dataMap, String runId, T defaultValue) {
+        T data = dataMap.remove(runId);
+        return data != null ? data : defaultValue;
+    }
+
+    /**
+     * The Class ObservationBuilder.
+     * Builds the column stores of a block of runs while their indicator values are streamed,
+     * one row per (run, observation, indicator, category).
+     * Observations without indicators, and indicators without values, come as rows with null columns.
+     */
+    private static class ObservationBuilder implements RowHandler {
+
+        /**
+         * The store builders, by runID.
+         */
+        private HashMap<String, DenseColumnStore.Builder> builders = new HashMap<>();
+
+        /**
+         * The store builder of the run being built.
+         */
+        private DenseColumnStore.Builder builder;
+
+        /**
+         * The index of the observation being built.
+         */
+        private int obsIndex;
+
+        /**
+         * The ID of the observation being built.
+         */
+        private String obsId;
+
+        /**
+         * The ID of the indicator observation being built.
+         */
+        private String indObsId;
+
+        /**
+         * The index of the indicator being built.
+         */
+        private int indIndex;
+
+        /**
+         * The map of the layers.
+         */
+        private HashMap<String, LayerType> layers;
+
+        /**
+         * Instantiates a new observation builder.
+         *
+         * @param layers the map of the layers
+         */
+        public ObservationBuilder(HashMap<String, LayerType> layers) {
+            this.layers = layers;
+        }
+
+        /* (non-Javadoc)
+         * @see ippoz.multilayer.detector.commons.datafetcher.database.RowHandler#handleRow(ippoz.multilayer.detector.commons.datafetcher.database.ResultRow)
+         */
+        @Override
+        public void handleRow(ResultRow row) throws SQLException {
+            String currentIndObsId = row.getString("indicator_observation_id");
+            if (!row.getString("observation_id").equals(obsId)) {
+                obsId = row.getString("observation_id");
+                builder = builders.computeIfAbsent(row.getString("run_id"), k -> new DenseColumnStore.Builder());
+                obsIndex = builder.addObservation(AppUtility.parseTimestamp(row.getString("ob_time")));
+                indObsId = null;
             }
+            if (currentIndObsId == null)
+                return;
+            if (!currentIndObsId.equals(indObsId)) {
+                indObsId = currentIndObsId;
+                indIndex = builder.addIndicator(IndicatorRegistry.getIndicator(row.getString("in_tag"),
+                        layers.get(row.getString("probe_type_id")), String.class));
+            }
+            if (row.getString("vc_description") != null) {
+                builder.setValue(indIndex, DataCategory.valueOf(row.getString("vc_description").toUpperCase()),
+                        obsIndex, AppUtility.parseDouble(row.getString("ioc_value")));
+            }
+        }
+
+        /**
+         * Completes the building process.
+         *
+         * @return the built observations, by runID
+         */
+        public HashMap<String, ColumnStore> complete() {
+            HashMap<String, ColumnStore> obsMap = new HashMap<>();
+            for (String runId : builders.keySet()) {
+                obsMap.put(runId, builders.get(runId).build());
+            }
+            builders.clear();
+            return obsMap;
         }
-        return timings;
+
     }
 
 }
@@ -0,0 +1,155 @@
+/**
+ * 
+ */
+package ippoz.multilayer.detector.commons.datafetcher.database;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.HashMap;
+
+/**
+ * The Class ResultRow.
+ * Forward-only view on the current row of a streamed ResultSet.
+ * Column labels are resolved once per query, then each accessor reads the typed value directly from the cursor.
+ *
+ * @author Tommy
+ */
+public class ResultRow {
+	
+	/** The underlying result set. */
+	private ResultSet rs;
+	
+	/** The column indexes, by label. */
+	private HashMap<String, Integer> columns;
+	
+	/**
+	 * Instantiates a new result row, resolving the column labels of the result set.
+	 *
+	 * @param rs the result set
+	 * @throws SQLException the SQL exception
+	 */
+	public ResultRow(ResultSet rs) throws SQLException {
+		ResultSetMetaData metaData = rs.getMetaData();
+		this.rs = rs;
+		columns = new HashMap<String, Integer>();
+		for(int i=1;i<=metaData.getColumnCount();i++){
+			columns.putIfAbsent(metaData.getColumnLabel(i), i);
+		}
+	}
+	
+	/**
+	 * Gets the index of a column.
+	 *
+	 * @param label the column label
+	 * @return the column index
+	 * @throws SQLException if the column does not exist
+	 */
+	public int getColumnIndex(String label) throws SQLException {
+		Integer index = columns.get(label);
+		if(index == null)
+			throw new SQLException("Column '" + label + "' not found");
+		return index;
+	}
+	
+	/**
+	 * Gets the value of a column as a string.
+	 *
+	 * @param label the column label
+	 * @return the string value
+	 * @throws SQLException the SQL exception
+	 */
+	public String getString(String label) throws SQLException {
+		return getString(getColumnIndex(label));
+	}
+	
+	/**
+	 * Gets the value of a column as an integer.
+	 *
+	 * @param label the column label
+	 * @return the integer value, 0 if null
+	 * @throws SQLException the SQL exception
+	 */
+	public int getInt(String label) throws SQLException {
+		return getInt(getColumnIndex(label));
+	}
+	
+	/**
+	 * Gets the value of a column as a long.
+	 *
+	 * @param label the column label
+	 * @return the long value, 0 if null
+	 * @throws SQLException the SQL exception
+	 */
+	public long getLong(String label) throws SQLException {
+		return getLong(getColumnIndex(label));
+	}
+	
+	/**
+	 * Gets the value of a column as a double.
+	 *
+	 * @param label the column label
+	 * @return the double value, NaN if null
+	 * @throws SQLException the SQL exception
+	 */
+	public double getDouble(String label) throws SQLException {
+		return getDouble(getColumnIndex(label));
+	}
+	
+	/**
+	 * Gets the value of a column as a string.
+	 *
+	 * @param index the column index
+	 * @return the string value
+	 * @throws SQLException the SQL exception
+	 */
+	public String getString(int index) throws SQLException {
+		return rs.getString(index);
+	}
+	
+	/**
+	 * Gets the value of a column as an integer.
+	 *
+	 * @param index the column index
+	 * @return the integer value, 0 if null
+	 * @throws SQLException the SQL exception
+	 */
+	public int getInt(int index) throws SQLException {
+		return rs.getInt(index);
+	}
+	
+	/**
+	 * Gets the value of a column as a long.
+	 *
+	 * @param index the column index
+	 * @return the long value, 0 if null
+	 * @throws SQLException the SQL exception
+	 */
+	public long getLong(int index) throws SQLException {
+		return rs.getLong(index);
+	}
+	
+	/**
+	 * Gets the value of a column as a double.
+	 *
+	 * @param index the column index
+	 * @return the double value, NaN if null
+	 * @throws SQLException the SQL exception
+	 */
+	public double getDouble(int index) throws SQLException {
+		double value = rs.getDouble(index);
+		return rs.wasNull() ? Double.NaN : value;
+	}
+	
+	/**
+	 * Checks if a column is null in the current row.
+	 *
+	 * @param label the column label
+	 * @return true, if the value is null
+	 * @throws SQLException the SQL exception
+	 */
+	public boolean isNull(String label) throws SQLException {
+		return rs.getObject(getColumnIndex(label)) == null;
+	}
+
+}
@@ -0,0 +1,24 @@
+/**
+ * 
+ */
+package ippoz.multilayer.detector.commons.datafetcher.database;
+
+import java.sql.SQLException;
+
+/**
+ * The Interface RowHandler.
+ * Implement this to consume the rows of a streamed query one at a time, without materializing the whole result.
+ *
+ * @author Tommy
+ */
+public interface RowHandler {
+	
+	/**
+	 * Handles the current row of the result.
+	 *
+	 * @param row the current row
+	 * @throws SQLException the SQL exception
+	 */
+	public void handleRow(ResultRow row) throws SQLException;
+
+}
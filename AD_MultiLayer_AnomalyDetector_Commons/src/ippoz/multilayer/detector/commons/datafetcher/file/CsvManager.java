@@ -0,0 +1,266 @@
+/**
+ * 
+ */
+package ippoz.multilayer.detector.commons.datafetcher.file;
+
+import ippoz.multilayer.detector.commons.data.ColumnStore;
+import ippoz.multilayer.detector.commons.data.DenseColumnStore;
+import ippoz.multilayer.detector.commons.datacategory.DataCategory;
+import ippoz.multilayer.detector.commons.failure.InjectedElement;
+import ippoz.multilayer.detector.commons.indicator.IndicatorRegistry;
+import ippoz.multilayer.detector.commons.layer.LayerType;
+import ippoz.multilayer.detector.commons.service.IndicatorStat;
+import ippoz.multilayer.detector.commons.service.ServiceCall;
+import ippoz.multilayer.detector.commons.service.ServiceStat;
+import ippoz.multilayer.detector.commons.service.StatPair;
+import ippoz.multilayer.detector.commons.support.AppLogger;
+import ippoz.multilayer.detector.commons.support.AppUtility;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.LinkedList;
+
+/**
+ * The Class CsvManager.
+ * Reads experiments exported as CSV files, with the same content of the experiment database.
+ * Each run is stored in a "run&lt;runID&gt;" subfolder of the data folder, containing:
+ * <ul>
+ * <li>observations.csv: "ob_time", then one column for each (indicator, category) pair, labeled "&lt;layer&gt;:&lt;indicator&gt;:&lt;category&gt;"</li>
+ * <li>service_calls.csv: "se_name", "st_time", "en_time", "response"</li>
+ * <li>injections.csv: "fa_time", "fa_description", "fa_duration"</li>
+ * <li>timings.csv: "pet_description", "pt_description", "perf_time"</li>
+ * </ul>
+ * Service stats are shared among runs, and are stored in the data folder as service_stats.csv ("se_name", "serv_dur_avg", "serv_dur_std", "serv_obs_avg", "serv_obs_std")
+ * and service_indicator_stats.csv ("se_name", "in_tag", "si_avg_first", "si_std_first", "si_avg_last", "si_std_last", "si_all_avg", "si_all_std").
+ * Empty fields are missing values.
+ *
+ * @author Tommy
+ */
+public class CsvManager {
+	
+	/** The observations file. */
+	public static final String OBSERVATIONS_FILE = "observations.csv";
+	
+	/** The service calls file. */
+	public static final String SERVICE_CALLS_FILE = "service_calls.csv";
+	
+	/** The injections file. */
+	public static final String INJECTIONS_FILE = "injections.csv";
+	
+	/** The performance timings file. */
+	public static final String TIMINGS_FILE = "timings.csv";
+	
+	/** The service stats file. */
+	public static final String SERVICE_STATS_FILE = "service_stats.csv";
+	
+	/** The service indicator stats file. */
+	public static final String INDICATOR_STATS_FILE = "service_indicator_stats.csv";
+	
+	/** The separator of the fields of the observation column labels. */
+	private static final char LABEL_SEPARATOR = ':';
+	
+	/** The data folder. */
+	private File dataFolder;
+	
+	/** The service stats, shared among runs and read on first access. */
+	private HashMap<String, ServiceStat> ssList;
+	
+	/**
+	 * Instantiates a new CSV manager.
+	 *
+	 * @param dataFolder the data folder
+	 */
+	public CsvManager(String dataFolder){
+		this.dataFolder = new File(dataFolder);
+		if(!this.dataFolder.isDirectory())
+			AppLogger.logError(getClass(), "MissingFolderError", "Data folder '" + dataFolder + "' does not exist");
+	}
+	
+	/**
+	 * Gets the folder of a run.
+	 *
+	 * @param runId the runID
+	 * @return the run folder
+	 */
+	public File getRunFolder(String runId){
+		return new File(dataFolder, "run" + runId);
+	}
+	
+	/**
+	 * Gets the service stats.
+	 *
+	 * @return the service stats
+	 */
+	public synchronized HashMap<String, ServiceStat> getServiceStats(){
+		if(ssList == null){
+			HashMap<String, ServiceStat> readStats = new HashMap<String, ServiceStat>();
+			read(new File(dataFolder, SERVICE_STATS_FILE), row -> readStats.put(row.getString("se_name"), new ServiceStat(row.getString("se_name"), 
+						new StatPair(row.getString("serv_dur_avg"), row.getString("serv_dur_std")), 
+						new StatPair(row.getString("serv_obs_avg"), row.getString("serv_obs_std")))));
+			read(new File(dataFolder, INDICATOR_STATS_FILE), row -> {
+				ServiceStat current = readStats.get(row.getString("se_name"));
+				if(current != null)
+					current.addIndicatorStat(new IndicatorStat(row.getString("in_tag"), 
+							new StatPair(row.getString("si_avg_first"), row.getString("si_std_first")), 
+							new StatPair(row.getString("si_avg_last"), row.getString("si_std_last")), 
+							new StatPair(row.getString("si_all_avg"), row.getString("si_all_std"))));
+			});
+			ssList = readStats;
+		}
+		return ssList;
+	}
+	
+	/**
+	 * Reads the observations of a run.
+	 *
+	 * @param runId the runID
+	 * @return the observations
+	 */
+	public ColumnStore getObservations(String runId){
+		DenseColumnStore.Builder builder = new DenseColumnStore.Builder();
+		read(new File(getRunFolder(runId), OBSERVATIONS_FILE), new ObservationHandler(builder));
+		return builder.build();
+	}
+	
+	/**
+	 * Reads the service calls of a run.
+	 *
+	 * @param runId the runID
+	 * @return the service calls
+	 */
+	public LinkedList<ServiceCall> getServiceCalls(String runId){
+		LinkedList<ServiceCall> callList = new LinkedList<ServiceCall>();
+		read(new File(getRunFolder(runId), SERVICE_CALLS_FILE), row -> callList.add(new ServiceCall(row.getString("se_name"), row.getString("st_time"), row.getString("en_time"), row.getString("response"))));
+		return callList;
+	}
+	
+	/**
+	 * Reads the injections of a run.
+	 *
+	 * @param runId the runID
+	 * @return the injections
+	 */
+	public LinkedList<InjectedElement> getInjections(String runId){
+		LinkedList<InjectedElement> injList = new LinkedList<InjectedElement>();
+		read(new File(getRunFolder(runId), INJECTIONS_FILE), row -> {
+			String fa_duration = row.getString("fa_duration");
+			// The default time duration for fa is set to 2 seconds if it's not found
+			injList.add(new InjectedElement(AppUtility.parseTimestamp(row.getString("fa_time")), row.getString("fa_description"), fa_duration != null ? Integer.parseInt(fa_duration) : 2));
+		});
+		return injList;
+	}
+	
+	/**
+	 * Reads the performance timings of a run.
+	 *
+	 * @param runId the runID
+	 * @return the performance timings
+	 */
+	public HashMap<String, HashMap<LayerType, LinkedList<Integer>>> getPerformanceTimings(String runId){
+		HashMap<String, HashMap<LayerType, LinkedList<Integer>>> timings = new HashMap<String, HashMap<LayerType, LinkedList<Integer>>>();
+		File timingsFile = new File(getRunFolder(runId), TIMINGS_FILE);
+		if(timingsFile.exists()){
+			read(timingsFile, row -> timings.computeIfAbsent(row.getString("pet_description"), k -> new HashMap<LayerType, LinkedList<Integer>>())
+					.computeIfAbsent(readLayer(row.getString("pt_description")), k -> new LinkedList<Integer>()).add(row.getInt("perf_time")));
+		}
+		return timings;
+	}
+	
+	/**
+	 * Reads a CSV file, logging errors.
+	 *
+	 * @param file the file
+	 * @param handler the row handler
+	 * @return true, if the file was completely read
+	 */
+	private boolean read(File file, CsvRowHandler handler){
+		try {
+			CsvReader.read(file, handler);
+			return true;
+		} catch (IOException | IllegalArgumentException ex) {
+			AppLogger.logException(getClass(), ex, "Unable to read '" + file.getPath() + "'");
+			return false;
+		}
+	}
+	
+	/**
+	 * Reads a layer.
+	 *
+	 * @param layer the layer string
+	 * @return the layer, null if empty
+	 */
+	private static LayerType readLayer(String layer){
+		return layer != null && layer.trim().length() > 0 ? LayerType.valueOf(layer.trim()) : null;
+	}
+	
+	/**
+	 * The Class ObservationHandler.
+	 * Fills a column store from the rows of an observations file, resolving the indicators of the columns once.
+	 */
+	private static class ObservationHandler implements CsvRowHandler {
+		
+		/** The store builder. */
+		private DenseColumnStore.Builder builder;
+		
+		/** The indicator indexes in the store, one for each column, -1 for the timestamp. */
+		private int[] indicators;
+		
+		/** The categories, one for each column. */
+		private DataCategory[] categories;
+		
+		/** The index of the timestamp column. */
+		private int timeIndex;
+		
+		/**
+		 * Instantiates a new observation handler.
+		 *
+		 * @param builder the store builder to fill with the observations
+		 */
+		public ObservationHandler(DenseColumnStore.Builder builder){
+			this.builder = builder;
+		}
+		
+		/**
+		 * Resolves the indicators and categories of the columns.
+		 *
+		 * @param row the first row
+		 * @throws IOException if a column label is not valid
+		 */
+		private void readHeader(CsvRow row) throws IOException {
+			timeIndex = row.getColumnIndex("ob_time");
+			indicators = new int[row.getColumnCount()];
+			categories = new DataCategory[row.getColumnCount()];
+			for(int i=0;i<row.getColumnCount();i++){
+				String label = row.getLabel(i);
+				indicators[i] = -1;
+				if(i != timeIndex){
+					int first = label.indexOf(LABEL_SEPARATOR);
+					int last = label.lastIndexOf(LABEL_SEPARATOR);
+					if(first < 0 || first == last)
+						throw new IOException("Column '" + label + "' is not a valid indicator");
+					String layer = label.substring(0, first);
+					String indName = label.substring(first + 1, last);
+					indicators[i] = builder.addIndicator(IndicatorRegistry.getIndicator(indName, readLayer(layer), String.class));
+					categories[i] = DataCategory.valueOf(label.substring(last + 1).trim().toUpperCase());
+				}
+			}
+		}
+
+		/* (non-Javadoc)
+		 * @see ippoz.multilayer.detector.commons.datafetcher.file.CsvRowHandler#handleRow(ippoz.multilayer.detector.commons.datafetcher.file.CsvRow)
+		 */
+		@Override
+		public void handleRow(CsvRow row) throws IOException {
+			if(indicators == null)
+				readHeader(row);
+			int obsIndex = builder.addObservation(AppUtility.parseTimestamp(row.getString(timeIndex)));
+			for(int i=0;i<indicators.length;i++){
+				if(indicators[i] >= 0 && row.getString(i) != null)
+					builder.setValue(indicators[i], categories[i], obsIndex, AppUtility.parseDouble(row.getString(i).trim()));
+			}
+		}
+		
+	}
+
+}
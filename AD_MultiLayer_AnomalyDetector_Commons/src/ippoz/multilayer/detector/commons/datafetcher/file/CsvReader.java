@@ -0,0 +1,157 @@
+/**
+ * 
+ */
+package ippoz.multilayer.detector.commons.datafetcher.file;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * The Class CsvReader.
+ * Fast reader of comma-separated files.
+ * Files are read in one pass through an NIO channel, and fields are cut directly from the bytes, without splitting lines into intermediate strings.
+ * The first line is the header. Fields may be quoted with '"', using '""' to escape quotes, and empty lines are skipped.
+ *
+ * @author Tommy
+ */
+public class CsvReader {
+	
+	/** The field separator. */
+	private static final byte SEPARATOR = ',';
+	
+	/** The quote character. */
+	private static final byte QUOTE = '"';
+	
+	/**
+	 * Instantiates a new CSV reader.
+	 */
+	private CsvReader(){}
+	
+	/**
+	 * Reads a file, passing each row to the handler.
+	 *
+	 * @param file the CSV file
+	 * @param handler the row handler
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public static void read(File file, CsvRowHandler handler) throws IOException {
+		byte[] bytes = readBytes(file);
+		ArrayList<String> fieldList = new ArrayList<String>();
+		CsvRow row = null;
+		int pos = 0;
+		int line = 1;
+		while(pos < bytes.length){
+			pos = readLine(bytes, pos, fieldList);
+			if(fieldList.size() == 1 && fieldList.get(0) == null){
+				// empty line
+			} else if(row == null){
+				String[] header = fieldList.toArray(new String[fieldList.size()]);
+				for(int i=0;i<header.length;i++){
+					header[i] = header[i] != null ? header[i].trim() : "";
+				}
+				row = new CsvRow(header);
+			} else {
+				if(fieldList.size() > row.getColumnCount())
+					throw new IOException(file.getName() + ", line " + line + ": expected " + row.getColumnCount() + " fields, found " + fieldList.size());
+				String[] fields = row.getFields();
+				Arrays.fill(fields, null);
+				for(int i=0;i<fieldList.size();i++){
+					fields[i] = fieldList.get(i);
+				}
+				handler.handleRow(row);
+			}
+			line++;
+		}
+	}
+	
+	/**
+	 * Reads the whole content of a file.
+	 *
+	 * @param file the file
+	 * @return the bytes of the file
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private static byte[] readBytes(File file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			if(channel.size() > Integer.MAX_VALUE)
+				throw new IOException("File '" + file.getName() + "' is too large");
+			ByteBuffer buffer = ByteBuffer.allocate((int)channel.size());
+			while(buffer.hasRemaining()){
+				if(channel.read(buffer) < 0)
+					break;
+			}
+			return buffer.array();
+		}
+	}
+	
+	/**
+	 * Reads the fields of a line.
+	 *
+	 * @param bytes the content of the file
+	 * @param pos the starting position of the line
+	 * @param fieldList the list to fill with the fields, null for empty fields
+	 * @return the starting position of the next line
+	 */
+	private static int readLine(byte[] bytes, int pos, ArrayList<String> fieldList) {
+		fieldList.clear();
+		while(true){
+			if(pos < bytes.length && bytes[pos] == QUOTE)
+				pos = readQuoted(bytes, pos + 1, fieldList);
+			else {
+				int start = pos;
+				while(pos < bytes.length && bytes[pos] != SEPARATOR && bytes[pos] != '\n'){
+					pos++;
+				}
+				int end = pos;
+				if(end > start && bytes[end-1] == '\r')
+					end--;
+				fieldList.add(end > start ? new String(bytes, start, end - start, StandardCharsets.ISO_8859_1) : null);
+			}
+			if(pos >= bytes.length)
+				return pos;
+			else if(bytes[pos] == '\n')
+				return pos + 1;
+			else if(bytes[pos] == SEPARATOR)
+				pos++;
+		}
+	}
+	
+	/**
+	 * Reads a quoted field.
+	 *
+	 * @param bytes the content of the file
+	 * @param pos the position after the opening quote
+	 * @param fieldList the list to add the field to
+	 * @return the position after the field
+	 */
+	private static int readQuoted(byte[] bytes, int pos, ArrayList<String> fieldList) {
+		StringBuilder builder = new StringBuilder();
+		boolean closed = false;
+		int start = pos;
+		while(pos < bytes.length && !closed){
+			if(bytes[pos] == QUOTE){
+				builder.append(new String(bytes, start, pos - start, StandardCharsets.ISO_8859_1));
+				if(pos + 1 < bytes.length && bytes[pos+1] == QUOTE){
+					builder.append('"');
+					pos++;
+				} else closed = true;
+				start = pos + 1;
+			}
+			pos++;
+		}
+		if(!closed)
+			builder.append(new String(bytes, start, pos - start, StandardCharsets.ISO_8859_1));
+		while(pos < bytes.length && bytes[pos] != SEPARATOR && bytes[pos] != '\n'){
+			pos++;
+		}
+		fieldList.add(builder.length() > 0 ? builder.toString() : null);
+		return pos;
+	}
+
+}
@@ -0,0 +1,121 @@
+/**
+ * 
+ */
+package ippoz.multilayer.detector.commons.datafetcher.file;
+
+import java.io.IOException;
+import java.util.HashMap;
+
+/**
+ * The Class CsvRow.
+ * View on the current row of a CSV file.
+ * Column labels are resolved once from the header, then each accessor reads the field of the current row.
+ * Empty fields are read as null.
+ *
+ * @author Tommy
+ */
+public class CsvRow {
+	
+	/** The column labels. */
+	private String[] header;
+	
+	/** The column indexes, by label. */
+	private HashMap<String, Integer> columns;
+	
+	/** The fields of the current row. */
+	private String[] fields;
+	
+	/**
+	 * Instantiates a new CSV row, resolving the column labels of the header.
+	 *
+	 * @param header the header of the file
+	 */
+	public CsvRow(String[] header) {
+		this.header = header;
+		columns = new HashMap<String, Integer>();
+		for(int i=0;i<header.length;i++){
+			columns.putIfAbsent(header[i], i);
+		}
+		fields = new String[header.length];
+	}
+	
+	/**
+	 * Gets the fields of the current row, to be filled by the reader.
+	 *
+	 * @return the fields
+	 */
+	String[] getFields(){
+		return fields;
+	}
+	
+	/**
+	 * Gets the number of columns.
+	 *
+	 * @return the number of columns
+	 */
+	public int getColumnCount(){
+		return header.length;
+	}
+	
+	/**
+	 * Gets the label of a column.
+	 *
+	 * @param index the column index
+	 * @return the column label
+	 */
+	public String getLabel(int index){
+		return header[index];
+	}
+	
+	/**
+	 * Gets the index of a column.
+	 *
+	 * @param label the column label
+	 * @return the column index
+	 * @throws IOException if the column does not exist
+	 */
+	public int getColumnIndex(String label) throws IOException {
+		Integer index = columns.get(label);
+		if(index == null)
+			throw new IOException("Column '" + label + "' not found");
+		return index;
+	}
+	
+	/**
+	 * Gets the value of a column as a string.
+	 *
+	 * @param label the column label
+	 * @return the string value, null if empty
+	 * @throws IOException if the column does not exist
+	 */
+	public String getString(String label) throws IOException {
+		return getString(getColumnIndex(label));
+	}
+	
+	/**
+	 * Gets the value of a column as a string.
+	 *
+	 * @param index the column index
+	 * @return the string value, null if empty
+	 */
+	public String getString(int index) {
+		return fields[index];
+	}
+	
+	/**
+	 * Gets the value of a column as an int.
+	 *
+	 * @param label the column label
+	 * @return the int value
+	 * @throws IOException if the column does not exist or is not an integer
+	 */
+	public int getInt(String label) throws IOException {
+		String value = getString(label);
+		try {
+			return Integer.parseInt(value);
+		} catch(NumberFormatException ex){
+			throw new IOException("Column '" + label + "' is not an integer: '" + value + "'", ex);
+		}
+	}
+
+}
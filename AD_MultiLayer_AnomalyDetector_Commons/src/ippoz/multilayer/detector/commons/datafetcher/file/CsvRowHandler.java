@@ -0,0 +1,24 @@
+/**
+ * 
+ */
+package ippoz.multilayer.detector.commons.datafetcher.file;
+
+import java.io.IOException;
+
+/**
+ * The Interface CsvRowHandler.
+ * Implement this to consume the rows of a CSV file one at a time.
+ *
+ * @author Tommy
+ */
+public interface CsvRowHandler {
+	
+	/**
+	 * Handles the current row of the file.
+	 *
+	 * @param row the current row
+	 * @throws IOException if the row cannot be handled
+	 */
+	public void handleRow(CsvRow row) throws IOException;
+
+}
@@ -1,6 +1,5 @@
 package ippoz.multilayer.detector.commons.dataseries;
 
-import java.util.Date;
 
 import ippoz.multilayer.detector.commons.data.Observation;
 import ippoz.multilayer.detector.commons.datacategory.DataCategory;
@@ -50,7 +49,7 @@ public abstract class ComplexDataSeries extends DataSeries {
 	}
 
 	@Override
-	public StatPair getSeriesServiceStat(Date timestamp, ServiceCall sCall, ServiceStat sStat) {
+	public StatPair getSeriesServiceStat(long timestamp, ServiceCall sCall, ServiceStat sStat) {
 		return composeStat(firstOperand.getSeriesServiceStat(timestamp, sCall, sStat),
 				secondOperand.getSeriesServiceStat(timestamp, sCall, sStat));
 	}
@@ -3,6 +3,7 @@ package ippoz.multilayer.detector.commons.dataseries;
 import ippoz.multilayer.detector.commons.data.Observation;
 import ippoz.multilayer.detector.commons.datacategory.DataCategory;
 import ippoz.multilayer.detector.commons.indicator.Indicator;
+import ippoz.multilayer.detector.commons.indicator.IndicatorRegistry;
 import ippoz.multilayer.detector.commons.layer.LayerType;
 import ippoz.multilayer.detector.commons.service.IndicatorStat;
 import ippoz.multilayer.detector.commons.service.ServiceCall;
@@ -10,7 +11,6 @@ import ippoz.multilayer.detector.commons.service.ServiceStat;
 import ippoz.multilayer.detector.commons.service.StatPair;
 import ippoz.multilayer.detector.commons.support.AppLogger;
 
-import java.util.Date;
 import java.util.HashMap;
 import java.util.LinkedList;
 
@@ -22,6 +22,10 @@ public abstract class DataSeries implements Comparable<DataSeries> {
 
 	private String seriesName;
 	private DataCategory dataCategory;
+	private SeriesEvaluator evaluator;
+	private boolean compiled;
+	private volatile int seriesId = -1;
+	private String seriesKey;
 	
 	protected DataSeries(String seriesName, DataCategory dataCategory) {
 		this.seriesName = seriesName;
@@ -30,7 +34,9 @@ public abstract class DataSeries implements Comparable<DataSeries> {
 
 	@Override
 	public String toString() {
-		return seriesName + "#" + dataCategory + "#" + getLayerType();
+		if(seriesKey == null)
+			seriesKey = seriesName + "#" + dataCategory + "#" + getLayerType();
+		return seriesKey;
 	}
 
 	public String getName() {
@@ -59,6 +65,35 @@ public abstract class DataSeries implements Comparable<DataSeries> {
         }
 	}
 
+	/**
+	 * Gets the id given to the series by the {@link DataSeriesRegistry}.
+	 *
+	 * @return the id, -1 if the series is not registered
+	 */
+	public int getId() {
+		return seriesId;
+	}
+	
+	void setId(int seriesId) {
+		this.seriesId = seriesId;
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		if(this == other)
+			return true;
+		else if(!(other instanceof DataSeries))
+			return false;
+		else if(seriesId >= 0 && seriesId == ((DataSeries)other).seriesId)
+			return true;
+		else return toString().equals(other.toString());
+	}
+
+	@Override
+	public int hashCode() {
+		return toString().hashCode();
+	}
+
 	@Override
 	public int compareTo(DataSeries other) {
 		return seriesName.equals(other.getName()) && dataCategory.equals(other.getDataCategory()) ? 0 : 1;
@@ -75,6 +110,14 @@ public abstract class DataSeries implements Comparable<DataSeries> {
 		}
 	}
 
+	public synchronized SeriesEvaluator getEvaluator(){
+		if(!compiled){
+			evaluator = SeriesEvaluator.compile(this);
+			compiled = true;
+		}
+		return evaluator;
+	}
+
 	public abstract LayerType getLayerType();
 	
 	protected abstract Double getPlainSeriesValue(Observation obs);
@@ -82,28 +125,33 @@ public abstract class DataSeries implements Comparable<DataSeries> {
 	protected abstract Double getDiffSeriesValue(Observation obs);
 	
 	// Sincronizza anche se � all'inizio, nel corpo o alla fine.
-	public abstract StatPair getSeriesServiceStat(Date timestamp, ServiceCall sCall, ServiceStat sStat);
+	public abstract StatPair getSeriesServiceStat(long timestamp, ServiceCall sCall, ServiceStat sStat);
 
-	protected static StatPair getPairByTime(Date timestamp, ServiceCall sCall, IndicatorStat iStat){
+	protected static StatPair getPairByTime(long timestamp, ServiceCall sCall, IndicatorStat iStat){
 		if(sCall.isAliveAt(timestamp)){
-			if(sCall.getStartTime().equals(timestamp))
+			if(sCall.getStartTime() == timestamp)
 				return iStat.getFirstObs();
-			else if(sCall.getStartTime().before(timestamp) && sCall.getEndTime().after(timestamp))
+			else if(sCall.getStartTime() < timestamp && sCall.getEndTime() > timestamp)
 				return iStat.getAllObs();
-			else if(sCall.getEndTime().equals(timestamp))
+			else if(sCall.getEndTime() == timestamp)
 				return iStat.getLastObs();
 		}
 		return null;
 	}
 	
 	public static DataSeries fromString(String stringValue, boolean show) {
+		DataSeries parsed;
 		try {
 			if(stringValue != null && stringValue.length() > 0){
+				parsed = DataSeriesRegistry.getDataSeries(stringValue);
+				if(parsed != null)
+					return parsed;
 				String layer = stringValue.substring(stringValue.lastIndexOf("#")+1);
 				String partial = stringValue.substring(0, stringValue.indexOf(layer)-1);
 				String dataType = partial.substring(partial.lastIndexOf("#")+1);
 				String dataSeries = stringValue.substring(0, partial.lastIndexOf("#"));
-				return fromStrings(dataSeries, DataCategory.valueOf(dataType), LayerType.valueOf(layer));
+				parsed = fromStrings(dataSeries, DataCategory.valueOf(dataType), LayerType.valueOf(layer));
+				return parsed != null ? DataSeriesRegistry.intern(parsed, stringValue) : null;
 			}
 		} catch(Exception ex){
 			if(show)
@@ -123,60 +171,32 @@ public abstract class DataSeries implements Comparable<DataSeries> {
 			} else if(seriesName.contains(")-(")){
 				return new DiffDataSeries(DataSeries.fromString(seriesName.substring(1,  seriesName.indexOf(")-(")).trim(), true), DataSeries.fromString(seriesName.substring(seriesName.indexOf(")-(")+3, seriesName.length()-1).trim(), true), dataType);
 			} else return null;
-		} else return new IndicatorDataSeries(new Indicator(seriesName, layerType, Double.class), dataType);
+		} else return new IndicatorDataSeries(IndicatorRegistry.getIndicator(seriesName, layerType, Double.class), dataType);
 	}
 	
 	public static LinkedList<DataSeries> selectedCombinations(Indicator[] indicators, DataCategory[] dataTypes, HashMap<String, String> possibleCouples) {
-		DataSeries firstDS, secondDS;
 		LinkedList<DataSeries> outList = new LinkedList<>();
-		LinkedList<DataSeries> simpleInd = new LinkedList<>();
-		LinkedList<DataSeries> complexInd = new LinkedList<>();
-		for(Indicator ind : indicators){
-			for(DataCategory dCat : dataTypes){
-				simpleInd.add(new IndicatorDataSeries(ind, dCat));
-			}
-		}
-		for(String firstString : possibleCouples.keySet()){
-			firstDS = DataSeries.fromList(simpleInd, firstString);
-			secondDS = DataSeries.fromList(simpleInd, possibleCouples.get(firstString));
-			for(DataCategory dCat : dataTypes){
-				complexInd.add(new SumDataSeries(firstDS, secondDS, dCat));
-				complexInd.add(new DiffDataSeries(firstDS, secondDS, dCat));
-				complexInd.add(new FractionDataSeries(firstDS, secondDS, dCat));
-			}
+		for(DataSeries ds : new DataSeriesGenerator(indicators, dataTypes, possibleCouples, null)){
+			outList.add(ds);
 		}
-		outList.addAll(simpleInd);
-		outList.addAll(complexInd);
 		return outList;
 	}
 	
 	public static LinkedList<DataSeries> allCombinations(Indicator[] indicators, DataCategory[] dataTypes) {
 		LinkedList<DataSeries> outList = new LinkedList<>();
-		LinkedList<DataSeries> simpleInd = new LinkedList<>();
-		LinkedList<DataSeries> complexInd = new LinkedList<>();
-		for(Indicator ind : indicators){
-			for(DataCategory dCat : dataTypes){
-				simpleInd.add(new IndicatorDataSeries(ind, dCat));
-			}
+		for(DataSeries ds : new DataSeriesGenerator(indicators, dataTypes, null)){
+			outList.add(ds);
 		}
-		for(DataSeries firstDS : simpleInd){
-			for(DataSeries secondDS : simpleInd){
-				for(DataCategory dCat : dataTypes){
-					complexInd.add(new SumDataSeries(firstDS, secondDS, dCat));
-					complexInd.add(new DiffDataSeries(firstDS, secondDS, dCat));
-					complexInd.add(new FractionDataSeries(firstDS, secondDS, dCat));
-				}
-			}
-		}
-		outList.addAll(simpleInd);
-		outList.addAll(complexInd);
 		return outList;
 	}
 
-	public static DataSeries fromList(LinkedList<DataSeries> seriesList, String newSeriesName) {
-		for(DataSeries ds : seriesList){
-			if(ds.toString().equals(newSeriesName)) {
-				return ds;
+	public static DataSeries fromList(Iterable<DataSeries> seriesList, String newSeriesName) {
+		DataSeries target = fromString(newSeriesName, false);
+		if(target != null){
+			for(DataSeries ds : seriesList){
+				if(target.equals(ds)) {
+					return ds;
+				}
 			}
 		}
 		return null;
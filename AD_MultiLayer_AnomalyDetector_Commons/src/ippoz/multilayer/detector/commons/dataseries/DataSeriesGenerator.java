@@ -0,0 +1,336 @@
+/**
+ *
+ */
+package ippoz.multilayer.detector.commons.dataseries;
+
+import ippoz.multilayer.detector.commons.data.ColumnStore;
+import ippoz.multilayer.detector.commons.data.ExperimentData;
+import ippoz.multilayer.detector.commons.datacategory.DataCategory;
+import ippoz.multilayer.detector.commons.indicator.Indicator;
+import ippoz.multilayer.detector.commons.support.AppLogger;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.NoSuchElementException;
+
+/**
+ * The Class DataSeriesGenerator.
+ * Generates the candidate data series lazily: the simple series first, then the sum, difference and fraction of each couple of simple series.
+ * Composite series are created while iterating, and each iteration creates them anew: callers should consume the candidates in a single pass.
+ * If the statistics of the training set are given, the generator also skips the candidates that cannot be informative:
+ * simple series that are constant (or missing) in the whole training set, self-couples, the sums already generated with swapped operands,
+ * and fractions whose denominator is zero in most of the observations.
+ *
+ * @author Tommy
+ */
+public class DataSeriesGenerator implements Iterable<DataSeries> {
+
+	/** The largest share of zero observations allowed for the denominator of a fraction. */
+	private static final double MAX_ZERO_DENOMINATOR = 0.5;
+
+	/** The simple series. */
+	private List<DataSeries> simpleSeries;
+
+	/** The statistics of each simple series, null if candidates are not pruned. */
+	private List<SeriesStats> simpleStats;
+
+	/** The couples of simple series to combine, by position, null to combine all the couples. */
+	private List<int[]> couples;
+
+	/** The data categories of the composite series. */
+	private DataCategory[] dataTypes;
+
+	/** The number of simple series skipped because not informative. */
+	private int prunedSimple;
+
+	/**
+	 * Instantiates a new generator of all the combinations of the indicators.
+	 *
+	 * @param indicators the indicators
+	 * @param dataTypes the data categories
+	 * @param expList the training set, used to prune candidates; null to generate all of them
+	 */
+	public DataSeriesGenerator(Indicator[] indicators, DataCategory[] dataTypes, List<ExperimentData> expList) {
+		this(indicators, dataTypes, null, expList);
+	}
+
+	/**
+	 * Instantiates a new generator.
+	 *
+	 * @param indicators the indicators
+	 * @param dataTypes the data categories
+	 * @param possibleCouples the couples of simple series to combine, by name; null to combine all the couples
+	 * @param expList the training set, used to prune candidates; null to generate all of them
+	 */
+	public DataSeriesGenerator(Indicator[] indicators, DataCategory[] dataTypes, HashMap<String, String> possibleCouples, List<ExperimentData> expList) {
+		List<DataSeries> allSimple = new ArrayList<DataSeries>();
+		this.dataTypes = dataTypes;
+		for(Indicator ind : indicators){
+			for(DataCategory dCat : dataTypes){
+				allSimple.add(new IndicatorDataSeries(ind, dCat));
+			}
+		}
+		if(expList != null && !expList.isEmpty()){
+			simpleSeries = new ArrayList<DataSeries>();
+			simpleStats = new ArrayList<SeriesStats>();
+			for(DataSeries ds : allSimple){
+				SeriesStats stats = new SeriesStats((IndicatorDataSeries)ds, expList);
+				if(stats.isInformative()){
+					simpleSeries.add(ds);
+					simpleStats.add(stats);
+				} else prunedSimple++;
+			}
+		} else simpleSeries = allSimple;
+		if(possibleCouples != null)
+			couples = buildCouples(possibleCouples);
+	}
+
+	/**
+	 * Finds the positions of the couples of simple series to combine.
+	 *
+	 * @param possibleCouples the couples, by name
+	 * @return the couples, by position
+	 */
+	private List<int[]> buildCouples(HashMap<String, String> possibleCouples) {
+		int first, second;
+		List<int[]> found = new ArrayList<int[]>();
+		for(Entry<String, String> couple : possibleCouples.entrySet()){
+			first = simpleSeries.indexOf(DataSeries.fromString(couple.getKey(), false));
+			second = simpleSeries.indexOf(DataSeries.fromString(couple.getValue(), false));
+			if(first >= 0 && second >= 0)
+				found.add(new int[]{first, second});
+			else AppLogger.logError(getClass(), "MissingSeries", "Unable to combine '" + couple.getKey() + "' and '" + couple.getValue() + "'");
+		}
+		return found;
+	}
+
+	/**
+	 * Gets the simple series that are generated.
+	 *
+	 * @return the simple series
+	 */
+	public List<DataSeries> getSimpleSeries() {
+		return simpleSeries;
+	}
+
+	/**
+	 * Gets the number of simple series skipped because constant or missing in the training set.
+	 *
+	 * @return the number of pruned simple series
+	 */
+	public int getPrunedSimpleSeries() {
+		return prunedSimple;
+	}
+
+	/**
+	 * Checks if a composite series is generated.
+	 *
+	 * @param first the position of the first operand
+	 * @param second the position of the second operand
+	 * @param operation the operation (0 sum, 1 difference, 2 fraction)
+	 * @return true, if generated
+	 */
+	private boolean isCandidate(int first, int second, int operation) {
+		if(simpleStats == null)
+			return true;
+		if(first == second)
+			return false;
+		switch(operation){
+			case 0:
+				return couples != null || first < second;
+			case 2:
+				return !simpleStats.get(second).isMostlyZero();
+			default:
+				return true;
+		}
+	}
+
+	/**
+	 * Builds a composite series.
+	 *
+	 * @param first the first operand
+	 * @param second the second operand
+	 * @param operation the operation (0 sum, 1 difference, 2 fraction)
+	 * @param dCat the data category
+	 * @return the composite series
+	 */
+	private static DataSeries buildComposite(DataSeries first, DataSeries second, int operation, DataCategory dCat) {
+		switch(operation){
+			case 0:
+				return new SumDataSeries(first, second, dCat);
+			case 1:
+				return new DiffDataSeries(first, second, dCat);
+			default:
+				return new FractionDataSeries(first, second, dCat);
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Iterable#iterator()
+	 */
+	@Override
+	public Iterator<DataSeries> iterator() {
+		return new CandidateIterator();
+	}
+
+	/**
+	 * The Class CandidateIterator.
+	 * Walks simple series, then couples, categories and operations, creating each candidate when reached.
+	 */
+	private class CandidateIterator implements Iterator<DataSeries> {
+
+		/** The position of the next simple series. */
+		private int simpleIndex = 0;
+
+		/** The position of the current couple. */
+		private int coupleIndex = 0;
+
+		/** The position of the current category. */
+		private int catIndex = 0;
+
+		/** The current operation. */
+		private int operation = 0;
+
+		/** The next series, null if not found yet. */
+		private DataSeries next;
+
+		/* (non-Javadoc)
+		 * @see java.util.Iterator#hasNext()
+		 */
+		@Override
+		public boolean hasNext() {
+			if(next == null)
+				next = advance();
+			return next != null;
+		}
+
+		/* (non-Javadoc)
+		 * @see java.util.Iterator#next()
+		 */
+		@Override
+		public DataSeries next() {
+			DataSeries current;
+			if(!hasNext())
+				throw new NoSuchElementException();
+			current = next;
+			next = null;
+			return current;
+		}
+
+		/**
+		 * Finds the next candidate.
+		 *
+		 * @return the next candidate, null if the candidates are over
+		 */
+		private DataSeries advance() {
+			int nSimple = simpleSeries.size();
+			int nCouples = couples != null ? couples.size() : nSimple*nSimple;
+			int first, second;
+			if(simpleIndex < nSimple)
+				return simpleSeries.get(simpleIndex++);
+			while(coupleIndex < nCouples){
+				if(couples != null){
+					first = couples.get(coupleIndex)[0];
+					second = couples.get(coupleIndex)[1];
+				} else {
+					first = coupleIndex / nSimple;
+					second = coupleIndex % nSimple;
+				}
+				DataSeries candidate = null;
+				if(isCandidate(first, second, operation))
+					candidate = buildComposite(simpleSeries.get(first), simpleSeries.get(second), operation, dataTypes[catIndex]);
+				if(++operation == 3){
+					operation = 0;
+					if(++catIndex == dataTypes.length){
+						catIndex = 0;
+						coupleIndex++;
+					}
+				}
+				if(candidate != null)
+					return candidate;
+			}
+			return null;
+		}
+
+		/* (non-Javadoc)
+		 * @see java.util.Iterator#remove()
+		 */
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+
+	}
+
+	/**
+	 * The Class SeriesStats.
+	 * Cheap statistics of a simple series over the training set.
+	 */
+	private static class SeriesStats {
+
+		/** The number of observed values. */
+		private long count;
+
+		/** The number of zero values. */
+		private long zeros;
+
+		/** The minimum value. */
+		private double min = Double.POSITIVE_INFINITY;
+
+		/** The maximum value. */
+		private double max = Double.NEGATIVE_INFINITY;
+
+		/**
+		 * Instantiates the statistics of a simple series.
+		 *
+		 * @param dataSeries the simple series
+		 * @param expList the training set
+		 */
+		public SeriesStats(IndicatorDataSeries dataSeries, List<ExperimentData> expList) {
+			ColumnStore store;
+			int indIndex;
+			double value;
+			for(ExperimentData expData : expList){
+				store = expData.getColumnStore();
+				indIndex = store.getIndicatorIndex(dataSeries.getIndicator());
+				if(indIndex >= 0){
+					for(int i=0;i<store.size();i++){
+						value = store.getValue(indIndex, dataSeries.getDataCategory(), i);
+						if(!Double.isNaN(value)){
+							count++;
+							if(value == 0)
+								zeros++;
+							if(value < min)
+								min = value;
+							if(value > max)
+								max = value;
+						}
+					}
+				}
+			}
+		}
+
+		/**
+		 * Checks if the series may be informative, being observed and not constant.
+		 *
+		 * @return true, if informative
+		 */
+		public boolean isInformative() {
+			return count > 0 && max > min;
+		}
+
+		/**
+		 * Checks if the series is zero in most of the observations.
+		 *
+		 * @return true, if mostly zero
+		 */
+		public boolean isMostlyZero() {
+			return zeros > MAX_ZERO_DENOMINATOR*count;
+		}
+
+	}
+
+}
@@ -0,0 +1,92 @@
+/**
+ *
+ */
+package ippoz.multilayer.detector.commons.dataseries;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * The Class DataSeriesRegistry.
+ * Interns the parsed data series of a detection job by their string key (name, category, layer) and by the name they were parsed from,
+ * so that each series name is parsed once, giving each of them an integer id. Equal registered series share the same id, so that they are compared in constant time.
+ * The expressions of composite series get their own ids, shared by all the categories of the expression, which key the columns computed for them.
+ * The registry is cleared at the end of each job by {@link #clear()}; ids are never reused, so series registered before keep distinct ids.
+ *
+ * @author Tommy
+ */
+public class DataSeriesRegistry {
+
+	/** The canonical series, by key or parsed name. */
+	private static HashMap<String, DataSeries> seriesMap = new HashMap<String, DataSeries>();
+
+	/** The ids of the expressions, by series name. */
+	private static HashMap<String, Integer> expressionIds = new HashMap<String, Integer>();
+
+	/** The id of the next registered series. */
+	private static int nextSeriesId = 0;
+
+	/** The id of the next registered expression. */
+	private static int nextExpressionId = 0;
+
+	/**
+	 * Instantiates a new data series registry.
+	 */
+	private DataSeriesRegistry(){}
+
+	/**
+	 * Gets the canonical instance of a series, registering the series if it was not seen before.
+	 * The id of the series is set as a side effect.
+	 *
+	 * @param dataSeries the data series
+	 * @param alias a further name the series can be looked up by, as the string it was parsed from
+	 * @return the canonical series
+	 */
+	public static synchronized DataSeries intern(DataSeries dataSeries, String alias){
+		String key = dataSeries.toString();
+		DataSeries canonical = seriesMap.get(key);
+		if(canonical == null){
+			canonical = dataSeries;
+			canonical.setId(nextSeriesId++);
+			seriesMap.put(key, canonical);
+		} else if(dataSeries != canonical)
+			dataSeries.setId(canonical.getId());
+		if(alias != null && !alias.equals(key))
+			seriesMap.put(alias, canonical);
+		return canonical;
+	}
+
+	/**
+	 * Gets a registered series by name.
+	 *
+	 * @param seriesName the series name, as returned by toString or previously parsed
+	 * @return the canonical series, null if not registered
+	 */
+	public static synchronized DataSeries getDataSeries(String seriesName){
+		return seriesMap.get(seriesName);
+	}
+
+	/**
+	 * Gets the id of the expression of a series, registering it if it was not seen before.
+	 *
+	 * @param seriesName the series name, which is the expression of composite series
+	 * @return the expression id
+	 */
+	public static synchronized int getExpressionId(String seriesName){
+		Integer id = expressionIds.get(seriesName);
+		if(id == null){
+			id = nextExpressionId++;
+			expressionIds.put(seriesName, id);
+		}
+		return id;
+	}
+
+	/**
+	 * Clears the registry, at the end of a detection job.
+	 */
+	public static synchronized void clear(){
+		seriesMap.clear();
+		expressionIds.clear();
+	}
+
+}
@@ -16,9 +16,10 @@ public class FractionDataSeries extends ComplexDataSeries {
 
 	@Override
 	protected Double composePlain(Observation obs) {
-		if(secondOperand.getSeriesValue(obs) != 0)
-			return firstOperand.getSeriesValue(obs) / secondOperand.getSeriesValue(obs);
-		else return Double.NaN;	
+		double second = secondOperand.getSeriesValue(obs);
+		if(second != 0)
+			return firstOperand.getSeriesValue(obs) / second;
+		else return Double.NaN;
 	}
 
 	@Override
@@ -1,6 +1,5 @@
 package ippoz.multilayer.detector.commons.dataseries;
 
-import java.util.Date;
 
 import ippoz.multilayer.detector.commons.data.Observation;
 import ippoz.multilayer.detector.commons.datacategory.DataCategory;
@@ -23,23 +22,27 @@ public class IndicatorDataSeries extends DataSeries {
 		this.indicator = indicator;
 	}
 
+	public Indicator getIndicator() {
+		return indicator;
+	}
+
 	@Override
 	public LayerType getLayerType() {
 		return indicator.getLayer();
 	}
 
 	@Override
-	public StatPair getSeriesServiceStat(Date timestamp, ServiceCall sCall, ServiceStat sStat) {
+	public StatPair getSeriesServiceStat(long timestamp, ServiceCall sCall, ServiceStat sStat) {
 		return DataSeries.getPairByTime(timestamp, sCall, sStat.getIndStat(indicator.getName()));
 	}
 
 	@Override
 	protected Double getPlainSeriesValue(Observation obs) {
-		return Double.valueOf(obs.getValue(indicator.getName(), DataCategory.PLAIN));
+		return obs.getValue(indicator, DataCategory.PLAIN);
 	}
 
 	@Override
 	protected Double getDiffSeriesValue(Observation obs) {
-		return Double.valueOf(obs.getValue(indicator.getName(), DataCategory.DIFFERENCE));
+		return obs.getValue(indicator, DataCategory.DIFFERENCE);
 	}
 }
@@ -0,0 +1,364 @@
+package ippoz.multilayer.detector.commons.dataseries;
+
+import ippoz.multilayer.detector.commons.data.ColumnStore;
+import ippoz.multilayer.detector.commons.data.SeriesColumnCache;
+import ippoz.multilayer.detector.commons.datacategory.DataCategory;
+import ippoz.multilayer.detector.commons.indicator.Indicator;
+import ippoz.multilayer.detector.commons.support.AppLogger;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+
+/**
+ * The Class SeriesEvaluator.
+ * Flat evaluator of a data series, compiled from its expression tree.
+ * Leaves are loaded as whole columns of a column store, and each operator is applied to whole columns by a {@link SeriesKernels} loop,
+ * instead of walking the tree for every observation. Sub-expressions and leaves shared in the tree are evaluated once.
+ * Results are the same as {@link DataSeries#getSeriesValue(ippoz.multilayer.detector.commons.data.Observation)}.
+ * Registers are keyed by the ids of the indicator or expression they hold and by category, so that they can be shared through a {@link SeriesColumnCache}.
+ *
+ * @author Tommy
+ */
+public class SeriesEvaluator {
+
+	private static final int ADD = 0;
+
+	private static final int SUBTRACT = 1;
+
+	private static final int MULTIPLY = 2;
+
+	private static final int DIVIDE = 3;
+
+	private static final int PRODUCT_DIFF = 4;
+
+	private static final int FRACTION_DIFF = 5;
+
+	/** The indicators loaded in the first registers. */
+	private Indicator[] loadIndicators;
+
+	/** The categories loaded in the first registers. */
+	private DataCategory[] loadCategories;
+
+	/** The operators, each one writing the register that follows the loaded ones and the previous operators. */
+	private int[] opCodes;
+
+	/** The registers read by each operator. */
+	private int[][] opArgs;
+
+	/** The key of the series held by each register. */
+	private long[] registerKeys;
+
+	/** The register holding the value of the series. */
+	private int resultRegister;
+
+	private SeriesEvaluator(Indicator[] loadIndicators, DataCategory[] loadCategories, int[] opCodes, int[][] opArgs, long[] registerKeys, int resultRegister) {
+		this.loadIndicators = loadIndicators;
+		this.loadCategories = loadCategories;
+		this.opCodes = opCodes;
+		this.opArgs = opArgs;
+		this.registerKeys = registerKeys;
+		this.resultRegister = resultRegister;
+	}
+
+	/**
+	 * Compiles a data series.
+	 *
+	 * @param dataSeries the data series
+	 * @return the evaluator, null if the series contains categories or operators that cannot be compiled
+	 */
+	public static SeriesEvaluator compile(DataSeries dataSeries) {
+		Compiler compiler = new Compiler();
+		int result = compiler.value(dataSeries);
+		if(result < 0)
+			return null;
+		return compiler.build(result);
+	}
+
+	/**
+	 * Evaluates the series on all the observations of a column store.
+	 *
+	 * @param store the column store
+	 * @return a new array with the value of the series for each observation
+	 */
+	public double[] evaluate(ColumnStore store) {
+		return new Evaluation(store, null).register(resultRegister);
+	}
+
+	/**
+	 * Evaluates the series on all the observations of a column store, reusing the columns of the series and sub-series
+	 * already computed for that store. Computed columns are added to the cache.
+	 *
+	 * @param store the column store
+	 * @param cache the columns of the series of the store
+	 * @return the value of the series for each observation, shared with the cache
+	 */
+	public double[] evaluate(ColumnStore store, SeriesColumnCache cache) {
+		return new Evaluation(store, cache).register(resultRegister);
+	}
+
+	/**
+	 * Builds the key of the column of an indicator.
+	 *
+	 * @param indicator the indicator
+	 * @param dataCategory the data category
+	 * @return the key
+	 */
+	private static long buildKey(Indicator indicator, DataCategory dataCategory) {
+		return ((long)indicator.getId() << 8 | dataCategory.ordinal()) << 1;
+	}
+
+	/**
+	 * Builds the key of the column of a composite series, shared by all the series with the same expression.
+	 *
+	 * @param dataSeries the composite series
+	 * @param dataCategory the data category
+	 * @return the key
+	 */
+	private static long buildKey(DataSeries dataSeries, DataCategory dataCategory) {
+		return ((long)DataSeriesRegistry.getExpressionId(dataSeries.getName()) << 8 | dataCategory.ordinal()) << 1 | 1;
+	}
+
+	/**
+	 * Gets the number of columns loaded from the store.
+	 *
+	 * @return the number of loaded columns
+	 */
+	public int getLoadCount() {
+		return loadIndicators.length;
+	}
+
+	/**
+	 * Gets the number of operators applied to the columns.
+	 *
+	 * @return the number of operators
+	 */
+	public int getOperatorCount() {
+		return opCodes.length;
+	}
+
+	/**
+	 * The Class Evaluation.
+	 * Evaluates the registers of the series on a column store, computing only the ones that are needed and not cached.
+	 */
+	private class Evaluation {
+
+		private ColumnStore store;
+
+		private SeriesColumnCache cache;
+
+		private double[][] registers;
+
+		public Evaluation(ColumnStore store, SeriesColumnCache cache) {
+			this.store = store;
+			this.cache = cache;
+			registers = new double[loadIndicators.length + opCodes.length][];
+		}
+
+		private double[] register(final int register) {
+			if(registers[register] == null){
+				if(cache != null)
+					registers[register] = cache.getColumn(registerKeys[register], () -> compute(register));
+				else registers[register] = compute(register);
+			}
+			return registers[register];
+		}
+
+		private double[] compute(int register) {
+			if(register < loadIndicators.length)
+				return load(register);
+			int k = register - loadIndicators.length;
+			int n = store.size();
+			double[] out = new double[n];
+			double[] a = register(opArgs[k][0]);
+			double[] b = register(opArgs[k][1]);
+			switch(opCodes[k]){
+				case ADD:
+					SeriesKernels.add(a, b, out);
+					break;
+				case SUBTRACT:
+					SeriesKernels.subtract(a, b, out);
+					break;
+				case MULTIPLY:
+					SeriesKernels.multiply(a, b, out);
+					break;
+				case DIVIDE:
+					SeriesKernels.divide(a, b, out);
+					break;
+				case PRODUCT_DIFF:
+					SeriesKernels.productDiff(a, b, register(opArgs[k][2]), register(opArgs[k][3]), out);
+					break;
+				case FRACTION_DIFF:
+					SeriesKernels.fractionDiff(a, b, register(opArgs[k][2]), register(opArgs[k][3]), out);
+					break;
+			}
+			return out;
+		}
+
+		private double[] load(int register) {
+			int indIndex = store.getIndicatorIndex(loadIndicators[register]);
+			if(indIndex >= 0)
+				return store.copyColumn(indIndex, loadCategories[register]);
+			AppLogger.logError(getClass(), "NoSuchIndicator", "Unable to find Indicator '" + loadIndicators[register].getName() + "'");
+			double[] column = new double[store.size()];
+			Arrays.fill(column, Double.NaN);
+			return column;
+		}
+
+	}
+
+	/**
+	 * The Class Compiler.
+	 * Walks a data series tree, assigning a register to each (sub-series, category) pair.
+	 * Operator registers are numbered after the loaded ones once the walk is complete.
+	 */
+	private static class Compiler {
+
+		private ArrayList<Indicator> loadIndicators = new ArrayList<Indicator>();
+
+		private ArrayList<DataCategory> loadCategories = new ArrayList<DataCategory>();
+
+		private HashMap<Long, Integer> loadRegisters = new HashMap<Long, Integer>();
+
+		private ArrayList<Integer> opCodes = new ArrayList<Integer>();
+
+		private ArrayList<int[]> opArgs = new ArrayList<int[]>();
+
+		private ArrayList<Long> loadKeys = new ArrayList<Long>();
+
+		private ArrayList<Long> opKeys = new ArrayList<Long>();
+
+		private IdentityHashMap<DataSeries, Integer> plainRegisters = new IdentityHashMap<DataSeries, Integer>();
+
+		private IdentityHashMap<DataSeries, Integer> diffRegisters = new IdentityHashMap<DataSeries, Integer>();
+
+		/**
+		 * Compiles the value of a series, as returned by getSeriesValue.
+		 *
+		 * @return the register, negative if not compilable
+		 */
+		private int value(DataSeries ds) {
+			if(ds == null)
+				return -1;
+			switch(ds.getDataCategory()){
+				case PLAIN:
+					return plain(ds);
+				case DIFFERENCE:
+					return diff(ds);
+				default:
+					return -1;
+			}
+		}
+
+		/**
+		 * Compiles the plain value of a series, as returned by getPlainSeriesValue.
+		 *
+		 * @return the register, negative if not compilable
+		 */
+		private int plain(DataSeries ds) {
+			Integer register = plainRegisters.get(ds);
+			if(register == null){
+				if(ds instanceof IndicatorDataSeries)
+					register = load(((IndicatorDataSeries)ds).getIndicator(), DataCategory.PLAIN);
+				else if(ds instanceof ComplexDataSeries){
+					int first = value(((ComplexDataSeries)ds).getFirstOperand());
+					int second = value(((ComplexDataSeries)ds).getSecondOperand());
+					if(ds instanceof SumDataSeries)
+						register = emit(ADD, buildKey(ds, DataCategory.PLAIN), first, second);
+					else if(ds instanceof DiffDataSeries)
+						register = emit(SUBTRACT, buildKey(ds, DataCategory.PLAIN), first, second);
+					else if(ds instanceof ProductDataSeries)
+						register = emit(MULTIPLY, buildKey(ds, DataCategory.PLAIN), first, second);
+					else if(ds instanceof FractionDataSeries)
+						register = emit(DIVIDE, buildKey(ds, DataCategory.PLAIN), first, second);
+					else register = -1;
+				} else register = -1;
+				plainRegisters.put(ds, register);
+			}
+			return register;
+		}
+
+		/**
+		 * Compiles the diff value of a series, as returned by getDiffSeriesValue.
+		 *
+		 * @return the register, negative if not compilable
+		 */
+		private int diff(DataSeries ds) {
+			Integer register = diffRegisters.get(ds);
+			if(register == null){
+				if(ds instanceof IndicatorDataSeries)
+					register = load(((IndicatorDataSeries)ds).getIndicator(), DataCategory.DIFFERENCE);
+				else if(ds instanceof ComplexDataSeries){
+					DataSeries first = ((ComplexDataSeries)ds).getFirstOperand();
+					DataSeries second = ((ComplexDataSeries)ds).getSecondOperand();
+					if(first == null || second == null)
+						register = -1;
+					else if(ds instanceof SumDataSeries)
+						register = emit(ADD, buildKey(ds, DataCategory.DIFFERENCE), diff(first), diff(second));
+					else if(ds instanceof DiffDataSeries)
+						register = emit(SUBTRACT, buildKey(ds, DataCategory.DIFFERENCE), diff(first), diff(second));
+					else if(ds instanceof ProductDataSeries)
+						register = emit(PRODUCT_DIFF, buildKey(ds, DataCategory.DIFFERENCE), plain(first), plain(second), diff(first), diff(second));
+					else if(ds instanceof FractionDataSeries)
+						register = emit(FRACTION_DIFF, buildKey(ds, DataCategory.DIFFERENCE), plain(first), plain(second), diff(first), diff(second));
+					else register = -1;
+				} else register = -1;
+				diffRegisters.put(ds, register);
+			}
+			return register;
+		}
+
+		private int load(Indicator indicator, DataCategory category) {
+			long key = buildKey(indicator, category);
+			Integer register = loadRegisters.get(key);
+			if(register == null){
+				register = loadIndicators.size();
+				loadIndicators.add(indicator);
+				loadCategories.add(category);
+				loadKeys.add(key);
+				loadRegisters.put(key, register);
+			}
+			return register;
+		}
+
+		/**
+		 * Adds an operator. Until the walk is complete, operator registers are counted down from Integer.MAX_VALUE.
+		 *
+		 * @return the register of the result, negative if any argument is not compilable
+		 */
+		private int emit(int opCode, long key, int... args) {
+			for(int arg : args){
+				if(arg < 0)
+					return -1;
+			}
+			opCodes.add(opCode);
+			opArgs.add(args);
+			opKeys.add(key);
+			return Integer.MAX_VALUE - (opCodes.size() - 1);
+		}
+
+		private int resolve(int register) {
+			return register > Integer.MAX_VALUE - opCodes.size() ? loadIndicators.size() + (Integer.MAX_VALUE - register) : register;
+		}
+
+		private SeriesEvaluator build(int result) {
+			int[] codes = new int[opCodes.size()];
+			int[][] args = new int[opArgs.size()][];
+			for(int k=0;k<codes.length;k++){
+				codes[k] = opCodes.get(k);
+				args[k] = new int[opArgs.get(k).length];
+				for(int j=0;j<args[k].length;j++){
+					args[k][j] = resolve(opArgs.get(k)[j]);
+				}
+			}
+			long[] keys = new long[loadKeys.size() + opKeys.size()];
+			for(int r=0;r<keys.length;r++){
+				keys[r] = r < loadKeys.size() ? loadKeys.get(r) : opKeys.get(r - loadKeys.size());
+			}
+			return new SeriesEvaluator(loadIndicators.toArray(new Indicator[loadIndicators.size()]), loadCategories.toArray(new DataCategory[loadCategories.size()]), codes, args, keys, resolve(result));
+		}
+
+	}
+
+}
@@ -0,0 +1,99 @@
+/**
+ *
+ */
+package ippoz.multilayer.detector.commons.dataseries;
+
+/**
+ * The Class SeriesKernels.
+ * Column kernels applying the operators of composite series to whole columns.
+ * Kernels are counted, branch-free loops over arrays, the shape the JIT compiler unrolls and vectorizes:
+ * divisions compute the quotient of every observation and then select NaN where the divisor is zero, instead of branching on it.
+ * Each element is computed with the same operations of the per-observation path, so results are identical.
+ * Setting the system property {@value #REFERENCE_PROPERTY} to true selects the reference loops, branching as the per-observation path does.
+ *
+ * @author Tommy
+ */
+final class SeriesKernels {
+
+	/** The system property selecting the reference loops. */
+	public static final String REFERENCE_PROPERTY = "detector.kernels.reference";
+
+	/** True if the reference loops are used. */
+	private static final boolean REFERENCE = Boolean.getBoolean(REFERENCE_PROPERTY);
+
+	/**
+	 * Instantiates the series kernels.
+	 */
+	private SeriesKernels(){}
+
+	/**
+	 * Computes out = a + b.
+	 */
+	static void add(double[] a, double[] b, double[] out) {
+		for(int i=0;i<out.length;i++){
+			out[i] = a[i] + b[i];
+		}
+	}
+
+	/**
+	 * Computes out = a - b.
+	 */
+	static void subtract(double[] a, double[] b, double[] out) {
+		for(int i=0;i<out.length;i++){
+			out[i] = a[i] - b[i];
+		}
+	}
+
+	/**
+	 * Computes out = a * b.
+	 */
+	static void multiply(double[] a, double[] b, double[] out) {
+		for(int i=0;i<out.length;i++){
+			out[i] = a[i] * b[i];
+		}
+	}
+
+	/**
+	 * Computes out = a / b, NaN where b is zero.
+	 */
+	static void divide(double[] a, double[] b, double[] out) {
+		if(REFERENCE){
+			for(int i=0;i<out.length;i++){
+				out[i] = b[i] != 0 ? a[i] / b[i] : Double.NaN;
+			}
+		} else {
+			for(int i=0;i<out.length;i++){
+				double q = a[i] / b[i];
+				out[i] = b[i] == 0 ? Double.NaN : q;
+			}
+		}
+	}
+
+	/**
+	 * Computes the diff of a product, out = a*b - (a-c)*(b-d), where a and b are the plain operands and c and d their diffs.
+	 */
+	static void productDiff(double[] a, double[] b, double[] c, double[] d, double[] out) {
+		for(int i=0;i<out.length;i++){
+			out[i] = a[i]*b[i] - (a[i]-c[i])*(b[i]-d[i]);
+		}
+	}
+
+	/**
+	 * Computes the diff of a fraction, out = a/b - (a-c)/(b-d), where a and b are the plain operands and c and d their diffs.
+	 * Observations where b or b-d are zero are NaN.
+	 */
+	static void fractionDiff(double[] a, double[] b, double[] c, double[] d, double[] out) {
+		if(REFERENCE){
+			for(int i=0;i<out.length;i++){
+				out[i] = b[i] != 0 && (b[i]-d[i]) != 0 ? a[i]/b[i] - (a[i]-c[i])/(b[i]-d[i]) : Double.NaN;
+			}
+		} else {
+			for(int i=0;i<out.length;i++){
+				double e = b[i] - d[i];
+				double q = a[i]/b[i] - (a[i]-c[i])/e;
+				out[i] = (b[i] == 0 | e == 0) ? Double.NaN : q;
+			}
+		}
+	}
+
+}
@@ -0,0 +1,132 @@
+/**
+ *
+ */
+package ippoz.multilayer.detector.commons.dataseries;
+
+import ippoz.multilayer.detector.commons.data.ColumnStore;
+import ippoz.multilayer.detector.commons.data.DenseColumnStore;
+import ippoz.multilayer.detector.commons.data.Observation;
+import ippoz.multilayer.detector.commons.datacategory.DataCategory;
+import ippoz.multilayer.detector.commons.indicator.Indicator;
+import ippoz.multilayer.detector.commons.indicator.IndicatorRegistry;
+import ippoz.multilayer.detector.commons.layer.LayerType;
+import ippoz.multilayer.detector.commons.support.AppLogger;
+
+import java.io.File;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * The Class SeriesKernelsCheck.
+ * Checks that the column kernels give the same values of the per-observation path.
+ * Composite series are evaluated as columns by {@link SeriesEvaluator} and, one observation at a time, by {@link DataSeries#getSeriesValue(Observation)}
+ * on a store whose operands contain zeros, NaNs and equal plain and diff values, and the two results must be bit-identical.
+ * The check runs with the kernels selected by {@value SeriesKernels#REFERENCE_PROPERTY}, and then again in a child JVM with the reference loops.
+ * The process exits with a non-zero status if any value differs.
+ *
+ * @author Tommy
+ */
+public class SeriesKernelsCheck {
+
+	/** The values of the operands, combined pairwise. */
+	private static final double[] VALUES = {0.0, -0.0, 1.0, -2.5, 3.0, Double.NaN, 1e300, Double.MIN_VALUE};
+
+	/**
+	 * The main method.
+	 *
+	 * @param args the default console arguments: currently not used
+	 */
+	public static void main(String[] args) {
+		boolean reference = Boolean.getBoolean(SeriesKernels.REFERENCE_PROPERTY);
+		int mismatches = check();
+		AppLogger.logInfo(SeriesKernelsCheck.class, (reference ? "Reference" : "Default") + " kernels: " + mismatches + " mismatching values");
+		try {
+			if(mismatches == 0 && !reference && runReference() != 0)
+				mismatches = -1;
+		} catch(Exception ex) {
+			AppLogger.logException(SeriesKernelsCheck.class, ex, "Unable to check the reference kernels");
+			mismatches = -1;
+		}
+		if(mismatches != 0)
+			System.exit(1);
+	}
+
+	/**
+	 * Runs the check again in a child JVM with the reference kernels.
+	 *
+	 * @return the exit status of the child JVM
+	 * @throws Exception if the child JVM cannot be started
+	 */
+	private static int runReference() throws Exception {
+		String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+		ProcessBuilder pb = new ProcessBuilder(java, "-D" + SeriesKernels.REFERENCE_PROPERTY + "=true", "-cp", System.getProperty("java.class.path"), SeriesKernelsCheck.class.getName());
+		pb.inheritIO();
+		return pb.start().waitFor();
+	}
+
+	/**
+	 * Compares the column and the per-observation values of the composite series of two indicators.
+	 * The store holds every couple of {@link #VALUES} as plain and diff values of both indicators.
+	 *
+	 * @return the number of mismatching values
+	 */
+	private static int check() {
+		DenseColumnStore.Builder builder = new DenseColumnStore.Builder();
+		Indicator first = IndicatorRegistry.getIndicator("check_a", LayerType.values()[0], Double.class);
+		Indicator second = IndicatorRegistry.getIndicator("check_b", LayerType.values()[0], Double.class);
+		builder.addIndicator(first);
+		builder.addIndicator(second);
+		int row = 0;
+		for(double a : VALUES){
+			for(double b : VALUES){
+				for(double d : new double[]{0.0, b, Double.NaN}){
+					row = builder.addObservation(row);
+					builder.setValue(0, DataCategory.PLAIN, row, a);
+					builder.setValue(0, DataCategory.DIFFERENCE, row, a - b);
+					builder.setValue(1, DataCategory.PLAIN, row, b);
+					builder.setValue(1, DataCategory.DIFFERENCE, row, d);
+					row++;
+				}
+			}
+		}
+		ColumnStore store = builder.build();
+		int mismatches = 0;
+		for(DataSeries dataSeries : buildSeries(first, second)){
+			double[] column = SeriesEvaluator.compile(dataSeries).evaluate(store);
+			for(int i=0;i<store.size();i++){
+				Double value = dataSeries.getSeriesValue(new Observation(store, i));
+				if(Double.doubleToLongBits(value != null ? value : Double.NaN) != Double.doubleToLongBits(column[i])){
+					AppLogger.logError(SeriesKernelsCheck.class, "KernelMismatch", dataSeries + " at " + i + ": " + value + " instead of " + column[i]);
+					mismatches++;
+				}
+			}
+		}
+		return mismatches;
+	}
+
+	/**
+	 * Builds the composite series of two indicators: sum, difference, product and fraction, in both orders and both categories.
+	 *
+	 * @param first the first indicator
+	 * @param second the second indicator
+	 * @return the composite series
+	 */
+	private static List<DataSeries> buildSeries(Indicator first, Indicator second) {
+		List<DataSeries> seriesList = new LinkedList<DataSeries>();
+		DataCategory[] dataTypes = new DataCategory[]{DataCategory.PLAIN, DataCategory.DIFFERENCE};
+		for(DataCategory operandType : dataTypes){
+			DataSeries a = new IndicatorDataSeries(first, operandType);
+			DataSeries b = new IndicatorDataSeries(second, operandType);
+			for(DataCategory dataType : dataTypes){
+				seriesList.add(new SumDataSeries(a, b, dataType));
+				seriesList.add(new DiffDataSeries(a, b, dataType));
+				seriesList.add(new DiffDataSeries(b, a, dataType));
+				seriesList.add(new ProductDataSeries(a, b, dataType));
+				seriesList.add(new FractionDataSeries(a, b, dataType));
+				seriesList.add(new FractionDataSeries(b, a, dataType));
+			}
+		}
+		return seriesList;
+	}
+
+}
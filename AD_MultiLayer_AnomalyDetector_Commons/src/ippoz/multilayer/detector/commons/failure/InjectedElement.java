@@ -3,8 +3,6 @@
  */
 package ippoz.multilayer.detector.commons.failure;
 
-import java.util.Date;
-
 /**
  * The Class InjectedElement.
  * Represents a failure injected a given time.
@@ -14,7 +12,7 @@ import java.util.Date;
 public class InjectedElement {
 	
 	/** The failure timestamp. */
-	private Date timestamp;
+	private long timestamp;
 	
 	/** The failure duration. */
 	private int duration;
@@ -25,10 +23,10 @@ public class InjectedElement {
 	/**
 	 * Instantiates a new injected element.
 	 *
-	 * @param timestamp the timestamp
+	 * @param timestamp the timestamp, in epoch millis
 	 * @param description the description
 	 */
-	public InjectedElement(Date timestamp, String description, int duration) {
+	public InjectedElement(long timestamp, String description, int duration) {
 		this.timestamp = timestamp;
 		this.duration = duration;
 		this.description = description;
@@ -48,7 +46,7 @@ public class InjectedElement {
 	 *
 	 * @return the timestamp
 	 */
-	public Date getTimestamp() {
+	public long getTimestamp() {
 		return timestamp;
 	}
 	
@@ -61,12 +59,12 @@ public class InjectedElement {
 		return duration;
 	}
 
-	public boolean compliesWith(Date refTime) {
-		return timestamp.getTime() <= refTime.getTime() && refTime.getTime() <= timestamp.getTime() + duration*1000;
+	public boolean compliesWith(long refTime) {
+		return timestamp <= refTime && refTime <= timestamp + duration*1000;
 	}
 
-	public boolean happensAt(Date refTime) {
-		return timestamp.equals(refTime);
+	public boolean happensAt(long refTime) {
+		return timestamp == refTime;
 	}
 
 }
@@ -10,6 +10,9 @@ import ippoz.multilayer.detector.commons.layer.LayerType;
  */
 public class Indicator implements Comparable<Indicator>{
 
+    /** The indicator id, assigned by the {@link IndicatorRegistry}. */
+    private int indicatorId;
+
     /** The indicator name. */
     private String indicatorName;
 
@@ -21,12 +24,15 @@ public class Indicator implements Comparable<Indicator>{
 
     /**
      * Instantiates a new indicator.
+     * Indicators are created by the {@link IndicatorRegistry}, that interns them by name and layer.
      *
+     * @param indicatorId the indicator id
      * @param indicatorName the indicator name
      * @param indicatorLayer the indicator layer
      * @param indicatorType the indicator value type
      */
-    public Indicator(String indicatorName, LayerType indicatorLayer, Class<?> indicatorType) {
+    Indicator(int indicatorId, String indicatorName, LayerType indicatorLayer, Class<?> indicatorType) {
+        this.indicatorId = indicatorId;
         this.indicatorName = indicatorName;
         this.indicatorLayer = indicatorLayer;
         this.indicatorType = indicatorType;
@@ -42,6 +48,15 @@ public class Indicator implements Comparable<Indicator>{
         return indicatorType.cast(rawValue);
     }
 
+    /**
+     * Gets the indicator id.
+     *
+     * @return the id
+     */
+    public int getId(){
+        return indicatorId;
+    }
+
     /**
      * Gets the indicator name.
      *
@@ -68,4 +83,25 @@ public class Indicator implements Comparable<Indicator>{
     public int compareTo(Indicator other) {
         return indicatorName.compareTo(other.getName());
     }
+
+    /* (non-Javadoc)
+     * @see java.lang.Object#equals(java.lang.Object)
+     */
+    @Override
+    public boolean equals(Object other) {
+        if(this == other)
+            return true;
+        if(!(other instanceof Indicator))
+            return false;
+        Indicator otherInd = (Indicator)other;
+        return indicatorName.equals(otherInd.getName()) && indicatorLayer == otherInd.getLayer();
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Object#hashCode()
+     */
+    @Override
+    public int hashCode() {
+        return 31*indicatorName.hashCode() + (indicatorLayer != null ? indicatorLayer.hashCode() : 0);
+    }
 }
@@ -0,0 +1,83 @@
+/**
+ *
+ */
+package ippoz.multilayer.detector.commons.indicator;
+
+import ippoz.multilayer.detector.commons.layer.LayerType;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * The Class IndicatorRegistry.
+ * Interns the indicators of the application by (name, layer), giving each of them a dense integer id.
+ * Column stores use the ids to locate the column of an indicator with an array access instead of a search by name.
+ *
+ * @author Tommy
+ */
+public class IndicatorRegistry {
+
+	/** The registered indicators, by (name, layer) key. */
+	private static HashMap<String, Indicator> indicatorMap = new HashMap<String, Indicator>();
+
+	/** The registered indicators, by id. */
+	private static ArrayList<Indicator> indicatorList = new ArrayList<Indicator>();
+
+	/**
+	 * Instantiates a new indicator registry.
+	 */
+	private IndicatorRegistry(){}
+
+	/**
+	 * Gets the indicator with the given name and layer, registering it if it was not seen before.
+	 * The value type is only used when the indicator is registered.
+	 *
+	 * @param indicatorName the indicator name
+	 * @param indicatorLayer the indicator layer
+	 * @param indicatorType the indicator value type
+	 * @return the registered indicator
+	 */
+	public static synchronized Indicator getIndicator(String indicatorName, LayerType indicatorLayer, Class<?> indicatorType){
+		String key = buildKey(indicatorName, indicatorLayer);
+		Indicator indicator = indicatorMap.get(key);
+		if(indicator == null){
+			indicator = new Indicator(indicatorList.size(), indicatorName, indicatorLayer, indicatorType);
+			indicatorMap.put(key, indicator);
+			indicatorList.add(indicator);
+		}
+		return indicator;
+	}
+
+	/**
+	 * Gets a registered indicator.
+	 *
+	 * @param indicatorId the indicator id
+	 * @return the indicator, null if no indicator has that id
+	 */
+	public static synchronized Indicator getIndicator(int indicatorId){
+		if(indicatorId >= 0 && indicatorId < indicatorList.size())
+			return indicatorList.get(indicatorId);
+		else return null;
+	}
+
+	/**
+	 * Returns the number of registered indicators.
+	 *
+	 * @return the number of indicators
+	 */
+	public static synchronized int size(){
+		return indicatorList.size();
+	}
+
+	/**
+	 * Builds the registry key of an indicator.
+	 *
+	 * @param indicatorName the indicator name
+	 * @param indicatorLayer the indicator layer
+	 * @return the key
+	 */
+	private static String buildKey(String indicatorName, LayerType indicatorLayer){
+		return indicatorName + "#" + (indicatorLayer != null ? indicatorLayer.toString() : "");
+	}
+
+}
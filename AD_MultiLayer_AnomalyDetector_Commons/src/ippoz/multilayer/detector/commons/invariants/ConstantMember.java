@@ -29,6 +29,18 @@ public class ConstantMember extends InvariantMember {
 		return baseValue;
 	}
 
+	@Override
+	public boolean equals(Object other) {
+		if(!(other instanceof ConstantMember))
+			return false;
+		return baseValue.equals(((ConstantMember)other).baseValue);
+	}
+
+	@Override
+	public int hashCode() {
+		return baseValue.hashCode();
+	}
+
 	@Override
 	public boolean contains(DataSeries serie) {
 		return false;
@@ -31,8 +31,14 @@ public class DataSeriesMember extends InvariantMember {
 
 	@Override
 	public boolean equals(Object other) {
-		DataSeriesMember oMember = (DataSeriesMember)other;
-		return oMember.getDataSeries().compareTo(dataSeries) == 0;
+		if(!(other instanceof DataSeriesMember))
+			return false;
+		return dataSeries.equals(((DataSeriesMember)other).getDataSeries());
+	}
+
+	@Override
+	public int hashCode() {
+		return dataSeries.hashCode();
 	}
 
 	public DataSeries getDataSeries() {
@@ -82,6 +82,19 @@ public class Invariant {
 		return firstMember.toString() + " " + operand + " " + secondMember.toString();
 	}
 
+	@Override
+	public boolean equals(Object other) {
+		if(!(other instanceof Invariant))
+			return false;
+		Invariant oInv = (Invariant)other;
+		return operand.equals(oInv.operand) && firstMember.equals(oInv.getFirstMember()) && secondMember.equals(oInv.getSecondMember());
+	}
+
+	@Override
+	public int hashCode() {
+		return (firstMember.hashCode()*31 + secondMember.hashCode())*31 + operand.hashCode();
+	}
+
 	public boolean contains(DataSeries serie) {
 		return firstMember.contains(serie) || secondMember.contains(serie);
 	}		
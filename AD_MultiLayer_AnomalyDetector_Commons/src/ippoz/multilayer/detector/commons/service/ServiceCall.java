@@ -5,8 +5,6 @@ package ippoz.multilayer.detector.commons.service;
 
 import ippoz.multilayer.detector.commons.support.AppUtility;
 
-import java.util.Date;
-
 /**
  * The Class ServiceCall.
  * Represents the data of a generic service call (serviceName, start, end, responseCode)
@@ -19,10 +17,10 @@ public class ServiceCall implements Comparable<ServiceCall> {
 	private String serviceName;
 	
 	/** The start time. */
-	private Date startTime;
+	private long startTime;
 	
 	/** The end time. */
-	private Date endTime;
+	private long endTime;
 	
 	/** The HTTP response code. */
 	private String responseCode;
@@ -31,11 +29,11 @@ public class ServiceCall implements Comparable<ServiceCall> {
 	 * Instantiates a new service call.
 	 *
 	 * @param serviceName the service name
-	 * @param startTime the start time
-	 * @param endTime the end time
+	 * @param startTime the start time, in epoch millis
+	 * @param endTime the end time, in epoch millis
 	 * @param responseCode the HTTP response code
 	 */
-	public ServiceCall(String serviceName, Date startTime, Date endTime, String responseCode) {
+	public ServiceCall(String serviceName, long startTime, long endTime, String responseCode) {
 		this.serviceName = serviceName;
 		this.startTime = startTime;
 		this.endTime = endTime;
@@ -51,7 +49,7 @@ public class ServiceCall implements Comparable<ServiceCall> {
 	 * @param responseCode the HTTP response code
 	 */
 	public ServiceCall(String serviceName, String startTime, String endTime, String responseCode) {
-		this(serviceName, AppUtility.convertStringToDate(startTime), AppUtility.convertStringToDate(endTime), responseCode);
+		this(serviceName, AppUtility.parseTimestamp(startTime), AppUtility.parseTimestamp(endTime), responseCode);
 	}
 	
 	/**
@@ -68,7 +66,7 @@ public class ServiceCall implements Comparable<ServiceCall> {
 	 *
 	 * @return the start time
 	 */
-	public Date getStartTime() {
+	public long getStartTime() {
 		return startTime;
 	}
 
@@ -77,7 +75,7 @@ public class ServiceCall implements Comparable<ServiceCall> {
 	 *
 	 * @return the end time
 	 */
-	public Date getEndTime() {
+	public long getEndTime() {
 		return endTime;
 	}
 	
@@ -96,14 +94,14 @@ public class ServiceCall implements Comparable<ServiceCall> {
 	 * @param timestamp the given timestamp
 	 * @return true, if the service is alive at time 'timestamp'
 	 */
-	public boolean isAliveAt(Date timestamp){
-		return timestamp.getTime() >= startTime.getTime() && timestamp.getTime() <= endTime.getTime();
+	public boolean isAliveAt(long timestamp){
+		return timestamp >= startTime && timestamp <= endTime;
 	}
 
 	@Override
 	public int compareTo(ServiceCall other) {
 		if(other.getServiceName().equals(serviceName) && other.getResponseCode().equals(responseCode)){
-			if(other.getStartTime().equals(startTime) && other.getEndTime().equals(endTime))
+			if(other.getStartTime() == startTime && other.getEndTime() == endTime)
 				return 0;
 			else return 1;
 		} else return -1;
@@ -0,0 +1,119 @@
+/**
+ *
+ */
+package ippoz.multilayer.detector.commons.service;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.TreeSet;
+
+/**
+ * The Class ServiceCallIndex.
+ * Indexes the service calls of an experiment by their lifetime, to find the calls alive at given timestamps with a sweep line.
+ * Calls are added to the active set when they start and removed when they end, so that each call is handled once per sweep.
+ * Timestamps with the same active calls share the same immutable array.
+ *
+ * @author Tommy
+ */
+public class ServiceCallIndex {
+
+	/** The empty set of calls. */
+	private static final ServiceCall[] NO_CALLS = new ServiceCall[0];
+
+	/** The indexed calls, in their original order. */
+	private ServiceCall[] calls;
+
+	/** The positions of the calls, sorted by start time. */
+	private Integer[] byStart;
+
+	/**
+	 * Instantiates a new service call index.
+	 *
+	 * @param callList the service calls
+	 */
+	public ServiceCallIndex(List<ServiceCall> callList) {
+		calls = callList.toArray(new ServiceCall[callList.size()]);
+		byStart = new Integer[calls.length];
+		for(int i=0;i<calls.length;i++){
+			byStart[i] = i;
+		}
+		Arrays.sort(byStart, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer first, Integer second) {
+				return Long.compare(calls[first].getStartTime(), calls[second].getStartTime());
+			}
+		});
+	}
+
+	/**
+	 * Gets the calls alive at each of the given timestamps.
+	 * Calls keep their original order. Arrays are shared among timestamps and must not be modified.
+	 *
+	 * @param timestamps the timestamps, in epoch millis
+	 * @return the calls alive at each timestamp
+	 */
+	public ServiceCall[][] getAliveCalls(long[] timestamps) {
+		int startIndex = 0;
+		boolean changed = true;
+		ServiceCall[] current = NO_CALLS;
+		ServiceCall[][] aliveCalls = new ServiceCall[timestamps.length][];
+		TreeSet<Integer> active = new TreeSet<Integer>();
+		PriorityQueue<Integer> byEnd = new PriorityQueue<Integer>(Math.max(1, calls.length), new Comparator<Integer>() {
+			@Override
+			public int compare(Integer first, Integer second) {
+				return Long.compare(calls[first].getEndTime(), calls[second].getEndTime());
+			}
+		});
+		for(int t : sortByTime(timestamps)){
+			while(startIndex < byStart.length && calls[byStart[startIndex]].getStartTime() <= timestamps[t]){
+				if(calls[byStart[startIndex]].getEndTime() >= timestamps[t]){
+					active.add(byStart[startIndex]);
+					byEnd.add(byStart[startIndex]);
+					changed = true;
+				}
+				startIndex++;
+			}
+			while(!byEnd.isEmpty() && calls[byEnd.peek()].getEndTime() < timestamps[t]){
+				active.remove(byEnd.poll());
+				changed = true;
+			}
+			if(changed){
+				current = active.isEmpty() ? NO_CALLS : new ServiceCall[active.size()];
+				int i = 0;
+				for(Integer callIndex : active){
+					current[i++] = calls[callIndex];
+				}
+				changed = false;
+			}
+			aliveCalls[t] = current;
+		}
+		return aliveCalls;
+	}
+
+	/**
+	 * Sorts the positions of the timestamps by time.
+	 *
+	 * @param timestamps the timestamps
+	 * @return the positions of the timestamps, in time order
+	 */
+	private static int[] sortByTime(final long[] timestamps) {
+		Integer[] sorted = new Integer[timestamps.length];
+		for(int i=0;i<timestamps.length;i++){
+			sorted[i] = i;
+		}
+		Arrays.sort(sorted, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer first, Integer second) {
+				return Long.compare(timestamps[first], timestamps[second]);
+			}
+		});
+		int[] order = new int[sorted.length];
+		for(int i=0;i<sorted.length;i++){
+			order[i] = sorted[i];
+		}
+		return order;
+	}
+
+}
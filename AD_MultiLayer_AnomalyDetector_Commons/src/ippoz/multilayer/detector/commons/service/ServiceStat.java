@@ -3,6 +3,7 @@
  */
 package ippoz.multilayer.detector.commons.service;
 
+import java.util.Collection;
 import java.util.HashMap;
 
 /**
@@ -82,6 +83,15 @@ public class ServiceStat {
 	 */
 	public IndicatorStat getIndStat(String indName) {
 		return indStat.get(indName);
-	}	
+	}
+	
+	/**
+	 * Gets all the indicator stats.
+	 *
+	 * @return the indicator stats
+	 */
+	public Collection<IndicatorStat> getIndStats() {
+		return indStat.values();
+	}
 
 }
@@ -6,12 +6,16 @@ import java.text.DateFormat;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * @author Tommy
  *
  */
 public class AppUtility {
+	
+	/** The epoch millis of the hours already parsed, by "yyyy-MM-dd HH" prefix. */
+	private static final ConcurrentHashMap<String, Long> HOUR_MILLIS = new ConcurrentHashMap<>();
 
 	public static boolean isWindows() {
 		return System.getProperty("os.name").toUpperCase().contains("WIN");
@@ -124,6 +128,68 @@ public class AppUtility {
 		return null;
 	}
 
+	/**
+	 * Parses a "yyyy-MM-dd HH:mm:ss" timestamp into epoch millis, ignoring any fraction of second.
+	 * The millis of each "yyyy-MM-dd HH" prefix are computed once and cached, then minutes and seconds are added.
+	 * Timestamps in other formats are parsed as in {@link #convertStringToDate(String)}.
+	 *
+	 * @param dateString the timestamp
+	 * @return the epoch millis, Long.MIN_VALUE if the timestamp cannot be parsed
+	 */
+	public static long parseTimestamp(String dateString){
+		if(dateString != null && dateString.length() >= 19 && dateString.charAt(13) == ':' && dateString.charAt(16) == ':'){
+			int minutes = parseTwoDigits(dateString, 14);
+			int seconds = parseTwoDigits(dateString, 17);
+			if(minutes >= 0 && minutes < 60 && seconds >= 0 && seconds < 60){
+				String hour = dateString.substring(0, 13);
+				Long hourMillis = HOUR_MILLIS.get(hour);
+				if(hourMillis == null){
+					try {
+						hourMillis = new SimpleDateFormat("yyyy-MM-dd HH").parse(hour).getTime();
+						HOUR_MILLIS.put(hour, hourMillis);
+					} catch (ParseException ex) {
+						hourMillis = null;
+					}
+				}
+				if(hourMillis != null)
+					return hourMillis + minutes*60000L + seconds*1000L;
+			}
+		}
+		Date date = dateString != null ? convertStringToDate(dateString) : null;
+		return date != null ? date.getTime() : Long.MIN_VALUE;
+	}
+	
+	/**
+	 * Parses two decimal digits.
+	 *
+	 * @param value the string
+	 * @param index the index of the first digit
+	 * @return the parsed number, -1 if the characters are not digits
+	 */
+	private static int parseTwoDigits(String value, int index){
+		char high = value.charAt(index);
+		char low = value.charAt(index + 1);
+		if(high < '0' || high > '9' || low < '0' || low > '9')
+			return -1;
+		return (high - '0')*10 + (low - '0');
+	}
+
+	/**
+	 * Parses a numeric value.
+	 *
+	 * @param value the value
+	 * @return the parsed value, NaN if missing or not numeric
+	 */
+	public static double parseDouble(String value){
+		if(value == null)
+			return Double.NaN;
+		try {
+			return Double.parseDouble(value);
+		} catch(NumberFormatException ex){
+			return Double.NaN;
+		}
+	}
+
 	public static boolean isNumber(String value) {
 		try {
 			Double.parseDouble(value);
@@ -133,6 +199,15 @@ public class AppUtility {
 		}
 	}
 	
+	public static boolean isInteger(String value) {
+		try {
+			Integer.parseInt(value);
+			return true;
+		} catch(Exception ex){
+			return false;
+		}
+	}
+	
 	public static double readMillis(){
 		return (double)(1.0*System.nanoTime()/1000000.0);
 	}
@@ -177,7 +252,7 @@ public class AppUtility {
 		return calcStd(values.toArray(new Double[values.size()]), mean);
 	}
 	
-	public static Double calcStd(LinkedList<Integer> values, Double mean){
+	public static Double calcStd(List<Integer> values, Double mean){
 		double std = 0;
 		for(Integer d : values){
 			std = std + Math.pow(d-mean, 2);
@@ -185,25 +260,25 @@ public class AppUtility {
 		return std / values.size();
 	}
 	
-	public static double getSecondsBetween(Date current, Date ref){
-		if(current.after(ref))
-			return (current.getTime() - ref.getTime())/1000;
-		else if(current.compareTo(ref) == 0)
+	public static double getSecondsBetween(long current, long ref){
+		if(current > ref)
+			return (current - ref)/1000;
+		else if(current == ref)
 			return 0.0;
 		else return Double.MAX_VALUE;
 	}
 	
-	public static TreeMap<Double, Double> convertMapTimestamps(Date firstTimestamp, TreeMap<Date, Double> toConvert){
+	public static TreeMap<Double, Double> convertMapTimestamps(long firstTimestamp, TreeMap<Long, Double> toConvert){
 		TreeMap<Double, Double> convertedMap = new TreeMap<>();
 		if(toConvert.size() > 0) {
-			for(Date key : toConvert.keySet()){
+			for(Long key : toConvert.keySet()){
 				convertedMap.put(AppUtility.getSecondsBetween(key, firstTimestamp), toConvert.get(key));
 			}
 		}
 		return convertedMap;
 	}
 
-	public static TreeMap<Double, Double> convertMapSnapshots(TreeMap<Date, Double> resultMap) {
+	public static TreeMap<Double, Double> convertMapSnapshots(TreeMap<Long, Double> resultMap) {
 		return convertMapTimestamps(resultMap.firstKey(), resultMap);
 	}
 
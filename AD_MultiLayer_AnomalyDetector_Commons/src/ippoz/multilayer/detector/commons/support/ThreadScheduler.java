@@ -22,6 +22,9 @@ public abstract class ThreadScheduler extends Thread {
 	/** The number of virtual processors of the machine. */
 	private int nProc;
 	
+	/** The fixed number of threads running simultaneously, overriding the load factor if positive. */
+	private int windowSize;
+	
 	/**
 	 * Instantiates a new thread scheduler with a default load factor.
 	 */
@@ -59,6 +62,15 @@ public abstract class ThreadScheduler extends Thread {
 		this.tList = tList;
 	}
 	
+	/**
+	 * Sets a fixed number of threads running simultaneously, independent of the number of processors.
+	 *
+	 * @param windowSize the window size, or a non-positive value to use the load factor
+	 */
+	public void setWindowSize(int windowSize){
+		this.windowSize = windowSize;
+	}
+	
 	/**
 	 * Gets the thread list.
 	 *
@@ -84,7 +96,7 @@ public abstract class ThreadScheduler extends Thread {
 	 */
 	@Override
 	public void run() {
-		int tWindow = nProc*loadFactor;
+		int tWindow = windowSize > 0 ? windowSize : nProc*loadFactor;
 		try {
 			initRun();
 			for(int i=0;i<tList.size();i=i+tWindow){